@@ -0,0 +1,48 @@
+#!/bin/bash
+#
+# Compare /routes/search throughput of the platform and virtual thread modes at rising concurrency.
+#
+# Start the application once per mode and run this script against each:
+#   VIRTUAL_THREADS_ENABLED=false SPRING_PROFILES_ACTIVE=prod java -jar target/flightsystem.jar
+#   VIRTUAL_THREADS_ENABLED=true  SPRING_PROFILES_ACTIVE=prod java -jar target/flightsystem.jar
+#
+# Requires hey (https://github.com/rakyll/hey). The requests of one concurrency level all search the
+# same pair, start the server with CACHE_NEAR_ENABLED=false (cache.near.enabled) so each of them
+# blocks on Redis like a request on another node would. Load the synthetic profile first for the
+# default location codes.
+#
+# Usage: ./load-test.sh [base-url] [origin] [destination]
+
+BASE_URL=${1:-http://localhost:8080}
+ORIGIN=${2:-SYN000001}
+DESTINATION=${3:-SYN004000}
+DURATION=${DURATION:-30s}
+CONCURRENCY_LEVELS=${CONCURRENCY_LEVELS:-"50 200 800 2000"}
+
+if ! command -v hey > /dev/null; then
+  echo "hey is not installed, see https://github.com/rakyll/hey"
+  exit 1
+fi
+
+TOKEN=$(curl -s -X POST "$BASE_URL/auth/login" \
+  -H "Content-Type: application/json" \
+  -d '{"username": "agency", "password": "agency123"}' | grep -o '"token":"[^"]*' | cut -d'"' -f4)
+
+if [ -z "$TOKEN" ]; then
+  echo "Failed to log in. Check if the server is running at $BASE_URL."
+  exit 1
+fi
+
+printf "%-12s %12s %12s %12s\n" "concurrency" "requests/s" "p50 (s)" "p99 (s)"
+
+DAY=0
+for CONCURRENCY in $CONCURRENCY_LEVELS; do
+  DAY=$((DAY + 1))
+  DATE=$(date -d "+$DAY day" +%Y-%m-%d 2> /dev/null || date -v+${DAY}d +%Y-%m-%d)
+  RESULT=$(hey -z "$DURATION" -c "$CONCURRENCY" -H "Authorization: Bearer $TOKEN" \
+    "$BASE_URL/routes/search?originCode=$ORIGIN&destinationCode=$DESTINATION&travelDate=$DATE")
+  RPS=$(echo "$RESULT" | awk '/Requests\/sec/ {print $2}')
+  P50=$(echo "$RESULT" | awk '/ 50% in/ {print $3}')
+  P99=$(echo "$RESULT" | awk '/ 99% in/ {print $3}')
+  printf "%-12s %12s %12s %12s\n" "$CONCURRENCY" "$RPS" "$P50" "$P99"
+done
@@ -0,0 +1,92 @@
+package com.msy.projects.flightsystem.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import com.msy.projects.flightsystem.cache.RouteCacheSerializer;
+import com.msy.projects.flightsystem.dto.TransportationDto;
+import com.msy.projects.flightsystem.model.TransportationType;
+
+/**
+ * Serialization cost of a route cache value in JSON and in the binary format of
+ * {@link RouteCacheSerializer}. Scores are in microseconds per operation, the value sizes are
+ * printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouteCacheSerializerBenchmark {
+
+    @Param({"json", "binary"})
+    public String format;
+
+    @Param({"40"})
+    public int hubs;
+
+    @Param({"4"})
+    public int transfers;
+
+    private RedisSerializer<Object> serializer;
+    private List<List<TransportationDto>> routes;
+    private byte[] bytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        serializer = "binary".equals(format)
+                ? new RouteCacheSerializer(true)
+                : new GenericJackson2JsonRedisSerializer();
+        routes = sampleRoutes(hubs, transfers);
+        bytes = serializer.serialize(routes);
+        System.out.printf("%n%s: %d routes, %d bytes%n", format, routes.size(), bytes.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(routes);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(bytes);
+    }
+
+    /**
+     * Routes from one origin over a few hubs to one destination, sharing their first and last segments
+     */
+    private static List<List<TransportationDto>> sampleRoutes(int hubs, int transfers) {
+        List<List<TransportationDto>> routes = new ArrayList<>();
+        long id = 1;
+        for (int transfer = 0; transfer < transfers; transfer++) {
+            TransportationDto toAirport = new TransportationDto(id++, 1L, "TAK", 2L, "IST",
+                    TransportationType.values()[1 + transfer % 3], List.of(1, 2, 3, 4, 5));
+            for (int hub = 0; hub < hubs; hub++) {
+                long hubId = 100L + hub;
+                TransportationDto first = new TransportationDto(1000L + hub, 2L, "IST", hubId, "H" + hub,
+                        TransportationType.FLIGHT, List.of(1, 3, 5));
+                TransportationDto second = new TransportationDto(2000L + hub, hubId, "H" + hub, 3L, "LHR",
+                        TransportationType.FLIGHT, List.of(1, 2, 3, 4, 5, 6, 7));
+                routes.add(List.of(toAirport, first, second));
+            }
+        }
+        return routes;
+    }
+}
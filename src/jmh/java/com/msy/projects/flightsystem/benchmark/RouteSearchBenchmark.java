@@ -0,0 +1,131 @@
+package com.msy.projects.flightsystem.benchmark;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import com.msy.projects.flightsystem.dto.RoutePageDto;
+import com.msy.projects.flightsystem.dto.TransportationDto;
+import com.msy.projects.flightsystem.model.RouteSort;
+import com.msy.projects.flightsystem.model.TransportationType;
+import com.msy.projects.flightsystem.repository.LocationRepository;
+import com.msy.projects.flightsystem.repository.TransportationRepository;
+import com.msy.projects.flightsystem.service.ParallelRouteEnumerator;
+import com.msy.projects.flightsystem.service.RouteGraphIndex;
+import com.msy.projects.flightsystem.service.RouteMaterializer;
+import com.msy.projects.flightsystem.service.RouteSearchMetrics;
+import com.msy.projects.flightsystem.service.RouteService;
+import com.msy.projects.flightsystem.service.TransportationService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Throughput of the route searches of {@link RouteService} over a {@link SyntheticNetwork}, without
+ * the route cache. Each invocation searches the next of a fixed list of location pairs.
+ *
+ * The engine parameter selects the indexed search, the indexed search split across cores by
+ * {@link ParallelRouteEnumerator} or the precomputed routes of {@link RouteMaterializer}.
+ * Add {@code -prof gc} to the JMH arguments for the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouteSearchBenchmark {
+
+    private static final LocalDate TRAVEL_DATE = LocalDate.of(2025, 4, 7);
+    private static final Collection<TransportationType> PREFERRED_TYPES = Set.of(TransportationType.SUBWAY);
+
+    @Param({"500", "5000"})
+    public int locations;
+
+    @Param({"300", "3000"})
+    public int flights;
+
+    @Param({"3"})
+    public int transferFanOut;
+
+    @Param({"1.0"})
+    public double hubSkew;
+
+    @Param({"indexed", "parallel", "materialized"})
+    public String engine;
+
+    private ForkJoinPool forkJoinPool;
+    private RouteService routeService;
+    private List<String[]> pairs;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticNetwork network = new SyntheticNetwork(locations, flights, transferFanOut, hubSkew, 42);
+        TransportationRepository transportationRepository = network.transportationRepository();
+        LocationRepository locationRepository = network.locationRepository();
+
+        RouteGraphIndex routeGraphIndex = new RouteGraphIndex(transportationRepository);
+        RouteMaterializer routeMaterializer =
+                new RouteMaterializer(routeGraphIndex, new SyncTaskExecutor(), "materialized".equals(engine));
+        if (routeMaterializer.isEnabled()) {
+            routeMaterializer.materializeDay(TRAVEL_DATE.getDayOfWeek().getValue());
+        }
+        TransportationService transportationService = new TransportationService(transportationRepository,
+                locationRepository, null, routeGraphIndex, routeMaterializer, null);
+        forkJoinPool = new ForkJoinPool();
+        ParallelRouteEnumerator parallelEnumerator =
+                new ParallelRouteEnumerator(forkJoinPool, "parallel".equals(engine), 0);
+        routeService = new RouteService(routeGraphIndex, locationRepository, transportationService,
+                routeMaterializer, new UntaggedCacheService(), new RouteSearchMetrics(new SimpleMeterRegistry()),
+                parallelEnumerator, false);
+        pairs = network.searchPairs(1024, 7);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        forkJoinPool.shutdown();
+    }
+
+    @Benchmark
+    public List<List<TransportationDto>> findRoutes() {
+        String[] pair = nextPair();
+        return routeService.findRoutes(pair[0], pair[1], TRAVEL_DATE);
+    }
+
+    @Benchmark
+    public List<List<TransportationDto>> findConnectingRoutes() {
+        String[] pair = nextPair();
+        return routeService.findRoutes(pair[0], pair[1], TRAVEL_DATE, 2, 4);
+    }
+
+    @Benchmark
+    public RoutePageDto findRoutePage() {
+        String[] pair = nextPair();
+        return routeService.findRoutePage(pair[0], pair[1], TRAVEL_DATE, 2, 4,
+                RouteSort.PREFERRED_TYPES, PREFERRED_TYPES, 20, null);
+    }
+
+    private String[] nextPair() {
+        String[] pair = pairs.get(next);
+        next = (next + 1) % pairs.size();
+        return pair;
+    }
+}
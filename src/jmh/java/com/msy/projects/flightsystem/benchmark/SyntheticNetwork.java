@@ -0,0 +1,110 @@
+package com.msy.projects.flightsystem.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import com.msy.projects.flightsystem.config.SyntheticNetworkGenerator;
+import com.msy.projects.flightsystem.model.Location;
+import com.msy.projects.flightsystem.model.OperatingDays;
+import com.msy.projects.flightsystem.model.Transportation;
+import com.msy.projects.flightsystem.repository.LocationRepository;
+import com.msy.projects.flightsystem.repository.TransportationRepository;
+
+/**
+ * Network of a {@link SyntheticNetworkGenerator} with in-memory repository stand-ins, so route
+ * benchmarks run without a database. The same parameters and seed always give the same network.
+ */
+public class SyntheticNetwork {
+
+    private final List<Location> airports;
+    private final List<Location> cityLocations;
+    private final Map<String, Location> locationsByCode = new HashMap<>();
+    private final List<Transportation> transportations;
+
+    /**
+     * @see SyntheticNetworkGenerator#SyntheticNetworkGenerator(int, int, int, double, long)
+     */
+    public SyntheticNetwork(int locations, int flights, int transferFanOut, double hubSkew, long seed) {
+        SyntheticNetworkGenerator generator =
+                new SyntheticNetworkGenerator(locations, flights, transferFanOut, hubSkew, seed);
+        this.airports = generator.getAirports();
+        this.cityLocations = generator.getCityLocations();
+        this.transportations = generator.getTransportations();
+        for (Location location : generator.getLocations()) {
+            locationsByCode.put(location.getLocationCode(), location);
+        }
+    }
+
+    public List<Location> getAirports() {
+        return airports;
+    }
+
+    public List<Location> getCityLocations() {
+        return cityLocations;
+    }
+
+    public List<Transportation> getTransportations() {
+        return transportations;
+    }
+
+    /**
+     * Random pairs of distinct location codes, mostly city to city as searched by travellers
+     */
+    public List<String[]> searchPairs(int count, long seed) {
+        Random pairs = new Random(seed);
+        List<Location> all = new ArrayList<>(cityLocations);
+        all.addAll(airports);
+        List<String[]> result = new ArrayList<>(count);
+        while (result.size() < count) {
+            List<Location> from = pairs.nextInt(4) == 0 ? all : cityLocations;
+            Location origin = from.get(pairs.nextInt(from.size()));
+            Location destination = from.get(pairs.nextInt(from.size()));
+            if (origin != destination) {
+                result.add(new String[]{origin.getLocationCode(), destination.getLocationCode()});
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Repository answering the timetable queries of the route engine from the generated network
+     */
+    public TransportationRepository transportationRepository() {
+        return (TransportationRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{TransportationRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findByOperatingDay" -> byDayBit(OperatingDays.bit((Integer) args[0]));
+                    case "findByOperatingDayBit" -> byDayBit((Integer) args[0]);
+                    case "findAll" -> new ArrayList<>(transportations);
+                    case "toString" -> "SyntheticTransportationRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * Repository answering location lookups by code from the generated network
+     */
+    public LocationRepository locationRepository() {
+        return (LocationRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{LocationRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findByLocationCode" -> Optional.ofNullable(locationsByCode.get((String) args[0]));
+                    case "existsByLocationCode" -> locationsByCode.containsKey((String) args[0]);
+                    case "toString" -> "SyntheticLocationRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private List<Transportation> byDayBit(int dayBit) {
+        List<Transportation> result = new ArrayList<>();
+        for (Transportation transportation : transportations) {
+            if ((transportation.getOperatingDaysMask() & dayBit) != 0) {
+                result.add(transportation);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,108 @@
+package com.msy.projects.flightsystem.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import com.msy.projects.flightsystem.dto.TransportationDto;
+import com.msy.projects.flightsystem.service.ParallelRouteEnumerator;
+import com.msy.projects.flightsystem.service.RouteGraphIndex;
+import com.msy.projects.flightsystem.service.RouteMaterializer;
+import com.msy.projects.flightsystem.service.RouteSearchMetrics;
+import com.msy.projects.flightsystem.service.RouteService;
+import com.msy.projects.flightsystem.service.TransportationService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Request throughput of the two thread models at high concurrency: a pool of platform threads
+ * sized like Tomcat in production, and one virtual thread per request.
+ *
+ * Each request waits for a simulated Redis and database round trip, then runs a route search
+ * over a {@link SyntheticNetwork}. A batch of {@value #REQUESTS} requests is submitted at once,
+ * the score is in requests per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ThreadModelBenchmark {
+
+    private static final LocalDate TRAVEL_DATE = LocalDate.of(2025, 4, 7);
+    private static final int REQUESTS = 2000;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"200"})
+    public int platformThreads;
+
+    @Param({"2", "20"})
+    public int blockingMillis;
+
+    private ExecutorService executor;
+    private RouteService routeService;
+    private List<String[]> pairs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticNetwork network = new SyntheticNetwork(2000, 1000, 3, 1.0, 42);
+        RouteGraphIndex routeGraphIndex = new RouteGraphIndex(network.transportationRepository());
+        RouteMaterializer routeMaterializer = new RouteMaterializer(routeGraphIndex, new SyncTaskExecutor(), false);
+        TransportationService transportationService = new TransportationService(network.transportationRepository(),
+                network.locationRepository(), null, routeGraphIndex, routeMaterializer, null);
+        routeService = new RouteService(routeGraphIndex, network.locationRepository(), transportationService,
+                routeMaterializer, new UntaggedCacheService(), new RouteSearchMetrics(new SimpleMeterRegistry()),
+                new ParallelRouteEnumerator(null, false, 0), false);
+        pairs = network.searchPairs(REQUESTS, 7);
+        executor = "virtual".equals(threads)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(platformThreads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS)
+    public int handleRequests() throws Exception {
+        List<Future<List<List<TransportationDto>>>> responses = new ArrayList<>(REQUESTS);
+        for (String[] pair : pairs) {
+            responses.add(executor.submit(() -> {
+                // Redis lookup and location queries of a request missing the route cache
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(blockingMillis));
+                return routeService.findRoutes(pair[0], pair[1], TRAVEL_DATE);
+            }));
+        }
+        int routes = 0;
+        for (Future<List<List<TransportationDto>>> response : responses) {
+            routes += response.get().size();
+        }
+        return routes;
+    }
+}
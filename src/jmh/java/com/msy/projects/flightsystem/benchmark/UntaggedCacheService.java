@@ -0,0 +1,22 @@
+package com.msy.projects.flightsystem.benchmark;
+
+import java.util.Collection;
+
+import com.msy.projects.flightsystem.dto.TransportationDto;
+import com.msy.projects.flightsystem.service.CacheService;
+
+/**
+ * Route cache tagging without Redis, the flattening of the routes done by
+ * {@link CacheService#tagRoutes} is still measured
+ */
+class UntaggedCacheService extends CacheService {
+
+    UntaggedCacheService() {
+        super(null, null, null);
+    }
+
+    @Override
+    public void tagRouteSegments(String key, int dayOfWeek, Long originId, Long destinationId, boolean multiFlight,
+                                 Collection<TransportationDto> transportations) {
+    }
+}
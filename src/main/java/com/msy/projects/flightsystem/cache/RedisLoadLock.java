@@ -0,0 +1,84 @@
+package com.msy.projects.flightsystem.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Short-lived Redis lock letting a single node compute a missing cache entry while the other
+ * nodes wait for it to appear in Redis.
+ *
+ * The lock expires on its own, so a node dying while computing only delays the others by the
+ * lock time to live. Redis errors are treated as not holding the lock.
+ */
+public class RedisLoadLock {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisLoadLock.class);
+    private static final String LOCK_PREFIX = "cacheLoadLock::";
+
+    /**
+     * Delete the lock only if this node still holds it
+     */
+    private static final RedisScript<Long> UNLOCK = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final String owner = UUID.randomUUID().toString();
+    private final Duration lockTtl;
+    private final Duration maximumWait;
+    private final Duration pollInterval;
+
+    /**
+     * @param redisTemplate Template of the lock keys
+     * @param lockTtl Time after which an unreleased lock expires
+     * @param maximumWait How long the other nodes wait for the entry before computing it themselves
+     * @param pollInterval How often a waiting node looks for the entry
+     */
+    public RedisLoadLock(RedisTemplate<String, Object> redisTemplate, Duration lockTtl, Duration maximumWait,
+                         Duration pollInterval) {
+        this.redisTemplate = redisTemplate;
+        this.lockTtl = lockTtl;
+        this.maximumWait = maximumWait;
+        this.pollInterval = pollInterval;
+    }
+
+    /**
+     * @return Whether this node may compute the entry
+     */
+    boolean tryLock(String cacheName, Object key) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(lockKey(cacheName, key), owner, lockTtl));
+        } catch (RuntimeException e) {
+            log.warn("Could not acquire load lock of {} in cache {}", key, cacheName, e);
+            return true;
+        }
+    }
+
+    void unlock(String cacheName, Object key) {
+        try {
+            redisTemplate.execute(UNLOCK, List.of(lockKey(cacheName, key)), owner);
+        } catch (RuntimeException e) {
+            // The lock expires with its time to live
+            log.warn("Could not release load lock of {} in cache {}", key, cacheName, e);
+        }
+    }
+
+    Duration getMaximumWait() {
+        return maximumWait;
+    }
+
+    Duration getPollInterval() {
+        return pollInterval;
+    }
+
+    private static String lockKey(String cacheName, Object key) {
+        return LOCK_PREFIX + cacheName + "::" + key;
+    }
+}
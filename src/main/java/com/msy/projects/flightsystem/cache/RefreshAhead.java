@@ -0,0 +1,59 @@
+package com.msy.projects.flightsystem.cache;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refresh-ahead policy of a {@link TwoTierCache}: once an entry has lived for the given fraction of
+ * its time to live, the next read still returns it but recomputes it in the background.
+ *
+ * Values are written to Redis as {@link StampedValue}s, the age of an entry read from Redis is
+ * derived from its write time, so nodes should keep their clocks in sync. Entries written without
+ * a stamp are left to expire. Time to live and refresh point depend on the value, see {@link RouteCacheTtl}.
+ */
+public class RefreshAhead {
+
+    private final RedisCacheWriter.TtlFunction timeToLive;
+    private final double fraction;
+    private final TaskExecutor executor;
+
+    /**
+     * @param timeToLive Time to live of the Redis entries
+     * @param fraction Fraction of the time to live after which an entry is refreshed, between 0 and 1
+     * @param executor Executor of the background refreshes, a rejected refresh lets the entry expire
+     */
+    public RefreshAhead(RedisCacheWriter.TtlFunction timeToLive, double fraction, TaskExecutor executor) {
+        if (fraction <= 0 || fraction >= 1) {
+            throw new IllegalArgumentException("Refresh-ahead fraction must be between 0 and 1: " + fraction);
+        }
+        this.timeToLive = timeToLive;
+        this.fraction = fraction;
+        this.executor = executor;
+    }
+
+    /**
+     * @return {@link System#nanoTime()} at which an entry written now should be refreshed
+     */
+    long refreshAtAfterWrite(Object key, Object value) {
+        return System.nanoTime() + refreshAfterNanos(key, value);
+    }
+
+    /**
+     * @param writtenAt Epoch milliseconds at which the entry was written to Redis
+     * @return {@link System#nanoTime()} at which an entry found in Redis should be refreshed
+     */
+    long refreshAtOfRemote(Object key, Object value, long writtenAt) {
+        long ageNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, System.currentTimeMillis() - writtenAt));
+        return System.nanoTime() + refreshAfterNanos(key, value) - ageNanos;
+    }
+
+    private long refreshAfterNanos(Object key, Object value) {
+        return (long) (timeToLive.getTimeToLive(key, value).toNanos() * fraction);
+    }
+
+    TaskExecutor getExecutor() {
+        return executor;
+    }
+}
@@ -0,0 +1,31 @@
+package com.msy.projects.flightsystem.cache;
+
+import com.msy.projects.flightsystem.dto.CompactRoutesDto;
+import com.msy.projects.flightsystem.service.RouteService;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.LocalDate;
+
+/**
+ * Key generator of the routeCache entries written by {@link RouteService}.
+ *
+ * Routes only depend on the weekday of the travel date, so keys hold the upper-cased location
+ * codes and the {@link java.time.DayOfWeek} instead of the date, see {@link RouteService#routeCacheKey}.
+ * Results in the compact response format get their own entries.
+ */
+@Component("routeCacheKeyGenerator")
+public class RouteCacheKeyGenerator implements KeyGenerator {
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        String originCode = (String) params[0];
+        String destinationCode = (String) params[1];
+        LocalDate travelDate = (LocalDate) params[2];
+        String key = params.length == 5
+                ? RouteService.routeCacheKey(originCode, destinationCode, travelDate, (Integer) params[3], (Integer) params[4])
+                : RouteService.routeCacheKey(originCode, destinationCode, travelDate);
+        return method.getReturnType() == CompactRoutesDto.class ? key + RouteService.COMPACT_KEY_SUFFIX : key;
+    }
+}
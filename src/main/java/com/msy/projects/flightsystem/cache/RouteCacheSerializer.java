@@ -0,0 +1,314 @@
+package com.msy.projects.flightsystem.cache;
+
+import com.msy.projects.flightsystem.dto.TransportationDto;
+import com.msy.projects.flightsystem.model.TransportationType;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Redis value serializer writing route results ({@code List<List<TransportationDto>>}) in a compact
+ * binary format and every other value as JSON.
+ *
+ * A binary value starts with two magic bytes and a format version, followed by
+ * <ol>
+ *     <li>the locations of the entry: count, then id and code of each,</li>
+ *     <li>the distinct transportations of the entry: count, then id, origin and destination
+ *     location index, type and operating days as a bitmask of each,</li>
+ *     <li>the routes: count, then length and transportation indexes of each.</li>
+ * </ol>
+ * Numbers are unsigned varints, nullable numbers and strings are stored shifted by one so 0 means null.
+ * Operating days come back in ascending order.
+ *
+ * A {@link StampedValue} is written as the magic bytes, a stamp format version and its write time,
+ * followed by its value in either format, whether or not route results are written in binary.
+ *
+ * Values without the magic bytes are read as JSON, so entries written before the binary format
+ * stay readable. Values of an unknown format version are read as null, i.e. as a cache miss.
+ */
+public class RouteCacheSerializer implements RedisSerializer<Object> {
+
+    /**
+     * Neither byte can start a JSON document
+     */
+    private static final byte MAGIC_0 = (byte) 0xB7;
+    private static final byte MAGIC_1 = (byte) 0x52;
+    static final byte VERSION = 1;
+    static final byte STAMPED_VERSION = 2;
+
+    private static final int NULL_DAYS = 0x80;
+    private static final TransportationType[] TYPES = TransportationType.values();
+
+    private final RedisSerializer<Object> json;
+    private final boolean writeBinary;
+
+    /**
+     * @param writeBinary Whether route results are written in the binary format, when false everything
+     *                    is written as JSON while binary values can still be read
+     */
+    public RouteCacheSerializer(boolean writeBinary) {
+        this(new GenericJackson2JsonRedisSerializer(), writeBinary);
+    }
+
+    RouteCacheSerializer(RedisSerializer<Object> json, boolean writeBinary) {
+        this.json = json;
+        this.writeBinary = writeBinary;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value instanceof StampedValue stamped) {
+            return stamp(stamped);
+        }
+        if (writeBinary && isRouteList(value)) {
+            return encode((List<?>) value);
+        }
+        return json.serialize(value);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes.length < 3 || bytes[0] != MAGIC_0 || bytes[1] != MAGIC_1) {
+            return json.deserialize(bytes);
+        }
+        if (bytes[2] == STAMPED_VERSION) {
+            return unstamp(bytes);
+        }
+        if (bytes[2] != VERSION) {
+            return null;
+        }
+        try {
+            return decode(ByteBuffer.wrap(bytes, 3, bytes.length - 3));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new SerializationException("Corrupt route cache value", e);
+        }
+    }
+
+    private byte[] stamp(StampedValue stamped) {
+        byte[] value = serialize(stamped.value());
+        ByteArrayOutputStream out = new ByteArrayOutputStream(value.length + 13);
+        out.write(MAGIC_0);
+        out.write(MAGIC_1);
+        out.write(STAMPED_VERSION);
+        writeVarLong(out, stamped.writtenAt());
+        out.write(value, 0, value.length);
+        return out.toByteArray();
+    }
+
+    private StampedValue unstamp(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes, 3, bytes.length - 3);
+        long writtenAt;
+        try {
+            writtenAt = readVarLong(in);
+        } catch (BufferUnderflowException e) {
+            throw new SerializationException("Corrupt route cache value", e);
+        }
+        Object value = deserialize(Arrays.copyOfRange(bytes, in.position(), bytes.length));
+        return value != null ? new StampedValue(value, writtenAt) : null;
+    }
+
+    private static boolean isRouteList(Object value) {
+        if (!(value instanceof List<?> routes)) {
+            return false;
+        }
+        for (Object route : routes) {
+            if (!(route instanceof List<?> segments)) {
+                return false;
+            }
+            for (Object segment : segments) {
+                if (!(segment instanceof TransportationDto)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static byte[] encode(List<?> routes) {
+        Map<TransportationDto, Integer> transportations = new LinkedHashMap<>();
+        Map<List<Object>, Integer> locations = new LinkedHashMap<>();
+        for (Object route : routes) {
+            for (Object segment : (List<?>) route) {
+                TransportationDto transportation = (TransportationDto) segment;
+                if (transportations.putIfAbsent(transportation, transportations.size()) == null) {
+                    locations.putIfAbsent(Arrays.asList(transportation.getOriginLocationId(),
+                            transportation.getOriginLocationCode()), locations.size());
+                    locations.putIfAbsent(Arrays.asList(transportation.getDestinationLocationId(),
+                            transportation.getDestinationLocationCode()), locations.size());
+                }
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + 8 * transportations.size() + 4 * routes.size());
+        out.write(MAGIC_0);
+        out.write(MAGIC_1);
+        out.write(VERSION);
+
+        writeVarLong(out, locations.size());
+        for (List<Object> location : locations.keySet()) {
+            writeNullableLong(out, (Long) location.get(0));
+            writeString(out, (String) location.get(1));
+        }
+
+        writeVarLong(out, transportations.size());
+        for (TransportationDto transportation : transportations.keySet()) {
+            writeNullableLong(out, transportation.getId());
+            writeVarLong(out, locations.get(Arrays.asList(transportation.getOriginLocationId(),
+                    transportation.getOriginLocationCode())));
+            writeVarLong(out, locations.get(Arrays.asList(transportation.getDestinationLocationId(),
+                    transportation.getDestinationLocationCode())));
+            TransportationType type = transportation.getTransportationType();
+            out.write(type == null ? 0 : type.ordinal() + 1);
+            out.write(daysMask(transportation.getOperatingDays()));
+        }
+
+        writeVarLong(out, routes.size());
+        for (Object route : routes) {
+            List<?> segments = (List<?>) route;
+            writeVarLong(out, segments.size());
+            for (Object segment : segments) {
+                writeVarLong(out, transportations.get((TransportationDto) segment));
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static List<List<TransportationDto>> decode(ByteBuffer in) {
+        int locationCount = readCount(in);
+        Long[] locationIds = new Long[locationCount];
+        String[] locationCodes = new String[locationCount];
+        for (int i = 0; i < locationCount; i++) {
+            locationIds[i] = readNullableLong(in);
+            locationCodes[i] = readString(in);
+        }
+
+        int transportationCount = readCount(in);
+        TransportationDto[] transportations = new TransportationDto[transportationCount];
+        for (int i = 0; i < transportationCount; i++) {
+            Long id = readNullableLong(in);
+            int origin = readCount(in);
+            int destination = readCount(in);
+            int type = in.get() & 0xFF;
+            int days = in.get() & 0xFF;
+            transportations[i] = new TransportationDto(id, locationIds[origin], locationCodes[origin],
+                    locationIds[destination], locationCodes[destination],
+                    type == 0 ? null : TYPES[type - 1], days(days));
+        }
+
+        int routeCount = readCount(in);
+        List<List<TransportationDto>> routes = new ArrayList<>(routeCount);
+        for (int i = 0; i < routeCount; i++) {
+            int segmentCount = readCount(in);
+            List<TransportationDto> route = new ArrayList<>(segmentCount);
+            for (int j = 0; j < segmentCount; j++) {
+                route.add(copy(transportations[readCount(in)]));
+            }
+            routes.add(route);
+        }
+        return routes;
+    }
+
+    /**
+     * Routes get their own instances, so changing a segment of one route cannot change another
+     */
+    private static TransportationDto copy(TransportationDto transportation) {
+        List<Integer> days = transportation.getOperatingDays();
+        return new TransportationDto(transportation.getId(),
+                transportation.getOriginLocationId(), transportation.getOriginLocationCode(),
+                transportation.getDestinationLocationId(), transportation.getDestinationLocationCode(),
+                transportation.getTransportationType(), days == null ? null : new ArrayList<>(days));
+    }
+
+    private static int daysMask(List<Integer> operatingDays) {
+        if (operatingDays == null) {
+            return NULL_DAYS;
+        }
+        int mask = 0;
+        for (Integer day : operatingDays) {
+            if (day == null || day < 1 || day > 7) {
+                throw new SerializationException("Invalid operating day " + day);
+            }
+            mask |= 1 << (day - 1);
+        }
+        return mask;
+    }
+
+    private static List<Integer> days(int mask) {
+        if (mask == NULL_DAYS) {
+            return null;
+        }
+        List<Integer> days = new ArrayList<>(Integer.bitCount(mask));
+        for (int day = 1; day <= 7; day++) {
+            if ((mask & (1 << (day - 1))) != 0) {
+                days.add(day);
+            }
+        }
+        return days;
+    }
+
+    private static void writeNullableLong(ByteArrayOutputStream out, Long value) {
+        writeVarLong(out, value == null ? 0 : value + 1);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static Long readNullableLong(ByteBuffer in) {
+        long value = readVarLong(in);
+        return value == 0 ? null : value - 1;
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = readCount(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int readCount(ByteBuffer in) {
+        long value = readVarLong(in);
+        if (value > in.capacity()) {
+            throw new SerializationException("Corrupt route cache value");
+        }
+        return (int) value;
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Corrupt route cache value");
+    }
+}
@@ -0,0 +1,41 @@
+package com.msy.projects.flightsystem.cache;
+
+import com.msy.projects.flightsystem.dto.CompactRoutesDto;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * Time to live of route cache entries: searches without any route are kept for a shorter time
+ * than the others, so a pair that becomes connected is not answered from an old empty entry for long.
+ */
+public class RouteCacheTtl implements RedisCacheWriter.TtlFunction {
+
+    private final Duration ttl;
+    private final Duration emptyResultTtl;
+
+    /**
+     * @param ttl Time to live of entries holding routes
+     * @param emptyResultTtl Time to live of entries without any route
+     */
+    public RouteCacheTtl(Duration ttl, Duration emptyResultTtl) {
+        this.ttl = ttl;
+        this.emptyResultTtl = emptyResultTtl;
+    }
+
+    @Override
+    public Duration getTimeToLive(Object key, Object value) {
+        return isEmptyResult(StampedValue.unwrap(value)) ? emptyResultTtl : ttl;
+    }
+
+    private static boolean isEmptyResult(Object value) {
+        if (value instanceof Collection<?> routes) {
+            return routes.isEmpty();
+        }
+        if (value instanceof CompactRoutesDto compact) {
+            return compact.getRoutes() == null || compact.getRoutes().isEmpty();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,18 @@
+package com.msy.projects.flightsystem.cache;
+
+/**
+ * Cache value written to Redis together with its write time, so a node reading it can tell its age
+ * without asking Redis for the remaining time to live. Only written with {@link RefreshAhead}.
+ *
+ * @param value Cached value
+ * @param writtenAt Epoch milliseconds at which the value was written
+ */
+public record StampedValue(Object value, long writtenAt) {
+
+    /**
+     * @return The cached value of a value read from Redis, stamped or not
+     */
+    public static Object unwrap(Object stored) {
+        return stored instanceof StampedValue stamped ? stamped.value() : stored;
+    }
+}
@@ -0,0 +1,449 @@
+package com.msy.projects.flightsystem.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache reading a bounded in-process cache (L1) before the shared Redis cache (L2).
+ *
+ * Writes go to both tiers. Evictions remove the entry from both tiers and are announced to the
+ * other nodes through {@link TwoTierCacheManager}, which drops their L1 copies. A value read from
+ * L2 is only kept in L1 if no invalidation arrived while it was being read, so a concurrent
+ * eviction on another node cannot leave a stale copy behind. It is also kept no longer than it
+ * remains in L2, known from its {@link StampedValue} stamp or else asked from Redis.
+ *
+ * Concurrent misses of the same key passed to {@link #get(Object, Callable)} are coalesced: the first
+ * caller runs the loader and the others wait for its result. With a {@link RedisLoadLock} the other
+ * nodes wait as well, for at most the lock's maximum wait before computing the value themselves.
+ *
+ * With {@link RefreshAhead}, an entry read through {@link #get(Object, Callable)} after the refresh
+ * point of its time to live is still returned, while the loader of that read recomputes it once in
+ * the background. Evictions remove entries right away, a refresh finishing after an eviction is dropped.
+ * L2 values are then written as {@link StampedValue}s, so the refresh point of an entry read from L2
+ * is known without another round-trip.
+ */
+public class TwoTierCache implements Cache {
+
+    private static final Logger log = LoggerFactory.getLogger(TwoTierCache.class);
+
+    private final String name;
+    private final Cache remote;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> local;
+    private final TwoTierCacheManager manager;
+    private final RedisLoadLock loadLock;
+    private final RefreshAhead refreshAhead;
+    private final Set<Object> refreshing = ConcurrentHashMap.newKeySet();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final ConcurrentMap<Object, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+    private final Counter computedLoads;
+    private final Counter coalescedLoads;
+    private final Counter remoteLoads;
+    private final Counter timedOutWaits;
+    private final Counter refreshedLoads;
+
+    TwoTierCache(String name, Cache remote, com.github.benmanes.caffeine.cache.Cache<Object, Object> local,
+                 TwoTierCacheManager manager, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.remote = remote;
+        this.local = local;
+        this.manager = manager;
+        this.loadLock = manager.getLoadLock();
+        this.refreshAhead = manager.getRefreshAhead();
+        this.hits = getCounter(meterRegistry, "hit");
+        this.misses = getCounter(meterRegistry, "miss");
+        this.evictions = Counter.builder("cache.evictions")
+                .description("Entries evicted from a two-tier cache, a clear counts once")
+                .tag("cache", name)
+                .register(meterRegistry);
+        this.localHits = tierCounter(meterRegistry, "l1", "hit");
+        this.localMisses = tierCounter(meterRegistry, "l1", "miss");
+        this.remoteHits = tierCounter(meterRegistry, "l2", "hit");
+        this.remoteMisses = tierCounter(meterRegistry, "l2", "miss");
+        this.computedLoads = loadCounter(meterRegistry, "computed");
+        this.coalescedLoads = loadCounter(meterRegistry, "coalesced");
+        this.remoteLoads = loadCounter(meterRegistry, "remote");
+        this.timedOutWaits = loadCounter(meterRegistry, "wait_timeout");
+        this.refreshedLoads = loadCounter(meterRegistry, "refreshed");
+        Gauge.builder("cache.tier.size", local, c -> c.estimatedSize())
+                .tag("cache", name)
+                .tag("tier", "l1")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Lookups of either tier, named like the meters Micrometer binds to other caches
+     */
+    private Counter getCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("cache.gets")
+                .description("Lookups of a two-tier cache")
+                .tag("cache", name)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private Counter tierCounter(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("cache.tier.gets")
+                .description("Lookups per tier of a two-tier cache")
+                .tag("cache", name)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Misses by outcome: computed here, coalesced with a load running on this node,
+     * remote when another node computed the value, wait_timeout when that took too long,
+     * refreshed for entries recomputed ahead of their expiry
+     */
+    private Counter loadCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("cache.loads")
+                .description("Cache misses passed to a value loader, by outcome")
+                .tag("cache", name)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        LocalEntry entry = lookup(key);
+        return entry != null ? new SimpleValueWrapper(entry.value()) : null;
+    }
+
+    private LocalEntry lookup(Object key) {
+        LocalEntry entry = (LocalEntry) local.getIfPresent(key);
+        if (entry != null) {
+            localHits.increment();
+            hits.increment();
+            return entry;
+        }
+        localMisses.increment();
+
+        long invalidationsBefore = invalidations.get();
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper == null || wrapper.get() == null) {
+            remoteMisses.increment();
+            misses.increment();
+            return null;
+        }
+        remoteHits.increment();
+        hits.increment();
+        entry = remoteEntry(key, wrapper.get());
+        putLocal(key, entry, invalidationsBefore);
+        return entry;
+    }
+
+    /**
+     * Get the L1 entries of many keys without reading L2, for callers batching their L2 reads
+     *
+     * @param keys Cache keys
+     * @return Values by key, keys without an L1 entry are left out
+     */
+    public Map<Object, Object> getAllLocal(Collection<?> keys) {
+        Map<Object, Object> values = new HashMap<>();
+        local.getAllPresent(keys).forEach((key, entry) -> values.put(key, ((LocalEntry) entry).value()));
+        localHits.increment(values.size());
+        localMisses.increment(keys.size() - values.size());
+        return values;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        LocalEntry entry = lookup(key);
+        if (entry != null) {
+            if (entry.refreshAt() != Long.MAX_VALUE && System.nanoTime() - entry.refreshAt() >= 0) {
+                refreshInBackground(key, valueLoader);
+            }
+            return (T) entry.value();
+        }
+
+        // Only the first of concurrent misses loads, the others wait for its result
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> running = loads.putIfAbsent(key, load);
+        if (running != null) {
+            coalescedLoads.increment();
+            return (T) await(key, valueLoader, running);
+        }
+        try {
+            Object value = load(key, valueLoader);
+            load.complete(value);
+            return (T) value;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(key, load);
+        }
+    }
+
+    private Object load(Object key, Callable<?> valueLoader) {
+        boolean locked = loadLock == null || loadLock.tryLock(name, key);
+        if (!locked) {
+            // Another node is computing the value
+            ValueWrapper loaded = awaitRemote(key);
+            if (loaded != null) {
+                remoteLoads.increment();
+                return loaded.get();
+            }
+            timedOutWaits.increment();
+        }
+        try {
+            Object value;
+            try {
+                value = valueLoader.call();
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            computedLoads.increment();
+            if (value != null) {
+                put(key, value);
+            }
+            return value;
+        } finally {
+            if (locked && loadLock != null) {
+                loadLock.unlock(name, key);
+            }
+        }
+    }
+
+    private Object await(Object key, Callable<?> valueLoader, CompletableFuture<Object> load) {
+        try {
+            return load.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ValueRetrievalException retrieval) {
+                throw new ValueRetrievalException(key, valueLoader, retrieval.getCause());
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new ValueRetrievalException(key, valueLoader, cause);
+        }
+    }
+
+    /**
+     * Recompute an entry on the refresh-ahead executor unless a refresh of it is already running
+     */
+    private void refreshInBackground(Object key, Callable<?> valueLoader) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            refreshAhead.getExecutor().execute(() -> {
+                try {
+                    long invalidationsBefore = invalidations.get();
+                    Object value = valueLoader.call();
+                    // The value may predate an invalidation that arrived while it was computed
+                    if (value != null && invalidations.get() == invalidationsBefore) {
+                        put(key, value);
+                        refreshedLoads.increment();
+                    }
+                } catch (Exception e) {
+                    log.warn("Could not refresh {} in cache {}", key, name, e);
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            // The entry expires with its time to live
+            refreshing.remove(key);
+        }
+    }
+
+    /**
+     * Poll L2 until the value computed by another node appears or the maximum wait elapses
+     */
+    private ValueWrapper awaitRemote(Object key) {
+        long deadline = System.nanoTime() + loadLock.getMaximumWait().toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(loadLock.getPollInterval().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            long invalidationsBefore = invalidations.get();
+            ValueWrapper wrapper = remote.get(key);
+            if (wrapper != null && wrapper.get() != null) {
+                LocalEntry entry = remoteEntry(key, wrapper.get());
+                putLocal(key, entry, invalidationsBefore);
+                return new SimpleValueWrapper(entry.value());
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        long invalidationsBefore = invalidations.get();
+        remote.put(key, stamped(value));
+        putLocal(key, new LocalEntry(value, refreshAtAfterWrite(key, value)), invalidationsBefore);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        long invalidationsBefore = invalidations.get();
+        ValueWrapper existing = remote.putIfAbsent(key, stamped(value));
+        if (existing != null) {
+            LocalEntry entry = remoteEntry(key, existing.get());
+            putLocal(key, entry, invalidationsBefore);
+            return new SimpleValueWrapper(entry.value());
+        }
+        putLocal(key, new LocalEntry(value, refreshAtAfterWrite(key, value)), invalidationsBefore);
+        return null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        evictions.increment();
+        dropLocal(List.of(key));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = remote.evictIfPresent(key);
+        if (evicted) {
+            evictions.increment();
+        }
+        dropLocal(List.of(key));
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        evictions.increment();
+        invalidateLocal(null);
+        manager.publishInvalidation(name, null);
+    }
+
+    /**
+     * Drop entries that were removed from L2 directly, on this node and on every other node
+     *
+     * @param keys Cache keys
+     */
+    public void evictLocal(Collection<?> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        evictions.increment(keys.size());
+        dropLocal(keys);
+    }
+
+    private void dropLocal(Collection<?> keys) {
+        invalidateLocal(keys);
+        manager.publishInvalidation(name, keys);
+    }
+
+    /**
+     * Drop L1 entries of this node only
+     *
+     * @param keys Cache keys, or null for all entries
+     */
+    void invalidateLocal(Collection<?> keys) {
+        invalidations.incrementAndGet();
+        if (keys == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidateAll(keys);
+        }
+    }
+
+    private long refreshAtAfterWrite(Object key, Object value) {
+        return refreshAhead != null && value != null ? refreshAhead.refreshAtAfterWrite(key, value) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Stamp a value written to L2 with its write time when entries are refreshed ahead
+     */
+    private Object stamped(Object value) {
+        return refreshAhead != null && value != null ? new StampedValue(value, System.currentTimeMillis()) : value;
+    }
+
+    /**
+     * L1 entry of a value read from L2, expiring with the L2 entry. Unstamped values are left to expire.
+     */
+    private LocalEntry remoteEntry(Object key, Object stored) {
+        long expiresAt = manager.remoteExpiresAt(name, key, stored);
+        if (stored instanceof StampedValue stamped) {
+            long refreshAt = refreshAhead != null
+                    ? refreshAhead.refreshAtOfRemote(key, stamped.value(), stamped.writtenAt())
+                    : Long.MAX_VALUE;
+            return new LocalEntry(stamped.value(), refreshAt, expiresAt);
+        }
+        return new LocalEntry(stored, Long.MAX_VALUE, expiresAt);
+    }
+
+    private void putLocal(Object key, LocalEntry entry, long invalidationsBefore) {
+        if (entry.value() == null) {
+            return;
+        }
+        local.put(key, entry);
+        // An invalidation raced with the read, the value may be outdated
+        if (invalidations.get() != invalidationsBefore) {
+            local.invalidate(key);
+        }
+    }
+
+    /**
+     * L1 value with the {@link System#nanoTime()} at which it should be refreshed and the one at which
+     * its L2 entry expires, {@link Long#MAX_VALUE} for never and for a value written by this node
+     */
+    record LocalEntry(Object value, long refreshAt, long expiresAt) {
+
+        LocalEntry(Object value, long refreshAt) {
+            this(value, refreshAt, Long.MAX_VALUE);
+        }
+    }
+}
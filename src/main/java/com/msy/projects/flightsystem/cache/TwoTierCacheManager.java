@@ -0,0 +1,224 @@
+package com.msy.projects.flightsystem.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Cache manager wrapping every cache of a Redis cache manager in a {@link TwoTierCache}.
+ *
+ * Invalidations are published on a Redis pub/sub channel as tab-separated
+ * "node, cache name, keys..." messages, a message without keys clears the cache.
+ * Messages sent by this node are ignored when they come back.
+ */
+public class TwoTierCacheManager implements CacheManager, MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TwoTierCacheManager.class);
+    private static final String SEPARATOR = "\t";
+
+    private final CacheManager remoteCacheManager;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String channel;
+    private final long maximumSize;
+    private final long maximumWeight;
+    private final RedisCacheWriter.TtlFunction timeToLive;
+    private final RedisLoadLock loadLock;
+    private final RefreshAhead refreshAhead;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * @param remoteCacheManager Cache manager of the shared L2 caches
+     * @param redisTemplate Template used to publish invalidations
+     * @param meterRegistry Registry of the hit and miss counters
+     * @param channel Pub/sub channel of the invalidations
+     * @param maximumSize Maximum number of L1 entries per cache, used when maximumWeight is 0
+     * @param maximumWeight Maximum number of route segments held in L1 per cache, 0 to bound by size
+     * @param timeToLive L1 time to live of a value, should not exceed its L2 time to live. Values read
+     *                   from L2 are kept no longer than their remaining L2 time to live.
+     * @param loadLock Lock coalescing the loads of the same key across nodes, or null to coalesce per node only
+     * @param refreshAhead Refresh-ahead policy of the caches, or null to let entries expire
+     */
+    public TwoTierCacheManager(CacheManager remoteCacheManager, RedisTemplate<String, Object> redisTemplate,
+                               MeterRegistry meterRegistry, String channel, long maximumSize, long maximumWeight,
+                               RedisCacheWriter.TtlFunction timeToLive, RedisLoadLock loadLock,
+                               RefreshAhead refreshAhead) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.channel = channel;
+        this.maximumSize = maximumSize;
+        this.maximumWeight = maximumWeight;
+        this.timeToLive = timeToLive;
+        this.loadLock = loadLock;
+        this.refreshAhead = refreshAhead;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoTierCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remote = remoteCacheManager.getCache(name);
+        if (remote == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, n -> new TwoTierCache(n, remote, buildLocalCache(), this, meterRegistry));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remoteCacheManager.getCacheNames();
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    RedisLoadLock getLoadLock() {
+        return loadLock;
+    }
+
+    RefreshAhead getRefreshAhead() {
+        return refreshAhead;
+    }
+
+    /**
+     * Tell the other nodes to drop their L1 entries
+     *
+     * @param cacheName Name of the cache
+     * @param keys Cache keys, or null for all entries
+     */
+    void publishInvalidation(String cacheName, Collection<?> keys) {
+        StringBuilder message = new StringBuilder(nodeId).append(SEPARATOR).append(cacheName);
+        if (keys != null) {
+            keys.forEach(key -> message.append(SEPARATOR).append(key));
+        }
+        try {
+            redisTemplate.convertAndSend(channel, message.toString());
+        } catch (RuntimeException e) {
+            // The other nodes' entries still expire with the L1 time to live
+            log.warn("Could not publish invalidation of cache {}", cacheName, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (!(body instanceof String text)) {
+            return;
+        }
+        String[] parts = text.split(SEPARATOR);
+        if (parts.length < 2 || parts[0].equals(nodeId)) {
+            return;
+        }
+        TwoTierCache cache = caches.get(parts[1]);
+        if (cache == null) {
+            return;
+        }
+        if (parts.length == 2) {
+            cache.invalidateLocal(null);
+        } else {
+            cache.invalidateLocal(Arrays.stream(parts, 2, parts.length).collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * Time at which a value read from L2 expires there: derived from its stamp, or else from its
+     * remaining time to live in Redis
+     *
+     * @param stored Value as read from L2
+     * @return {@link System#nanoTime()} of the expiry, {@link Long#MAX_VALUE} when unknown
+     */
+    long remoteExpiresAt(String cacheName, Object key, Object stored) {
+        long now = System.nanoTime();
+        if (stored instanceof StampedValue stamped) {
+            long ageMillis = Math.max(0, System.currentTimeMillis() - stamped.writtenAt());
+            return now + timeToLive.getTimeToLive(key, stamped.value()).toNanos()
+                    - TimeUnit.MILLISECONDS.toNanos(ageMillis);
+        }
+        Long remainingMillis;
+        try {
+            remainingMillis = redisTemplate.getExpire(cacheName + "::" + key, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            log.debug("Could not read time to live of {} in cache {}", key, cacheName, e);
+            return Long.MAX_VALUE;
+        }
+        if (remainingMillis == null || remainingMillis == -1) {
+            return Long.MAX_VALUE;
+        }
+        // -2 when the key expired since it was read
+        return now + TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+    }
+
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> buildLocalCache() {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().expireAfter(new Expiry<Object, Object>() {
+            @Override
+            public long expireAfterCreate(Object key, Object value, long currentTime) {
+                return localTimeToLive(key, value, currentTime);
+            }
+
+            @Override
+            public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+                return localTimeToLive(key, value, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        });
+        if (maximumWeight > 0) {
+            builder.maximumWeight(maximumWeight).weigher((key, value) -> weight(value));
+        } else {
+            builder.maximumSize(maximumSize);
+        }
+        return builder.build();
+    }
+
+    /**
+     * L1 time to live of an entry, never past the expiry of the L2 entry it was read from
+     */
+    private long localTimeToLive(Object key, Object value, long currentTime) {
+        long nanos = timeToLive.getTimeToLive(key, unwrap(value)).toNanos();
+        if (value instanceof TwoTierCache.LocalEntry entry && entry.expiresAt() != Long.MAX_VALUE) {
+            return Math.max(0, Math.min(nanos, entry.expiresAt() - currentTime));
+        }
+        return nanos;
+    }
+
+    /**
+     * Weight of a cached value: the number of segments of a route list, 1 for anything else
+     */
+    private static int weight(Object value) {
+        if (!(unwrap(value) instanceof List<?> routes)) {
+            return 1;
+        }
+        int segments = 1;
+        for (Object route : routes) {
+            segments += route instanceof List<?> list ? list.size() : 1;
+        }
+        return segments;
+    }
+
+    private static Object unwrap(Object value) {
+        return value instanceof TwoTierCache.LocalEntry entry ? entry.value() : value;
+    }
+}
@@ -0,0 +1,95 @@
+package com.msy.projects.flightsystem.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Executors of the route engine. With spring.threads.virtual.enabled their workers are virtual
+ * threads, so searches blocking on JDBC or Redis do not hold a platform thread. Pool sizes and
+ * queues still bound the work in flight, and actuator reports each pool as executor.* metrics.
+ */
+@Configuration
+@EnableScheduling
+public class ExecutorConfig {
+
+    private final boolean virtualThreads;
+
+    public ExecutorConfig(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * Bounded executor computing route searches of batch requests in parallel.
+     * When the queue is full the submitting request thread runs the search itself,
+     * so a burst of batches slows down instead of piling up work.
+     * Searches mostly wait on Redis and the database, so on virtual threads the larger
+     * route.batch.virtual-pool-size applies.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor routeSearchExecutor(
+            @Value("${route.batch.pool-size:8}") int poolSize,
+            @Value("${route.batch.virtual-pool-size:64}") int virtualPoolSize,
+            @Value("${route.batch.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        int size = virtualThreads ? virtualPoolSize : poolSize;
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        executor.setQueueCapacity(queueCapacity);
+        configureThreads(executor, "route-search-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    /**
+     * Small executor replaying popular searches into the route cache, separate from the
+     * request and batch threads so a warmup cannot starve live traffic.
+     * Searches of a warmup batch that do not fit into the queue are skipped.
+     * Virtual threads have no priority, there only the pool size limits the warmup.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor routeWarmupExecutor(
+            @Value("${route.warmup.concurrency:2}") int concurrency,
+            @Value("${route.warmup.max-keys:200}") int maxKeys) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(maxKeys);
+        executor.setThreadPriority(Thread.MIN_PRIORITY);
+        configureThreads(executor, "route-warmup-");
+        return executor;
+    }
+
+    /**
+     * Fork/join pool splitting a large default route search across cores, see ParallelRouteEnumerator.
+     * Kept apart from the common pool so parallel streams elsewhere cannot delay searches.
+     * The tasks only read the in-memory timetable, so platform threads are used in both modes.
+     * Only created with route.parallel.enabled, so sequential searches do not keep idle workers around.
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "route.parallel.enabled", havingValue = "true")
+    public ForkJoinPool routeSearchForkJoinPool(@Value("${route.parallel.parallelism:0}") int parallelism) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool.ForkJoinWorkerThreadFactory factory = pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("route-fork-" + thread.getPoolIndex());
+            return thread;
+        };
+        return new ForkJoinPool(threads, factory, null, false);
+    }
+
+    private void configureThreads(ThreadPoolTaskExecutor executor, String namePrefix) {
+        executor.setThreadNamePrefix(namePrefix);
+        if (virtualThreads) {
+            executor.setThreadFactory(Thread.ofVirtual().name(namePrefix, 1).factory());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.msy.projects.flightsystem.config;
+
+import com.msy.projects.flightsystem.model.OperatingDays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copies operating days from the legacy {@code transportation_operating_days} table into the
+ * {@code operating_days_mask} column of {@code transportations}, see also {@code db/operating-days-mask.sql}.
+ *
+ * Only empty masks are filled, so the copy can run on every start while nodes of the previous
+ * version still read and write the legacy table during a rolling deploy. Rows with an invalid day
+ * are logged and skipped.
+ *
+ * The legacy table is kept unless migration.operating-days.drop-legacy-table is set, or
+ * {@code db/operating-days-drop-legacy.sql} is run, once every node is upgraded. Until then its
+ * foreign key blocks deleting older transportations, and a mask cleared to no day gets the legacy
+ * days back on the next start.
+ */
+@Component
+public class OperatingDaysMigration implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(OperatingDaysMigration.class);
+
+    private static final String LEGACY_TABLE = "transportation_operating_days";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean dropLegacyTable;
+
+    @Autowired
+    public OperatingDaysMigration(JdbcTemplate jdbcTemplate,
+                                  @Value("${migration.operating-days.drop-legacy-table:false}") boolean dropLegacyTable) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dropLegacyTable = dropLegacyTable;
+    }
+
+    @Override
+    @Transactional
+    public void run(String... args) throws Exception {
+        if (!legacyTableExists()) {
+            return;
+        }
+
+        Map<Long, Integer> masks = new HashMap<>();
+        jdbcTemplate.query("SELECT transportation_id, day_of_week FROM " + LEGACY_TABLE, rs -> {
+            long transportationId = rs.getLong(1);
+            int dayOfWeek = rs.getInt(2);
+            if (rs.wasNull() || dayOfWeek < 1 || dayOfWeek > 7) {
+                log.warn("Skipping invalid operating day {} of transportation {} in {}",
+                        rs.wasNull() ? null : dayOfWeek, transportationId, LEGACY_TABLE);
+                return;
+            }
+            masks.merge(transportationId, OperatingDays.bit(dayOfWeek), (a, b) -> a | b);
+        });
+
+        List<Object[]> updates = new ArrayList<>(masks.size());
+        masks.forEach((transportationId, mask) -> updates.add(new Object[]{mask, transportationId}));
+
+        int[][] updated = jdbcTemplate.batchUpdate(
+                "UPDATE transportations SET operating_days_mask = ? WHERE id = ? AND operating_days_mask = 0",
+                updates, 500, (ps, row) -> {
+                    ps.setShort(1, ((Integer) row[0]).shortValue());
+                    ps.setLong(2, (Long) row[1]);
+                });
+
+        int migrated = 0;
+        for (int[] batch : updated) {
+            for (int count : batch) {
+                migrated += Math.max(count, 0);
+            }
+        }
+        log.info("Migrated operating days of {} transportations to operating_days_mask", migrated);
+
+        if (dropLegacyTable) {
+            jdbcTemplate.execute("DROP TABLE " + LEGACY_TABLE);
+            log.info("Dropped {}", LEGACY_TABLE);
+        }
+    }
+
+    private boolean legacyTableExists() {
+        Boolean exists = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String name : new String[]{LEGACY_TABLE, LEGACY_TABLE.toUpperCase()}) {
+                try (ResultSet tables = metaData.getTables(null, null, name, new String[]{"TABLE"})) {
+                    if (tables.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+}
@@ -1,41 +1,129 @@
 package com.msy.projects.flightsystem.config;
 
+import com.msy.projects.flightsystem.cache.RedisLoadLock;
+import com.msy.projects.flightsystem.cache.RefreshAhead;
+import com.msy.projects.flightsystem.cache.RouteCacheSerializer;
+import com.msy.projects.flightsystem.cache.RouteCacheTtl;
+import com.msy.projects.flightsystem.cache.TwoTierCacheManager;
+import com.msy.projects.flightsystem.service.CacheService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
+import java.util.Set;
 
 @Configuration
 @EnableCaching
 public class RedisConfig {
 
+    /**
+     * Time to live of cache entries, route cache tag sets expire with the entries they point to
+     */
+    public static final Duration CACHE_TTL = Duration.ofHours(1);
+
+    /**
+     * Route caches, served from an in-process near cache in front of Redis unless cache.near.enabled is false.
+     * Concurrent misses of a key are computed once per node, or once per cluster with cache.load-lock.enabled.
+     * With cache.refresh-ahead.enabled, entries older than the given fraction of their time to live are
+     * recomputed in the background on the warmup executor while the old value is still served.
+     * Searches without any route expire after cache.empty-result-ttl instead of the regular time to live.
+     */
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                     RedisTemplate<String, Object> redisTemplate,
+                                     RouteCacheSerializer cacheValueSerializer,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${cache.near.enabled:true}") boolean nearCacheEnabled,
+                                     @Value("${cache.near.channel:cache:invalidation}") String channel,
+                                     @Value("${cache.near.maximum-size:10000}") long maximumSize,
+                                     @Value("${cache.near.maximum-weight:0}") long maximumWeight,
+                                     @Value("${cache.load-lock.enabled:false}") boolean loadLockEnabled,
+                                     @Value("${cache.load-lock.ttl:10s}") Duration loadLockTtl,
+                                     @Value("${cache.load-lock.maximum-wait:3s}") Duration loadLockMaximumWait,
+                                     @Value("${cache.load-lock.poll-interval:50ms}") Duration loadLockPollInterval,
+                                     @Value("${cache.refresh-ahead.enabled:false}") boolean refreshAheadEnabled,
+                                     @Value("${cache.refresh-ahead.fraction:0.8}") double refreshAheadFraction,
+                                     @Qualifier("routeWarmupExecutor") TaskExecutor refreshExecutor,
+                                     @Value("${cache.empty-result-ttl:5m}") Duration emptyResultTtl) {
+        RouteCacheTtl timeToLive = new RouteCacheTtl(CACHE_TTL, emptyResultTtl);
+        RedisCacheManager redisCacheManager = redisCacheManager(connectionFactory, cacheValueSerializer, timeToLive);
+        if (!nearCacheEnabled) {
+            return redisCacheManager;
+        }
+        RedisLoadLock loadLock = loadLockEnabled
+                ? new RedisLoadLock(redisTemplate, loadLockTtl, loadLockMaximumWait, loadLockPollInterval)
+                : null;
+        RefreshAhead refreshAhead = refreshAheadEnabled
+                ? new RefreshAhead(timeToLive, refreshAheadFraction, refreshExecutor)
+                : null;
+        return new TwoTierCacheManager(redisCacheManager, redisTemplate, meterRegistry,
+                channel, maximumSize, maximumWeight, timeToLive, loadLock, refreshAhead);
+    }
+
+    /**
+     * Subscribes the near cache to the invalidations published by the other nodes
+     */
+    @Bean
+    @ConditionalOnProperty(name = "cache.near.enabled", havingValue = "true", matchIfMissing = true)
+    public RedisMessageListenerContainer nearCacheInvalidationListener(RedisConnectionFactory connectionFactory,
+                                                                       CacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        if (cacheManager instanceof TwoTierCacheManager twoTierCacheManager) {
+            container.addMessageListener(twoTierCacheManager, new ChannelTopic(twoTierCacheManager.getChannel()));
+        }
+        return container;
+    }
+
+    /**
+     * Serializer of cached values, route results are stored in a compact binary format unless
+     * cache.binary-routes.enabled is false. Binary values are read regardless of the flag, so it can
+     * be turned on once every node runs a version able to read them.
+     */
+    @Bean
+    public RouteCacheSerializer cacheValueSerializer(@Value("${cache.binary-routes.enabled:true}") boolean binaryRoutes) {
+        return new RouteCacheSerializer(binaryRoutes);
+    }
+
+    private RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory,
+                                                RouteCacheSerializer cacheValueSerializer,
+                                                RouteCacheTtl timeToLive) {
         RedisCacheConfiguration cacheConfig = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofHours(1))  // Cache entries expire after 1 hour
+                .entryTtl(timeToLive)  // Cache entries expire after 1 hour, empty results sooner
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(cacheValueSerializer))
                 .disableCachingNullValues();
 
+        // Statistics let actuator export hits, misses and evictions when there is no near cache
         return RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(cacheConfig)
+                .initialCacheNames(Set.of(CacheService.ROUTE_CACHE))
+                .enableStatistics()
                 .build();
     }
 
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory,
+                                                       RouteCacheSerializer cacheValueSerializer) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
         template.setKeySerializer(new StringRedisSerializer());
-        template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
+        template.setValueSerializer(cacheValueSerializer);
         return template;
     }
 }
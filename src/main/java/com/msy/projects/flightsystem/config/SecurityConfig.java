@@ -58,6 +58,10 @@ public class SecurityConfig {
                 // Allow access to transportation endpoints for ADMIN role only
                 .requestMatchers("/transportations/**").hasRole("ADMIN")
                 
+                // Health is public, the other actuator endpoints expose metrics for ADMIN only
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
+                
                 // Swagger/OpenAPI endpoints accessible to all authenticated users
                 .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").authenticated()
                 
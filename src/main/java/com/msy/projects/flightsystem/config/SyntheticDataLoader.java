@@ -0,0 +1,134 @@
+package com.msy.projects.flightsystem.config;
+
+import com.msy.projects.flightsystem.model.Location;
+import com.msy.projects.flightsystem.model.Transportation;
+import com.msy.projects.flightsystem.service.CacheService;
+import com.msy.projects.flightsystem.service.RouteGraphIndex;
+import com.msy.projects.flightsystem.service.RouteMaterializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads a large generated network (see {@link SyntheticNetworkGenerator}) into an empty database
+ * when the {@code synthetic} profile is active, e.g. {@code --spring.profiles.active=dev,synthetic}.
+ *
+ * Rows are inserted with batched JDBC statements in one transaction instead of one repository
+ * save per entity. The load is skipped when the generated locations already exist. After commit the
+ * route index, the materialized routes and the route cache are rebuilt from the new network.
+ */
+@Component
+@Profile("synthetic")
+public class SyntheticDataLoader implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataLoader.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RouteGraphIndex routeGraphIndex;
+    private final RouteMaterializer routeMaterializer;
+    private final CacheService cacheService;
+    private final int locations;
+    private final int flights;
+    private final int transferFanOut;
+    private final double hubSkew;
+    private final long seed;
+    private final int batchSize;
+
+    @Autowired
+    public SyntheticDataLoader(JdbcTemplate jdbcTemplate,
+                               RouteGraphIndex routeGraphIndex,
+                               RouteMaterializer routeMaterializer,
+                               CacheService cacheService,
+                               @Value("${synthetic.locations:5000}") int locations,
+                               @Value("${synthetic.flights:176000}") int flights,
+                               @Value("${synthetic.transfer-fan-out:3}") int transferFanOut,
+                               @Value("${synthetic.hub-skew:1.0}") double hubSkew,
+                               @Value("${synthetic.seed:42}") long seed,
+                               @Value("${synthetic.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.routeGraphIndex = routeGraphIndex;
+        this.routeMaterializer = routeMaterializer;
+        this.cacheService = cacheService;
+        this.locations = locations;
+        this.flights = flights;
+        this.transferFanOut = transferFanOut;
+        this.hubSkew = hubSkew;
+        this.seed = seed;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    @Transactional
+    public void run(String... args) throws Exception {
+        Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM locations WHERE location_code LIKE ?",
+                Integer.class, SyntheticNetworkGenerator.CODE_PREFIX + "%");
+        if (existing != null && existing > 0) {
+            log.info("Synthetic network already loaded ({} locations), skipping", existing);
+            return;
+        }
+
+        long start = System.nanoTime();
+        SyntheticNetworkGenerator network =
+                new SyntheticNetworkGenerator(locations, flights, transferFanOut, hubSkew, seed);
+        List<Location> generatedLocations = network.getLocations();
+        List<Transportation> transportations = network.getTransportations();
+
+        jdbcTemplate.batchUpdate("INSERT INTO locations (name, country, city, location_code) VALUES (?, ?, ?, ?)",
+                generatedLocations, batchSize, (ps, location) -> {
+                    ps.setString(1, location.getName());
+                    ps.setString(2, location.getCountry());
+                    ps.setString(3, location.getCity());
+                    ps.setString(4, location.getLocationCode());
+                });
+
+        // Database ids of the generated locations, which differ from the generated ones
+        Map<String, Long> idsByCode = new HashMap<>(generatedLocations.size() * 2);
+        jdbcTemplate.query("SELECT id, location_code FROM locations WHERE location_code LIKE ?",
+                rs -> {
+                    idsByCode.put(rs.getString(2), rs.getLong(1));
+                }, SyntheticNetworkGenerator.CODE_PREFIX + "%");
+
+        jdbcTemplate.batchUpdate("INSERT INTO transportations "
+                        + "(origin_location_id, destination_location_id, transportation_type, operating_days_mask) "
+                        + "VALUES (?, ?, ?, ?)",
+                transportations, batchSize, (ps, transportation) -> {
+                    ps.setLong(1, idsByCode.get(transportation.getOriginLocation().getLocationCode()));
+                    ps.setLong(2, idsByCode.get(transportation.getDestinationLocation().getLocationCode()));
+                    ps.setString(3, transportation.getTransportationType().name());
+                    ps.setShort(4, transportation.getOperatingDaysMask());
+                });
+
+        // Days indexed before the commit, even by a concurrent search, would miss the new network.
+        // The materializer defers its rebuild to after commit as well, behind the eviction.
+        afterCommit(routeGraphIndex::evictAll);
+        routeMaterializer.rebuildAll();
+        afterCommit(cacheService::clearRouteCache);
+        log.info("Loaded synthetic network of {} locations and {} transportations in {} ms",
+                generatedLocations.size(), transportations.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
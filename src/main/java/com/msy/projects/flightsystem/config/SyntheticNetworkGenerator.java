@@ -0,0 +1,173 @@
+package com.msy.projects.flightsystem.config;
+
+import com.msy.projects.flightsystem.model.Location;
+import com.msy.projects.flightsystem.model.OperatingDays;
+import com.msy.projects.flightsystem.model.Transportation;
+import com.msy.projects.flightsystem.model.TransportationType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates a hub and spoke transportation network of a given size from a seed,
+ * the same parameters always give the same network.
+ *
+ * One in five locations is an airport, the others are city locations. Airports are ranked by
+ * popularity with Zipf weights: flight endpoints are drawn by popularity, so with a positive hub
+ * skew a few hubs get most flights while small airports only see a few spokes.
+ * Most flights operate daily, some on weekdays only and the rest on a random set of days.
+ * Every city location has transfers to and from its home airport and further airports up to
+ * the transfer fan-out, operating daily.
+ *
+ * Generated entities carry ids starting at 1 in generation order, locations and transportations
+ * are numbered separately.
+ */
+public class SyntheticNetworkGenerator {
+
+    /**
+     * Prefix of the generated location codes
+     */
+    public static final String CODE_PREFIX = "SYN";
+
+    private static final TransportationType[] TRANSFER_TYPES =
+            {TransportationType.BUS, TransportationType.SUBWAY, TransportationType.UBER};
+    private static final List<Integer> DAILY = List.of(1, 2, 3, 4, 5, 6, 7);
+    private static final List<Integer> WEEKDAYS = List.of(1, 2, 3, 4, 5);
+
+    private final List<Location> airports = new ArrayList<>();
+    private final List<Location> cityLocations = new ArrayList<>();
+    private final List<Location> homeAirports = new ArrayList<>();
+    private final List<Transportation> transportations = new ArrayList<>();
+    private final double[] popularity;
+    private final Random random;
+
+    /**
+     * @param locations Number of locations, at least 10
+     * @param flights Number of flights
+     * @param transferFanOut Airports each city location has transfers to and from, at least 1
+     * @param hubSkew Zipf exponent of the airport popularity, 0 for uniform
+     * @param seed Seed of the generator
+     */
+    public SyntheticNetworkGenerator(int locations, int flights, int transferFanOut, double hubSkew, long seed) {
+        if (locations < 10) {
+            throw new IllegalArgumentException("A synthetic network needs at least 10 locations: " + locations);
+        }
+        if (flights < 0 || transferFanOut < 1 || hubSkew < 0) {
+            throw new IllegalArgumentException("Invalid synthetic network: flights=" + flights
+                    + ", transferFanOut=" + transferFanOut + ", hubSkew=" + hubSkew);
+        }
+        this.random = new Random(seed);
+
+        int airportCount = locations / 5;
+        for (int i = 0; i < locations; i++) {
+            boolean airport = i < airportCount;
+            String code = String.format("%s%06d", CODE_PREFIX, i);
+            int metro = airport ? i : random.nextInt(airportCount);
+            Location location = new Location((long) i + 1, (airport ? "Airport " : "District ") + code,
+                    "Country " + metro % 50, "City " + metro, code);
+            if (airport) {
+                airports.add(location);
+            } else {
+                cityLocations.add(location);
+                homeAirports.add(airports.get(metro));
+            }
+        }
+        this.popularity = cumulativeZipfWeights(airportCount, hubSkew);
+
+        long id = 1;
+        for (int i = 0; i < flights; i++) {
+            Location origin = pickAirport();
+            Location destination = pickAirport();
+            while (destination == origin) {
+                destination = pickAirport();
+            }
+            transportations.add(transportation(id++, origin, destination, TransportationType.FLIGHT, flightDays()));
+        }
+
+        for (int i = 0; i < cityLocations.size(); i++) {
+            Location city = cityLocations.get(i);
+            // Home airport of the city location first, then popular airports further away
+            List<Location> connected = new ArrayList<>();
+            connected.add(homeAirports.get(i));
+            int wanted = Math.min(transferFanOut, airportCount);
+            for (int attempt = 0; connected.size() < wanted && attempt < 4 * transferFanOut; attempt++) {
+                Location airport = pickAirport();
+                if (!connected.contains(airport)) {
+                    connected.add(airport);
+                }
+            }
+            for (int rank = 0; connected.size() < wanted; rank++) {
+                if (!connected.contains(airports.get(rank))) {
+                    connected.add(airports.get(rank));
+                }
+            }
+            for (Location airport : connected) {
+                TransportationType type = TRANSFER_TYPES[random.nextInt(TRANSFER_TYPES.length)];
+                transportations.add(transportation(id++, city, airport, type, DAILY));
+                transportations.add(transportation(id++, airport, city, type, DAILY));
+            }
+        }
+    }
+
+    /**
+     * All generated locations, airports first
+     */
+    public List<Location> getLocations() {
+        List<Location> locations = new ArrayList<>(airports.size() + cityLocations.size());
+        locations.addAll(airports);
+        locations.addAll(cityLocations);
+        return locations;
+    }
+
+    public List<Location> getAirports() {
+        return airports;
+    }
+
+    public List<Location> getCityLocations() {
+        return cityLocations;
+    }
+
+    public List<Transportation> getTransportations() {
+        return transportations;
+    }
+
+    private List<Integer> flightDays() {
+        int kind = random.nextInt(20);
+        if (kind < 12) {
+            return DAILY;
+        }
+        if (kind < 17) {
+            return WEEKDAYS;
+        }
+        return OperatingDays.toList(1 + random.nextInt(OperatingDays.ALL_DAYS));
+    }
+
+    private Location pickAirport() {
+        double r = random.nextDouble() * popularity[popularity.length - 1];
+        int index = Arrays.binarySearch(popularity, r);
+        return airports.get(index < 0 ? Math.min(-index - 1, airports.size() - 1) : index);
+    }
+
+    private static double[] cumulativeZipfWeights(int count, double skew) {
+        double[] weights = new double[count];
+        double sum = 0;
+        for (int rank = 1; rank <= count; rank++) {
+            sum += 1 / Math.pow(rank, skew);
+            weights[rank - 1] = sum;
+        }
+        return weights;
+    }
+
+    private static Transportation transportation(long id, Location origin, Location destination,
+                                                 TransportationType type, List<Integer> days) {
+        Transportation transportation = new Transportation();
+        transportation.setId(id);
+        transportation.setOriginLocation(origin);
+        transportation.setDestinationLocation(destination);
+        transportation.setTransportationType(type);
+        transportation.setOperatingDays(days);
+        return transportation;
+    }
+}
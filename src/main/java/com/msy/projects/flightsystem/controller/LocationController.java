@@ -1,6 +1,8 @@
 package com.msy.projects.flightsystem.controller;
 
+import com.msy.projects.flightsystem.dto.KeysetPageDto;
 import com.msy.projects.flightsystem.dto.LocationDto;
+import com.msy.projects.flightsystem.service.KeysetPaging;
 import com.msy.projects.flightsystem.service.LocationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -14,15 +16,36 @@ import java.util.List;
 public class LocationController {
 
     private final LocationService locationService;
+    private final KeysetPaging keysetPaging;
 
     @Autowired
-    public LocationController(LocationService locationService) {
+    public LocationController(LocationService locationService, KeysetPaging keysetPaging) {
         this.locationService = locationService;
+        this.keysetPaging = keysetPaging;
     }
 
+    /**
+     * All locations in id order, capped at list.max-results. A list that reached the cap carries
+     * the {@value KeysetPaging#TRUNCATED_HEADER} header.
+     */
     @GetMapping
     public ResponseEntity<List<LocationDto>> getAllLocations() {
-        return ResponseEntity.ok(locationService.getAllLocations());
+        List<LocationDto> locations = locationService.getAllLocations();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (keysetPaging.isTruncated(locations)) {
+            response.header(KeysetPaging.TRUNCATED_HEADER, "true");
+        }
+        return response.body(locations);
+    }
+
+    /**
+     * Paginated variant of the list returning a cursor for the next page
+     */
+    @GetMapping(params = "limit")
+    public ResponseEntity<KeysetPageDto<LocationDto>> getLocationPage(
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor) {
+        return ResponseEntity.ok(locationService.getLocationPage(limit, cursor));
     }
 
     @GetMapping("/{id}")
@@ -1,25 +1,67 @@
 package com.msy.projects.flightsystem.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.msy.projects.flightsystem.dto.CompactRoutesDto;
+import com.msy.projects.flightsystem.dto.RouteBatchResultDto;
+import com.msy.projects.flightsystem.dto.RoutePageDto;
+import com.msy.projects.flightsystem.dto.RouteRangeResponseDto;
 import com.msy.projects.flightsystem.dto.RouteRequestDto;
 import com.msy.projects.flightsystem.dto.TransportationDto;
+import com.msy.projects.flightsystem.model.RouteSort;
+import com.msy.projects.flightsystem.model.TransportationType;
+import com.msy.projects.flightsystem.service.RouteBatchService;
+import com.msy.projects.flightsystem.service.RouteCacheWarmer;
+import com.msy.projects.flightsystem.service.RouteRangeService;
 import com.msy.projects.flightsystem.service.RouteService;
+import com.msy.projects.flightsystem.service.RouteStream;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/routes")
 public class RouteController {
 
+    /**
+     * Header of a streamed route page carrying the cursor of the next page
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final int STREAM_FLUSH_INTERVAL = 64;
+    private static final byte[] NEWLINE = "\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SSE_DATA = "data: ".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SSE_END_OF_EVENT = "\n\n".getBytes(StandardCharsets.UTF_8);
+
     private final RouteService routeService;
+    private final RouteRangeService routeRangeService;
+    private final RouteBatchService routeBatchService;
+    private final RouteCacheWarmer routeCacheWarmer;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public RouteController(RouteService routeService) {
+    public RouteController(RouteService routeService,
+                           RouteRangeService routeRangeService,
+                           RouteBatchService routeBatchService,
+                           RouteCacheWarmer routeCacheWarmer,
+                           ObjectMapper objectMapper) {
         this.routeService = routeService;
+        this.routeRangeService = routeRangeService;
+        this.routeBatchService = routeBatchService;
+        this.routeCacheWarmer = routeCacheWarmer;
+        this.objectMapper = objectMapper;
     }
     
 
@@ -27,9 +69,184 @@ public class RouteController {
     public ResponseEntity<List<List<TransportationDto>>> searchRoutes(
             @RequestParam String originCode,
             @RequestParam String destinationCode,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate travelDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate travelDate,
+            @RequestParam(required = false) Integer maxFlights,
+            @RequestParam(required = false) Integer maxSegments) {
+        if (maxFlights == null && maxSegments == null) {
+            routeCacheWarmer.recordSearch(originCode, destinationCode, travelDate);
+            return ResponseEntity.ok(
+                    routeService.findRoutes(originCode, destinationCode, travelDate)
+            );
+        }
+        
+        // Bounded connecting-flight search
+        int flights = flightsBound(maxFlights);
+        return ResponseEntity.ok(
+                routeService.findRoutes(originCode, destinationCode, travelDate, flights, segmentsBound(flights, maxSegments))
+        );
+    }
+
+    /**
+     * Variant of /search selected with format=compact, returning every transportation once by id
+     * and the routes as lists of transportation ids. Streaming requests are left to {@link #streamRoutes}.
+     */
+    @GetMapping(value = "/search", params = {"format=compact", "!limit"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<CompactRoutesDto> searchCompactRoutes(
+            @RequestParam String originCode,
+            @RequestParam String destinationCode,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate travelDate,
+            @RequestParam(required = false) Integer maxFlights,
+            @RequestParam(required = false) Integer maxSegments) {
+        if (maxFlights == null && maxSegments == null) {
+            return ResponseEntity.ok(
+                    routeService.findCompactRoutes(originCode, destinationCode, travelDate)
+            );
+        }
+        
+        int flights = flightsBound(maxFlights);
+        return ResponseEntity.ok(
+                routeService.findCompactRoutes(originCode, destinationCode, travelDate, flights, segmentsBound(flights, maxSegments))
+        );
+    }
+
+    /**
+     * Ranked variant of /search returning at most limit routes and a cursor for the next page.
+     * Streaming requests are left to {@link #streamRoutes}.
+     */
+    @GetMapping(value = "/search", params = "limit", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<RoutePageDto> searchRoutePage(
+            @RequestParam String originCode,
+            @RequestParam String destinationCode,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate travelDate,
+            @RequestParam(required = false) Integer maxFlights,
+            @RequestParam(required = false) Integer maxSegments,
+            @RequestParam int limit,
+            @RequestParam(defaultValue = "SEGMENTS") RouteSort sort,
+            @RequestParam(required = false) List<TransportationType> preferredTypes,
+            @RequestParam(required = false) String cursor) {
+        int flights = flightsBound(maxFlights);
+        return ResponseEntity.ok(
+                routeService.findRoutePage(originCode, destinationCode, travelDate, flights,
+                        segmentsBound(flights, maxSegments), sort, preferredTypes, limit, cursor)
+        );
+    }
+
+    /**
+     * Streaming variant of /search, selected with Accept: application/x-ndjson or text/event-stream.
+     * Every route is written as soon as the search finds it instead of building the whole list first.
+     *
+     * With limit, the ranked page is streamed and its next cursor is returned in the
+     * {@value #NEXT_CURSOR_HEADER} header and in the final SSE event. Streamed routes always carry
+     * their transportations, format=compact only applies to JSON responses.
+     */
+    @GetMapping(value = "/search", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public ResponseEntity<StreamingResponseBody> streamRoutes(
+            @RequestParam String originCode,
+            @RequestParam String destinationCode,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate travelDate,
+            @RequestParam(required = false) Integer maxFlights,
+            @RequestParam(required = false) Integer maxSegments,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "SEGMENTS") RouteSort sort,
+            @RequestParam(required = false) List<TransportationType> preferredTypes,
+            @RequestParam(required = false) String cursor,
+            @RequestHeader(HttpHeaders.ACCEPT) String accept) {
+        // Validation happens here, so errors are still returned with their regular status
+        RouteStream routes;
+        String nextCursor = null;
+        if (limit != null) {
+            int flights = flightsBound(maxFlights);
+            RoutePageDto page = routeService.findRoutePage(originCode, destinationCode, travelDate, flights,
+                    segmentsBound(flights, maxSegments), sort, preferredTypes, limit, cursor);
+            routes = page.getRoutes()::forEach;
+            nextCursor = page.getNextCursor();
+        } else if (maxFlights == null && maxSegments == null) {
+            routes = routeService.streamRoutes(originCode, destinationCode, travelDate);
+        } else {
+            int flights = flightsBound(maxFlights);
+            routes = routeService.streamRoutes(originCode, destinationCode, travelDate, flights,
+                    segmentsBound(flights, maxSegments));
+        }
+        
+        boolean serverSentEvents = MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(type -> type.isCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+                        && !type.isCompatibleWith(MediaType.APPLICATION_NDJSON));
+        MediaType contentType = serverSentEvents ? MediaType.TEXT_EVENT_STREAM : MediaType.APPLICATION_NDJSON;
+        
+        String endCursor = nextCursor;
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(contentType);
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.body(out -> writeRoutes(routes, out, serverSentEvents, endCursor));
+    }
+
+    @GetMapping("/search-range")
+    public ResponseEntity<RouteRangeResponseDto> searchRoutesInRange(
+            @RequestParam String originCode,
+            @RequestParam String destinationCode,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate) {
         return ResponseEntity.ok(
-                routeService.findRoutes(originCode, destinationCode, travelDate)
+                routeRangeService.findRoutesInRange(originCode, destinationCode, fromDate, toDate)
         );
     }
+
+    @PostMapping("/search/batch")
+    public ResponseEntity<Map<Integer, RouteBatchResultDto>> searchRoutesBatch(
+            @RequestBody List<RouteRequestDto> requests) {
+        return ResponseEntity.ok(routeBatchService.findRoutes(requests));
+    }
+
+    private int flightsBound(Integer maxFlights) {
+        return maxFlights != null ? maxFlights : 1;
+    }
+
+    /**
+     * A missing segment bound leaves room for one transfer on each side of the flights
+     */
+    private int segmentsBound(int flights, Integer maxSegments) {
+        return maxSegments != null ? maxSegments : Math.min(flights + 2, RouteService.MAX_SEGMENTS_LIMIT);
+    }
+
+    /**
+     * Write routes one per line (NDJSON) or one per "data:" event (SSE), flushing the first
+     * route right away and then every {@value #STREAM_FLUSH_INTERVAL} routes
+     *
+     * @param nextCursor Cursor of the next route page added to the end event, or null
+     */
+    private void writeRoutes(RouteStream routes, OutputStream out, boolean serverSentEvents,
+                             String nextCursor) throws IOException {
+        int[] count = {0};
+        try {
+            routes.forEach(route -> {
+                try {
+                    if (serverSentEvents) {
+                        out.write(SSE_DATA);
+                    }
+                    out.write(objectMapper.writeValueAsBytes(route));
+                    out.write(serverSentEvents ? SSE_END_OF_EVENT : NEWLINE);
+                    if (++count[0] % STREAM_FLUSH_INTERVAL == 1) {
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        
+        if (serverSentEvents) {
+            Map<String, Object> end = new LinkedHashMap<>();
+            end.put("count", count[0]);
+            if (nextCursor != null) {
+                end.put("nextCursor", nextCursor);
+            }
+            out.write("event: end\ndata: ".getBytes(StandardCharsets.UTF_8));
+            out.write(objectMapper.writeValueAsBytes(end));
+            out.write(SSE_END_OF_EVENT);
+        }
+        out.flush();
+    }
 }
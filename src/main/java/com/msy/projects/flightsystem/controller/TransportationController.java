@@ -1,6 +1,9 @@
 package com.msy.projects.flightsystem.controller;
 
+import com.msy.projects.flightsystem.dto.KeysetPageDto;
 import com.msy.projects.flightsystem.dto.TransportationDto;
+import com.msy.projects.flightsystem.model.TransportationType;
+import com.msy.projects.flightsystem.service.KeysetPaging;
 import com.msy.projects.flightsystem.service.TransportationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -16,15 +19,41 @@ import java.util.List;
 public class TransportationController {
 
     private final TransportationService transportationService;
+    private final KeysetPaging keysetPaging;
 
     @Autowired
-    public TransportationController(TransportationService transportationService) {
+    public TransportationController(TransportationService transportationService, KeysetPaging keysetPaging) {
         this.transportationService = transportationService;
+        this.keysetPaging = keysetPaging;
     }
 
+    /**
+     * All transportations in id order, capped at list.max-results. A list that reached the cap
+     * carries the {@value KeysetPaging#TRUNCATED_HEADER} header.
+     */
     @GetMapping
     public ResponseEntity<List<TransportationDto>> getAllTransportations() {
-        return ResponseEntity.ok(transportationService.getAllTransportations());
+        List<TransportationDto> transportations = transportationService.getAllTransportations();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (keysetPaging.isTruncated(transportations)) {
+            response.header(KeysetPaging.TRUNCATED_HEADER, "true");
+        }
+        return response.body(transportations);
+    }
+
+    /**
+     * Paginated variant of the list, optionally filtered, returning a cursor for the next page
+     */
+    @GetMapping(params = "limit")
+    public ResponseEntity<KeysetPageDto<TransportationDto>> getTransportationPage(
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String originCode,
+            @RequestParam(required = false) String destinationCode,
+            @RequestParam(required = false) TransportationType type,
+            @RequestParam(required = false) Integer weekday) {
+        return ResponseEntity.ok(transportationService.getTransportationPage(
+                originCode, destinationCode, type, weekday, limit, cursor));
     }
 
     @GetMapping("/{id}")
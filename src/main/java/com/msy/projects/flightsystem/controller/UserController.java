@@ -1,7 +1,9 @@
 package com.msy.projects.flightsystem.controller;
 
+import com.msy.projects.flightsystem.dto.KeysetPageDto;
 import com.msy.projects.flightsystem.dto.UserRequestDto;
 import com.msy.projects.flightsystem.dto.UserResponseDto;
+import com.msy.projects.flightsystem.service.KeysetPaging;
 import com.msy.projects.flightsystem.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -18,16 +20,31 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final KeysetPaging keysetPaging;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, KeysetPaging keysetPaging) {
         this.userService = userService;
+        this.keysetPaging = keysetPaging;
     }
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<List<UserResponseDto>> getAllUsers() {
-        return ResponseEntity.ok(userService.getAllUsersDto());
+        List<UserResponseDto> users = userService.getAllUsersDto();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (keysetPaging.isTruncated(users)) {
+            response.header(KeysetPaging.TRUNCATED_HEADER, "true");
+        }
+        return response.body(users);
+    }
+
+    @GetMapping(params = "limit")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<KeysetPageDto<UserResponseDto>> getUserPage(
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor) {
+        return ResponseEntity.ok(userService.getUserPage(limit, cursor));
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,20 @@
+package com.msy.projects.flightsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routes in the compact response format: every transportation once by id,
+ * routes as lists of transportation ids
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompactRoutesDto {
+    private Map<Long, TransportationDto> transportations;
+    private List<List<Long>> routes;
+}
@@ -0,0 +1,18 @@
+package com.msy.projects.flightsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a list endpoint ordered by id, nextCursor is null on the last page
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeysetPageDto<T> {
+    private List<T> items;
+    private String nextCursor;
+}
@@ -0,0 +1,29 @@
+package com.msy.projects.flightsystem.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of one entry of a batch route search: either the routes or an error
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RouteBatchResultDto {
+    private int status;
+    private List<List<TransportationDto>> routes;
+    private String error;
+
+    public static RouteBatchResultDto ok(List<List<TransportationDto>> routes) {
+        return new RouteBatchResultDto(200, routes, null);
+    }
+
+    public static RouteBatchResultDto error(int status, String error) {
+        return new RouteBatchResultDto(status, null, error);
+    }
+}
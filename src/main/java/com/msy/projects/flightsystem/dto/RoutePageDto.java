@@ -0,0 +1,18 @@
+package com.msy.projects.flightsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of ranked routes, nextCursor is null on the last page
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoutePageDto {
+    private List<List<TransportationDto>> routes;
+    private String nextCursor;
+}
@@ -0,0 +1,27 @@
+package com.msy.projects.flightsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routes for every date of a range, grouped by day of week.
+ * Routes only depend on the weekday, so each weekday's routes are listed once
+ * and {@code datesByDay} tells which dates of the range they apply to.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteRangeResponseDto {
+    private String originCode;
+    private String destinationCode;
+    private LocalDate fromDate;
+    private LocalDate toDate;
+    private Map<DayOfWeek, List<LocalDate>> datesByDay;
+    private Map<DayOfWeek, List<List<TransportationDto>>> routesByDay;
+}
@@ -1,5 +1,6 @@
 package com.msy.projects.flightsystem.dto;
 
+import com.msy.projects.flightsystem.model.OperatingDays;
 import com.msy.projects.flightsystem.model.TransportationType;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -18,4 +19,14 @@ public class TransportationDto {
     private String destinationLocationCode;
     private TransportationType transportationType;
     private List<Integer> operatingDays;
+
+    /**
+     * Constructor expression target of the projection queries, decoding the stored days mask
+     */
+    public TransportationDto(Long id, Long originLocationId, String originLocationCode,
+                             Long destinationLocationId, String destinationLocationCode,
+                             TransportationType transportationType, short operatingDaysMask) {
+        this(id, originLocationId, originLocationCode, destinationLocationId, destinationLocationCode,
+                transportationType, OperatingDays.toList(operatingDaysMask));
+    }
 }
@@ -0,0 +1,60 @@
+package com.msy.projects.flightsystem.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Helpers for the 7-bit weekday mask stored in {@link Transportation#getOperatingDaysMask()}.
+ * Bit 0 is Monday (day 1) and bit 6 is Sunday (day 7), matching {@link java.time.DayOfWeek#getValue()}.
+ */
+public final class OperatingDays {
+
+    public static final int ALL_DAYS = 0b111_1111;
+
+    private OperatingDays() {
+    }
+
+    /**
+     * Get the mask bit of a day of week
+     *
+     * @param dayOfWeek Day of week (1-7, where 1 is Monday)
+     * @return Mask with only that day set
+     */
+    public static int bit(int dayOfWeek) {
+        if (dayOfWeek < 1 || dayOfWeek > 7) {
+            throw new IllegalArgumentException("Day of week must be between 1 and 7: " + dayOfWeek);
+        }
+        return 1 << (dayOfWeek - 1);
+    }
+
+    public static boolean includes(int mask, int dayOfWeek) {
+        return (mask & bit(dayOfWeek)) != 0;
+    }
+
+    /**
+     * Convert a list of days of week to a mask, ignoring duplicates
+     */
+    public static short toMask(Collection<Integer> daysOfWeek) {
+        int mask = 0;
+        if (daysOfWeek != null) {
+            for (Integer day : daysOfWeek) {
+                mask |= bit(day);
+            }
+        }
+        return (short) mask;
+    }
+
+    /**
+     * Convert a mask to an ascending list of days of week
+     */
+    public static List<Integer> toList(int mask) {
+        List<Integer> days = new ArrayList<>(Integer.bitCount(mask & ALL_DAYS));
+        for (int day = 1; day <= 7; day++) {
+            if ((mask & (1 << (day - 1))) != 0) {
+                days.add(day);
+            }
+        }
+        return days;
+    }
+}
@@ -0,0 +1,13 @@
+package com.msy.projects.flightsystem.model;
+
+/**
+ * Ordering of paginated route search results. Ties are always broken by fewest segments.
+ */
+public enum RouteSort {
+    /** Fewest segments first */
+    SEGMENTS,
+    /** Routes made of flights only first */
+    FLIGHTS_ONLY,
+    /** Routes with the fewest transfers outside the preferred transportation types first */
+    PREFERRED_TYPES
+}
@@ -6,24 +6,34 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.Table;
 import jakarta.persistence.Column;
-import jakarta.persistence.ElementCollection;
-import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.EnumType;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.List;
 
 @Entity
 @Table(name = "transportations")
+@NamedEntityGraph(name = Transportation.WITH_LOCATIONS, attributeNodes = {
+        @NamedAttributeNode("originLocation"),
+        @NamedAttributeNode("destinationLocation")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Transportation {
+
+    /**
+     * Entity graph loading both locations in the same select as the transportations
+     */
+    public static final String WITH_LOCATIONS = "Transportation.withLocations";
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -41,9 +51,22 @@ public class Transportation {
     @Column(name = "transportation_type", nullable = false)
     private TransportationType transportationType;
     
-    @ElementCollection
-    @CollectionTable(name = "transportation_operating_days", 
-                    joinColumns = @JoinColumn(name = "transportation_id"))
-    @Column(name = "day_of_week")
-    private List<Integer> operatingDays; // 1=Monday, 2=Tuesday, ..., 7=Sunday
+    @ColumnDefault("0")
+    @Column(name = "operating_days_mask", nullable = false)
+    private short operatingDaysMask; // bit 0=Monday, bit 1=Tuesday, ..., bit 6=Sunday
+
+    /**
+     * Operating days decoded from the mask (1=Monday, 2=Tuesday, ..., 7=Sunday)
+     */
+    public List<Integer> getOperatingDays() {
+        return OperatingDays.toList(operatingDaysMask);
+    }
+
+    public void setOperatingDays(List<Integer> operatingDays) {
+        this.operatingDaysMask = OperatingDays.toMask(operatingDays);
+    }
+
+    public boolean operatesOn(int dayOfWeek) {
+        return OperatingDays.includes(operatingDaysMask, dayOfWeek);
+    }
 }
@@ -1,13 +1,32 @@
 package com.msy.projects.flightsystem.repository;
 
+import com.msy.projects.flightsystem.dto.LocationDto;
 import com.msy.projects.flightsystem.model.Location;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface LocationRepository extends JpaRepository<Location, Long> {
     Optional<Location> findByLocationCode(String locationCode);
     boolean existsByLocationCode(String locationCode);
+    
+    /**
+     * Locations in id order read straight into DTOs, without managed entities
+     */
+    @Query("SELECT new com.msy.projects.flightsystem.dto.LocationDto(l.id, l.name, l.country, l.city, l.locationCode) " +
+           "FROM Location l ORDER BY l.id")
+    List<LocationDto> findAllDtos(Limit limit);
+    
+    /**
+     * Page of {@link #findAllDtos(Limit)} starting after an id
+     */
+    @Query("SELECT new com.msy.projects.flightsystem.dto.LocationDto(l.id, l.name, l.country, l.city, l.locationCode) " +
+           "FROM Location l WHERE l.id > :afterId ORDER BY l.id")
+    List<LocationDto> findDtoPage(@Param("afterId") long afterId, Limit limit);
 }
@@ -1,7 +1,12 @@
 package com.msy.projects.flightsystem.repository;
 
+import com.msy.projects.flightsystem.dto.TransportationDto;
 import com.msy.projects.flightsystem.model.Location;
+import com.msy.projects.flightsystem.model.OperatingDays;
 import com.msy.projects.flightsystem.model.Transportation;
+import com.msy.projects.flightsystem.model.TransportationType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -9,19 +14,74 @@ import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
+/**
+ * Finders returning lists fetch the origin and destination locations with a join
+ * ({@link Transportation#WITH_LOCATIONS}), so loading a timetable takes one select
+ * however many locations it touches instead of one more per distinct location.
+ */
 @Repository
 public interface TransportationRepository extends JpaRepository<Transportation, Long> {
+    @Override
+    @EntityGraph(Transportation.WITH_LOCATIONS)
+    List<Transportation> findAll();
+    
+    /**
+     * Transportations in id order read straight into DTOs, with the location ids and codes from a
+     * join and without managed entities
+     */
+    @Query("SELECT new com.msy.projects.flightsystem.dto.TransportationDto(t.id, o.id, o.locationCode, " +
+           "d.id, d.locationCode, t.transportationType, t.operatingDaysMask) " +
+           "FROM Transportation t JOIN t.originLocation o JOIN t.destinationLocation d ORDER BY t.id")
+    List<TransportationDto> findAllDtos(Limit limit);
+    
+    /**
+     * Page of {@link #findAllDtos(Limit)} starting after an id, filters are ignored when null
+     * 
+     * @param dayBits Mask of the days of week of which transportations must operate on at least one,
+     *                or null to also keep transportations without any operating day
+     */
+    @Query("SELECT new com.msy.projects.flightsystem.dto.TransportationDto(t.id, o.id, o.locationCode, " +
+           "d.id, d.locationCode, t.transportationType, t.operatingDaysMask) " +
+           "FROM Transportation t JOIN t.originLocation o JOIN t.destinationLocation d " +
+           "WHERE t.id > :afterId " +
+           "AND (:originCode IS NULL OR o.locationCode = :originCode) " +
+           "AND (:destinationCode IS NULL OR d.locationCode = :destinationCode) " +
+           "AND (:type IS NULL OR t.transportationType = :type) " +
+           "AND (:dayBits IS NULL OR bitand(t.operatingDaysMask, cast(:dayBits as Integer)) <> 0) " +
+           "ORDER BY t.id")
+    List<TransportationDto> findDtoPage(@Param("afterId") long afterId,
+                                        @Param("originCode") String originCode,
+                                        @Param("destinationCode") String destinationCode,
+                                        @Param("type") TransportationType type,
+                                        @Param("dayBits") Integer dayBits,
+                                        Limit limit);
+    
+    @EntityGraph(Transportation.WITH_LOCATIONS)
     List<Transportation> findByOriginLocation(Location originLocation);
     
+    @EntityGraph(Transportation.WITH_LOCATIONS)
     List<Transportation> findByOriginLocationAndDestinationLocation(
             Location originLocation, Location destinationLocation);
     
-    @Query("SELECT t FROM Transportation t WHERE :dayOfWeek MEMBER OF t.operatingDays")
-    List<Transportation> findByOperatingDay(@Param("dayOfWeek") Integer dayOfWeek);
+    @EntityGraph(Transportation.WITH_LOCATIONS)
+    @Query("SELECT t FROM Transportation t WHERE bitand(t.operatingDaysMask, cast(:dayBit as Integer)) <> 0")
+    List<Transportation> findByOperatingDayBit(@Param("dayBit") int dayBit);
     
-    @Query("SELECT t FROM Transportation t WHERE :dayOfWeek MEMBER OF t.operatingDays " +
+    @EntityGraph(Transportation.WITH_LOCATIONS)
+    @Query("SELECT t FROM Transportation t WHERE bitand(t.operatingDaysMask, cast(:dayBit as Integer)) <> 0 " +
            "AND t.originLocation = :originLocation")
-    List<Transportation> findByOriginLocationAndOperatingDay(
+    List<Transportation> findByOriginLocationAndOperatingDayBit(
             @Param("originLocation") Location originLocation, 
-            @Param("dayOfWeek") Integer dayOfWeek);
+            @Param("dayBit") int dayBit);
+    
+    /**
+     * Find transportations operating on a day of week (1=Monday, ..., 7=Sunday)
+     */
+    default List<Transportation> findByOperatingDay(Integer dayOfWeek) {
+        return findByOperatingDayBit(OperatingDays.bit(dayOfWeek));
+    }
+    
+    default List<Transportation> findByOriginLocationAndOperatingDay(Location originLocation, Integer dayOfWeek) {
+        return findByOriginLocationAndOperatingDayBit(originLocation, OperatingDays.bit(dayOfWeek));
+    }
 }
@@ -1,12 +1,16 @@
 package com.msy.projects.flightsystem.repository;
 
 import com.msy.projects.flightsystem.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
+    
+    List<User> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
 }
@@ -0,0 +1,181 @@
+package com.msy.projects.flightsystem.service;
+
+import com.msy.projects.flightsystem.model.Transportation;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Bounded search for connecting itineraries over one day of the {@link RouteGraphIndex}.
+ *
+ * A route is an optional transfer (non-FLIGHT) before the first flight, one to maxFlights
+ * consecutive flights, and an optional transfer after the last flight, with at most
+ * maxSegments segments in total. A connecting flight may not land at a location the flight
+ * chain already visited.
+ *
+ * A backward breadth-first pass from the destination computes the minimum number of flights
+ * still needed from each airport, and the forward depth-first enumeration prunes every branch
+ * that cannot reach the destination within the remaining flight and segment budget.
+ * With maxFlights = 1 and maxSegments = 3 this yields the same routes as
+ * {@link RouteService#findRoutes(String, String, java.time.LocalDate)}.
+ */
+class BoundedRouteSearch {
+
+    private final RouteGraphIndex.DayIndex timetable;
+    private final Long originId;
+    private final Long destinationId;
+    private final int maxFlights;
+    private final int maxSegments;
+
+    private final Map<Long, Integer> flightsToDestination = new HashMap<>();
+    private final Deque<Transportation> path = new ArrayDeque<>();
+    private final Set<Long> visitedByFlights = new HashSet<>();
+    private boolean stopped;
+    private int flightsScanned;
+
+    BoundedRouteSearch(RouteGraphIndex.DayIndex timetable, Long originId, Long destinationId,
+                       int maxFlights, int maxSegments) {
+        this.timetable = timetable;
+        this.originId = originId;
+        this.destinationId = destinationId;
+        this.maxFlights = maxFlights;
+        this.maxSegments = maxSegments;
+    }
+
+    /**
+     * Enumerate all routes, passing each one to the sink as a new list of segments
+     *
+     * @param sink Receiver of the found routes, returning false stops the enumeration
+     */
+    void search(Predicate<List<Transportation>> sink) {
+        computeFlightsToDestination();
+
+        // Routes starting with a flight from the origin
+        extendWithFlights(originId, sink);
+
+        // Routes starting with a transfer to the first flight's airport
+        for (Transportation transfer : timetable.getTransfersFrom(originId)) {
+            if (stopped) {
+                return;
+            }
+            path.addLast(transfer);
+            extendWithFlights(transfer.getDestinationLocation().getId(), sink);
+            path.removeLast();
+        }
+    }
+
+    /**
+     * Number of candidate flights looked at by {@link #search}
+     */
+    int getFlightsScanned() {
+        return flightsScanned;
+    }
+
+    private void extendWithFlights(Long departureId, Predicate<List<Transportation>> sink) {
+        int flightsUsed = visitedByFlights.isEmpty() ? 0 : visitedByFlights.size() - 1;
+        if (!canStillArrive(departureId, flightsUsed)) {
+            return;
+        }
+
+        boolean firstFlight = flightsUsed == 0;
+        if (firstFlight) {
+            visitedByFlights.add(departureId);
+        }
+
+        for (Transportation flight : timetable.getFlightsFrom(departureId)) {
+            Long arrivalId = flight.getDestinationLocation().getId();
+            if (stopped) {
+                break;
+            }
+            flightsScanned++;
+            if (visitedByFlights.contains(arrivalId)) {
+                continue;
+            }
+
+            path.addLast(flight);
+            visitedByFlights.add(arrivalId);
+
+            // End with the flight itself
+            if (arrivalId.equals(destinationId)) {
+                emit(sink);
+            }
+
+            // End with an after-flight transfer
+            if (path.size() < maxSegments) {
+                for (Transportation transfer : timetable.getTransfers(arrivalId, destinationId)) {
+                    if (stopped) {
+                        break;
+                    }
+                    path.addLast(transfer);
+                    emit(sink);
+                    path.removeLast();
+                }
+            }
+
+            // Continue with a connecting flight
+            if (!stopped && flightsUsed + 1 < maxFlights && path.size() < maxSegments) {
+                extendWithFlights(arrivalId, sink);
+            }
+
+            visitedByFlights.remove(arrivalId);
+            path.removeLast();
+        }
+
+        if (firstFlight) {
+            visitedByFlights.remove(departureId);
+        }
+    }
+
+    private void emit(Predicate<List<Transportation>> sink) {
+        if (!sink.test(new ArrayList<>(path))) {
+            stopped = true;
+        }
+    }
+
+    /**
+     * Whether a flight departing from the location can still complete a route within the bounds
+     */
+    private boolean canStillArrive(Long departureId, int flightsUsed) {
+        Integer flightsNeeded = flightsToDestination.get(departureId);
+        return flightsNeeded != null
+                && flightsUsed + flightsNeeded <= maxFlights
+                && path.size() + flightsNeeded <= maxSegments;
+    }
+
+    /**
+     * Breadth-first search backwards from the destination over flights, recording for every
+     * airport the minimum number of flights needed to finish a route from there
+     */
+    private void computeFlightsToDestination() {
+        Deque<Long> queue = new ArrayDeque<>();
+
+        // Airports with a final flight into the destination or into one of its feeder transfers
+        Set<Long> finalArrivals = new LinkedHashSet<>();
+        finalArrivals.add(destinationId);
+        for (Transportation transfer : timetable.getTransfersTo(destinationId)) {
+            finalArrivals.add(transfer.getOriginLocation().getId());
+        }
+        for (Long arrivalId : finalArrivals) {
+            for (Transportation flight : timetable.getFlightsTo(arrivalId)) {
+                Long departureId = flight.getOriginLocation().getId();
+                if (flightsToDestination.putIfAbsent(departureId, 1) == null) {
+                    queue.add(departureId);
+                }
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            Long arrivalId = queue.poll();
+            int flightsNeeded = flightsToDestination.get(arrivalId) + 1;
+            if (flightsNeeded > maxFlights) {
+                continue;
+            }
+            for (Transportation flight : timetable.getFlightsTo(arrivalId)) {
+                Long departureId = flight.getOriginLocation().getId();
+                if (flightsToDestination.putIfAbsent(departureId, flightsNeeded) == null) {
+                    queue.add(departureId);
+                }
+            }
+        }
+    }
+}
@@ -1,35 +1,249 @@
 package com.msy.projects.flightsystem.service;
 
+import com.msy.projects.flightsystem.cache.StampedValue;
+import com.msy.projects.flightsystem.cache.TwoTierCache;
+import com.msy.projects.flightsystem.config.RedisConfig;
+import com.msy.projects.flightsystem.dto.TransportationDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.stereotype.Service;
 
+import java.util.*;
+import java.util.stream.Collectors;
+
 @Service
 public class CacheService {
 
+    private static final Logger log = LoggerFactory.getLogger(CacheService.class);
+
+    public static final String ROUTE_CACHE = "routeCache";
+
+    /**
+     * Prefix of the Redis sets holding the route cache keys that depend on a location,
+     * a transportation or an origin/destination on a weekday
+     */
+    public static final String ROUTE_TAG_PREFIX = "routeTags::";
+
     private final CacheManager cacheManager;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public CacheService(CacheManager cacheManager) {
+    public CacheService(CacheManager cacheManager, RedisTemplate<String, Object> redisTemplate,
+                        ApplicationEventPublisher eventPublisher) {
         this.cacheManager = cacheManager;
+        this.redisTemplate = redisTemplate;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
-     * Clear all route caches when transportation data changes
+     * Clear all route caches when transportation data changes,
+     * the popular searches are then warmed up again by {@link RouteCacheWarmer}
      */
     public void clearRouteCache() {
-        cacheManager.getCache("routeCache").clear();
+        cacheManager.getCache(ROUTE_CACHE).clear();
+        eventPublisher.publishEvent(new RouteCacheClearedEvent());
     }
     
     /**
-     * Clear specific route cache entries
+     * Clear the route cache entries of the searches between two locations, on every weekday and
+     * in every format, using their origin and destination tags
+     * 
+     * @param originId Id of the origin location
+     * @param destinationId Id of the destination location
+     */
+    public void clearSpecificRouteCache(Long originId, Long destinationId) {
+        List<String> originTags = new ArrayList<>(7);
+        List<String> destinationTags = new ArrayList<>(7);
+        for (int dayOfWeek = 1; dayOfWeek <= 7; dayOfWeek++) {
+            originTags.add(originTag(dayOfWeek, originId));
+            destinationTags.add(destinationTag(dayOfWeek, destinationId));
+        }
+        evictTaggedRoutes(originTags, destinationTags);
+    }
+
+    /**
+     * Get many route cache entries, reading the entries missing from this node's L1 with a single
+     * Redis round-trip. The Redis template shares the route cache's value serializer. When Redis
+     * fails, the entries it would have returned are reported as missing and get computed instead.
+     * 
+     * @param keys Route cache keys, see {@link RouteService#routeCacheKey}
+     * @return Cached routes by key, keys without an entry are left out
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, List<List<TransportationDto>>> getCachedRoutes(List<String> keys) {
+        Map<String, List<List<TransportationDto>>> cachedRoutes = new HashMap<>();
+        if (keys.isEmpty()) {
+            return cachedRoutes;
+        }
+
+        List<String> remoteKeys = keys;
+        if (cacheManager.getCache(ROUTE_CACHE) instanceof TwoTierCache twoTierCache) {
+            twoTierCache.getAllLocal(keys).forEach((key, value) -> {
+                if (value instanceof List<?> routes) {
+                    cachedRoutes.put((String) key, (List<List<TransportationDto>>) routes);
+                }
+            });
+            remoteKeys = keys.stream().filter(key -> !cachedRoutes.containsKey(key)).toList();
+            if (remoteKeys.isEmpty()) {
+                return cachedRoutes;
+            }
+        }
+
+        // Redis keys carry the cache name prefix added by RedisCacheManager
+        List<Object> values;
+        try {
+            values = redisTemplate.opsForValue().multiGet(prefixed(ROUTE_CACHE + "::", remoteKeys));
+        } catch (RuntimeException e) {
+            log.warn("Could not read {} route cache entries from Redis, computing them instead", remoteKeys.size(), e);
+            return cachedRoutes;
+        }
+        if (values == null) {
+            return cachedRoutes;
+        }
+        
+        for (int i = 0; i < remoteKeys.size(); i++) {
+            if (StampedValue.unwrap(values.get(i)) instanceof List<?> routes) {
+                cachedRoutes.put(remoteKeys.get(i), (List<List<TransportationDto>>) routes);
+            }
+        }
+        return cachedRoutes;
+    }
+
+    /**
+     * Tag a route cache entry with everything it depends on, so it can be evicted selectively.
+     * The tags are written in one pipelined round-trip and expire with the entry.
      * 
-     * @param originCode Origin location code
-     * @param destinationCode Destination location code
+     * @param key Route cache key
+     * @param dayOfWeek Day of week (1-7) of the travel date
+     * @param originId Id of the searched origin location
+     * @param destinationId Id of the searched destination location
+     * @param multiFlight Whether the routes may contain connecting flights
+     * @param routes Cached routes
      */
-    public void clearSpecificRouteCache(String originCode, String destinationCode) {
-        // Since we can't easily clear by pattern in Spring Cache abstraction,
-        // we'll clear the entire cache in this implementation
-        clearRouteCache();
+    public void tagRoutes(String key, int dayOfWeek, Long originId, Long destinationId, boolean multiFlight,
+                          List<List<TransportationDto>> routes) {
+        List<TransportationDto> segments = new ArrayList<>();
+        routes.forEach(segments::addAll);
+        tagRouteSegments(key, dayOfWeek, originId, destinationId, multiFlight, segments);
+    }
+
+    /**
+     * Tag a route cache entry like {@link #tagRoutes}, given the transportations used by its routes
+     * 
+     * @param key Route cache key
+     * @param dayOfWeek Day of week (1-7) of the travel date
+     * @param originId Id of the searched origin location
+     * @param destinationId Id of the searched destination location
+     * @param multiFlight Whether the routes may contain connecting flights
+     * @param transportations Transportations of the cached routes
+     */
+    public void tagRouteSegments(String key, int dayOfWeek, Long originId, Long destinationId, boolean multiFlight,
+                                 Collection<TransportationDto> transportations) {
+        Set<String> tags = new LinkedHashSet<>();
+        tags.add(originTag(dayOfWeek, originId));
+        tags.add(destinationTag(dayOfWeek, destinationId));
+        tags.add(locationTag(originId));
+        tags.add(locationTag(destinationId));
+        if (multiFlight) {
+            tags.add(multiFlightTag(dayOfWeek));
+        }
+        for (TransportationDto transportation : transportations) {
+            tags.add(transportationTag(transportation.getId()));
+            tags.add(locationTag(transportation.getOriginLocationId()));
+            tags.add(locationTag(transportation.getDestinationLocationId()));
+        }
+        
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> stringOperations = (RedisOperations<String, Object>) operations;
+                for (String tag : tags) {
+                    stringOperations.opsForSet().add(ROUTE_TAG_PREFIX + tag, key);
+                    stringOperations.expire(ROUTE_TAG_PREFIX + tag, RedisConfig.CACHE_TTL);
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Evict the route cache entries carrying any of the tags, together with the tags
+     * 
+     * @param tags Route cache tags
+     */
+    public void evictTaggedRoutes(Collection<String> tags) {
+        if (tags.isEmpty()) {
+            return;
+        }
+        List<String> tagKeys = prefixed(ROUTE_TAG_PREFIX, tags);
+        deleteRouteEntries(redisTemplate.opsForSet().union(tagKeys));
+        redisTemplate.delete(tagKeys);
+    }
+
+    /**
+     * Evict the route cache entries carrying one of the origin tags and one of the destination tags
+     * 
+     * @param originTags Origin tags, see {@link #originTag}
+     * @param destinationTags Destination tags, see {@link #destinationTag}
+     */
+    public void evictTaggedRoutes(Collection<String> originTags, Collection<String> destinationTags) {
+        if (originTags.isEmpty() || destinationTags.isEmpty()) {
+            return;
+        }
+        Set<Object> keys = redisTemplate.opsForSet().union(prefixed(ROUTE_TAG_PREFIX, originTags));
+        Set<Object> destinationKeys = redisTemplate.opsForSet().union(prefixed(ROUTE_TAG_PREFIX, destinationTags));
+        if (keys == null || destinationKeys == null) {
+            return;
+        }
+        keys.retainAll(destinationKeys);
+        deleteRouteEntries(keys);
+    }
+
+    private void deleteRouteEntries(Set<Object> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return;
+        }
+        redisTemplate.delete(prefixed(ROUTE_CACHE + "::", keys));
+        
+        // Entries were deleted from Redis directly, drop the near cache copies on every node
+        if (cacheManager.getCache(ROUTE_CACHE) instanceof TwoTierCache nearCache) {
+            nearCache.evictLocal(keys);
+        }
+        eventPublisher.publishEvent(new RouteCacheEvictedEvent(
+                keys.stream().map(String::valueOf).collect(Collectors.toSet())));
+    }
+
+    private static List<String> prefixed(String prefix, Collection<?> keys) {
+        return keys.stream()
+                .map(key -> prefix + key)
+                .collect(Collectors.toList());
+    }
+
+    public static String locationTag(Long locationId) {
+        return "loc:" + locationId;
+    }
+
+    public static String transportationTag(Long transportationId) {
+        return "t:" + transportationId;
+    }
+
+    public static String originTag(int dayOfWeek, Long locationId) {
+        return "origin:" + dayOfWeek + ":" + locationId;
+    }
+
+    public static String destinationTag(int dayOfWeek, Long locationId) {
+        return "dest:" + dayOfWeek + ":" + locationId;
+    }
+
+    public static String multiFlightTag(int dayOfWeek) {
+        return "multi:" + dayOfWeek;
     }
 }
@@ -0,0 +1,98 @@
+package com.msy.projects.flightsystem.service;
+
+import com.msy.projects.flightsystem.dto.KeysetPageDto;
+import com.msy.projects.flightsystem.exception.BadRequestException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Page sizes and cursors of the paginated list endpoints, and the cap of their unpaginated variants.
+ *
+ * Pages are read by keyset ({@code WHERE id > :afterId ORDER BY id}) with one extra row telling
+ * whether another page follows, so a deep page costs the same as the first. The cursor carries the
+ * id of the last row of its page.
+ */
+@Component
+public class KeysetPaging {
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    /**
+     * Response header set on an unpaginated list that reached its cap
+     */
+    public static final String TRUNCATED_HEADER = "X-Truncated";
+
+    private static final String CURSOR_PREFIX = "id:";
+
+    private final int maxResults;
+
+    @Autowired
+    public KeysetPaging(@Value("${list.max-results:5000}") int maxResults) {
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * Limit of the unpaginated list endpoints
+     */
+    public Limit maxResults() {
+        return Limit.of(maxResults);
+    }
+
+    /**
+     * Whether an unpaginated list reached list.max-results, so rows past the cap may be missing
+     * and the list should be read with {@code limit} and {@code cursor} instead
+     */
+    public boolean isTruncated(List<?> rows) {
+        return rows.size() >= maxResults;
+    }
+
+    /**
+     * Limit of a page query, one row more than the page size
+     *
+     * @param limit Page size (1 to {@value #MAX_PAGE_SIZE})
+     */
+    public Limit pageLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return Limit.of(limit + 1);
+    }
+
+    /**
+     * Id after which the page of a cursor starts, 0 for the first page
+     */
+    public long afterId(String cursor) {
+        if (cursor == null) {
+            return 0;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(CURSOR_PREFIX)) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            return Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Page of the rows read with {@link #pageLimit(int)}, dropping the extra row
+     */
+    public <T> KeysetPageDto<T> page(List<T> rows, int limit, ToLongFunction<T> id) {
+        if (rows.size() <= limit) {
+            return new KeysetPageDto<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        String cursor = CURSOR_PREFIX + id.applyAsLong(items.get(limit - 1));
+        return new KeysetPageDto<>(items,
+                Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -1,37 +1,67 @@
 package com.msy.projects.flightsystem.service;
 
+import com.msy.projects.flightsystem.dto.KeysetPageDto;
 import com.msy.projects.flightsystem.dto.LocationDto;
 import com.msy.projects.flightsystem.model.Location;
+import com.msy.projects.flightsystem.model.OperatingDays;
 import com.msy.projects.flightsystem.repository.LocationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class LocationService {
 
     private final LocationRepository locationRepository;
+    private final RouteCacheInvalidator routeCacheInvalidator;
+    private final RouteGraphIndex routeGraphIndex;
+    private final RouteMaterializer routeMaterializer;
+    private final KeysetPaging keysetPaging;
 
     @Autowired
-    public LocationService(LocationRepository locationRepository) {
+    public LocationService(LocationRepository locationRepository,
+                           RouteCacheInvalidator routeCacheInvalidator,
+                           RouteGraphIndex routeGraphIndex,
+                           RouteMaterializer routeMaterializer,
+                           KeysetPaging keysetPaging) {
         this.locationRepository = locationRepository;
+        this.routeCacheInvalidator = routeCacheInvalidator;
+        this.routeGraphIndex = routeGraphIndex;
+        this.routeMaterializer = routeMaterializer;
+        this.keysetPaging = keysetPaging;
     }
 
+    /**
+     * Get the locations in id order, at most list.max-results of them
+     */
+    @Transactional(readOnly = true)
     public List<LocationDto> getAllLocations() {
-        return locationRepository.findAll().stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+        return locationRepository.findAllDtos(keysetPaging.maxResults());
     }
 
+    /**
+     * Get one page of the locations in id order
+     *
+     * @param limit Page size (1 to {@value KeysetPaging#MAX_PAGE_SIZE})
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     */
+    @Transactional(readOnly = true)
+    public KeysetPageDto<LocationDto> getLocationPage(int limit, String cursor) {
+        List<LocationDto> rows = locationRepository.findDtoPage(keysetPaging.afterId(cursor),
+                keysetPaging.pageLimit(limit));
+        return keysetPaging.page(rows, limit, LocationDto::getId);
+    }
+
+    @Transactional(readOnly = true)
     public LocationDto getLocationById(Long id) {
         Location location = locationRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Location not found with id: " + id));
         return mapToDto(location);
     }
 
+    @Transactional(readOnly = true)
     public LocationDto getLocationByCode(String locationCode) {
         Location location = locationRepository.findByLocationCode(locationCode)
                 .orElseThrow(() -> new RuntimeException("Location not found with code: " + locationCode));
@@ -54,9 +84,9 @@ public class LocationService {
         Location existingLocation = locationRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Location not found with id: " + id));
         
+        boolean codeChanged = !existingLocation.getLocationCode().equals(locationDto.getLocationCode());
         // Check if trying to update to an existing code (that's not the current one)
-        if (!existingLocation.getLocationCode().equals(locationDto.getLocationCode()) && 
-                locationRepository.existsByLocationCode(locationDto.getLocationCode())) {
+        if (codeChanged && locationRepository.existsByLocationCode(locationDto.getLocationCode())) {
             throw new RuntimeException("Location with code " + locationDto.getLocationCode() + " already exists");
         }
         
@@ -66,6 +96,14 @@ public class LocationService {
         existingLocation.setLocationCode(locationDto.getLocationCode());
         
         Location updatedLocation = locationRepository.save(existingLocation);
+        
+        // Indexed, materialized and cached routes embed the location's code, not its name or city
+        if (codeChanged) {
+            routeGraphIndex.evictDays(OperatingDays.toList(OperatingDays.ALL_DAYS));
+            routeMaterializer.locationChanged(id);
+            routeCacheInvalidator.locationChanged(id);
+        }
+        
         return mapToDto(updatedLocation);
     }
 
@@ -74,6 +112,9 @@ public class LocationService {
         Location location = locationRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Location not found with id: " + id));
         locationRepository.delete(location);
+        
+        // Cached empty results may still refer to the deleted location's code
+        routeCacheInvalidator.locationChanged(id);
     }
 
     private LocationDto mapToDto(Location location) {
@@ -0,0 +1,122 @@
+package com.msy.projects.flightsystem.service;
+
+import com.msy.projects.flightsystem.model.Transportation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * Enumerates the routes around each candidate flight of the default route search, in parallel
+ * on the dedicated routeSearchForkJoinPool when route.parallel.enabled is set and the day has at
+ * least route.parallel.threshold candidate flights.
+ *
+ * The flights are split into consecutive chunks, each filling its own buffer, and the buffers are
+ * passed to the sink in flight order afterwards. The routes therefore come out in the same order
+ * as from the sequential loop, and no buffer is shared between tasks.
+ */
+@Component
+public class ParallelRouteEnumerator {
+
+    /**
+     * Chunks per worker thread, so workers finishing early can steal remaining chunks
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+    private final boolean enabled;
+    private final int threshold;
+
+    /**
+     * @param pool Pool of the parallel enumeration, null when route.parallel.enabled is not set
+     */
+    @Autowired
+    public ParallelRouteEnumerator(@Nullable @Qualifier("routeSearchForkJoinPool") ForkJoinPool pool,
+                                   @Value("${route.parallel.enabled:false}") boolean enabled,
+                                   @Value("${route.parallel.threshold:2000}") int threshold) {
+        this.pool = pool;
+        this.enabled = enabled && pool != null;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Routes found around a single flight
+     */
+    @FunctionalInterface
+    interface FlightRoutes {
+        void forEach(Transportation flight, Consumer<List<Transportation>> sink);
+    }
+
+    /**
+     * Pass the routes around every flight to the sink, in flight order
+     *
+     * @param flights Candidate flights
+     * @param routes Enumeration of the routes around one flight, must not modify shared state
+     * @param sink Receiver of the routes, always called on the calling thread
+     */
+    void forEach(List<Transportation> flights, FlightRoutes routes, Consumer<List<Transportation>> sink) {
+        if (!enabled || flights.size() < threshold) {
+            for (Transportation flight : flights) {
+                routes.forEach(flight, sink);
+            }
+            return;
+        }
+
+        int chunks = Math.min(flights.size(), pool.getParallelism() * CHUNKS_PER_THREAD);
+        List<List<Transportation>>[] buffers = newBuffers(chunks);
+        pool.invoke(new EnumerateChunks(flights, routes, buffers, 0, chunks));
+        for (List<List<Transportation>> buffer : buffers) {
+            buffer.forEach(sink);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<List<Transportation>>[] newBuffers(int chunks) {
+        return new List[chunks];
+    }
+
+    /**
+     * Fills the buffers of a range of chunks, splitting the range in halves until one chunk is left
+     */
+    private static final class EnumerateChunks extends RecursiveAction {
+
+        private final List<Transportation> flights;
+        private final FlightRoutes routes;
+        private final List<List<Transportation>>[] buffers;
+        private final int fromChunk;
+        private final int toChunk;
+
+        EnumerateChunks(List<Transportation> flights, FlightRoutes routes, List<List<Transportation>>[] buffers,
+                        int fromChunk, int toChunk) {
+            this.flights = flights;
+            this.routes = routes;
+            this.buffers = buffers;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk > 1) {
+                int middle = (fromChunk + toChunk) >>> 1;
+                invokeAll(new EnumerateChunks(flights, routes, buffers, fromChunk, middle),
+                        new EnumerateChunks(flights, routes, buffers, middle, toChunk));
+                return;
+            }
+            int from = (int) ((long) flights.size() * fromChunk / buffers.length);
+            int to = (int) ((long) flights.size() * toChunk / buffers.length);
+            List<List<Transportation>> buffer = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                routes.forEach(flights.get(i), buffer::add);
+            }
+            buffers[fromChunk] = buffer;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.msy.projects.flightsystem.service;
+
+import com.msy.projects.flightsystem.dto.RouteBatchResultDto;
+import com.msy.projects.flightsystem.dto.RouteRequestDto;
+import com.msy.projects.flightsystem.dto.TransportationDto;
+import com.msy.projects.flightsystem.exception.BadRequestException;
+import com.msy.projects.flightsystem.exception.ResourceNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+@Service
+public class RouteBatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(RouteBatchService.class);
+
+    private final RouteService routeService;
+    private final CacheService cacheService;
+    private final AsyncTaskExecutor routeSearchExecutor;
+    private final int maxBatchSize;
+
+    @Autowired
+    public RouteBatchService(RouteService routeService,
+                             CacheService cacheService,
+                             @Qualifier("routeSearchExecutor") AsyncTaskExecutor routeSearchExecutor,
+                             @Value("${route.batch.max-size:100}") int maxBatchSize) {
+        this.routeService = routeService;
+        this.cacheService = cacheService;
+        this.routeSearchExecutor = routeSearchExecutor;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Find routes for many origin/destination/date requests at once
+     * 
+     * Cached results of all requests are read with a single multi-get, the remaining
+     * requests are searched in parallel on the bounded route search executor through
+     * {@link RouteService#findRoutes(String, String, LocalDate)}, which also caches them.
+     * A failing entry does not fail the batch, its result carries the error instead: 400 or 404 for
+     * invalid requests and 500 for any other failure of its search.
+     * 
+     * @param requests Route search requests
+     * @return Result of every request keyed by its index in the request list
+     */
+    public Map<Integer, RouteBatchResultDto> findRoutes(List<RouteRequestDto> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new BadRequestException("Batch must contain at least one route request");
+        }
+        if (requests.size() > maxBatchSize) {
+            throw new BadRequestException("Batch must not contain more than " + maxBatchSize + " route requests");
+        }
+        
+        Map<Integer, RouteBatchResultDto> results = new TreeMap<>();
+        Map<Integer, String> keys = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            RouteRequestDto request = requests.get(i);
+            if (request == null || request.getOriginLocationCode() == null
+                    || request.getDestinationLocationCode() == null || request.getTravelDate() == null) {
+                results.put(i, RouteBatchResultDto.error(400,
+                        "originLocationCode, destinationLocationCode and travelDate are required"));
+                continue;
+            }
+            keys.put(i, RouteService.routeCacheKey(request.getOriginLocationCode(),
+                    request.getDestinationLocationCode(), request.getTravelDate()));
+        }
+        
+        // Resolve cache hits with one round-trip
+        Map<String, List<List<TransportationDto>>> cachedRoutes =
+                cacheService.getCachedRoutes(new ArrayList<>(new LinkedHashSet<>(keys.values())));
+        
+        // Search the misses in parallel, identical requests share one search
+        Map<String, CompletableFuture<List<List<TransportationDto>>>> searches = new HashMap<>();
+        keys.forEach((index, key) -> {
+            if (!cachedRoutes.containsKey(key)) {
+                RouteRequestDto request = requests.get(index);
+                searches.computeIfAbsent(key, k -> CompletableFuture.supplyAsync(() -> routeService.findRoutes(
+                        request.getOriginLocationCode(),
+                        request.getDestinationLocationCode(),
+                        request.getTravelDate()), routeSearchExecutor));
+            }
+        });
+        
+        keys.forEach((index, key) -> {
+            List<List<TransportationDto>> routes = cachedRoutes.get(key);
+            if (routes != null) {
+                results.put(index, RouteBatchResultDto.ok(routes));
+            } else {
+                results.put(index, await(requests.get(index), searches.get(key)));
+            }
+        });
+        return results;
+    }
+
+    private RouteBatchResultDto await(RouteRequestDto request, CompletableFuture<List<List<TransportationDto>>> search) {
+        try {
+            return RouteBatchResultDto.ok(search.join());
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ResourceNotFoundException) {
+                return RouteBatchResultDto.error(404, cause.getMessage());
+            }
+            if (cause instanceof BadRequestException) {
+                return RouteBatchResultDto.error(400, cause.getMessage());
+            }
+            log.error("Batch route search {}-{} on {} failed", request.getOriginLocationCode(),
+                    request.getDestinationLocationCode(), request.getTravelDate(), cause);
+            return RouteBatchResultDto.error(500, "Route search failed");
+        }
+    }
+}
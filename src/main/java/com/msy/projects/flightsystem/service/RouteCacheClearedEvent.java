@@ -0,0 +1,7 @@
+package com.msy.projects.flightsystem.service;
+
+/**
+ * Published after every entry of the route cache was removed, see {@link CacheService#clearRouteCache()}
+ */
+public record RouteCacheClearedEvent() {
+}
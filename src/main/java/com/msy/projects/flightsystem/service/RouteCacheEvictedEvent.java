@@ -0,0 +1,11 @@
+package com.msy.projects.flightsystem.service;
+
+import java.util.Set;
+
+/**
+ * Published after route cache entries were evicted selectively, see {@link CacheService#evictTaggedRoutes}
+ *
+ * @param keys Route cache keys of the evicted entries
+ */
+public record RouteCacheEvictedEvent(Set<String> keys) {
+}
@@ -0,0 +1,108 @@
+package com.msy.projects.flightsystem.service;
+
+import com.msy.projects.flightsystem.model.Transportation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Selective eviction of routeCache entries using the tags written by {@link CacheService#tagRoutes}.
+ *
+ * A changed transportation evicts the entries that contained it. Entries that may now have new
+ * routes are evicted as well:
+ * - a transfer can only start a route at its origin or end one at its destination
+ * - a flight affects the single-flight entries from its airport or a feeder transfer's origin to
+ *   its arrival airport or an onward transfer's destination, and every multi-flight entry of its days
+ * A changed location evicts every entry that mentions it, as cached DTOs embed location codes.
+ *
+ * Inside a transaction the eviction runs after commit, after {@link RouteGraphIndex#evictDays} moved
+ * the generation of the changed days. A search on this node that overlapped the commit sees the
+ * generation change and searches again before its result is cached. This does not close every gap:
+ * a commit landing between that check and the cache write, or a search running on another node
+ * whose index still holds the old day, can cache old routes after the eviction. Such an entry
+ * stays until the next write touching it evicts it, or until it expires.
+ */
+@Service
+public class RouteCacheInvalidator {
+
+    private final CacheService cacheService;
+    private final RouteGraphIndex routeGraphIndex;
+
+    @Autowired
+    public RouteCacheInvalidator(CacheService cacheService, RouteGraphIndex routeGraphIndex) {
+        this.cacheService = cacheService;
+        this.routeGraphIndex = routeGraphIndex;
+    }
+
+    /**
+     * Evict the entries affected by a transportation write
+     *
+     * @param transportationId Id of the transportation
+     * @param before Transportation before the change, null when it was created
+     * @param after Transportation after the change, null when it was deleted
+     */
+    public void transportationChanged(Long transportationId, TransportationEdge before, TransportationEdge after) {
+        afterCommit(() -> {
+            Set<String> tags = new LinkedHashSet<>();
+            if (before != null) {
+                tags.add(CacheService.transportationTag(transportationId));
+            }
+            if (after != null) {
+                for (int dayOfWeek : after.operatingDays()) {
+                    if (after.flight()) {
+                        tags.add(CacheService.multiFlightTag(dayOfWeek));
+                        evictSingleFlightRoutes(dayOfWeek, after);
+                    } else {
+                        tags.add(CacheService.originTag(dayOfWeek, after.originId()));
+                        tags.add(CacheService.destinationTag(dayOfWeek, after.destinationId()));
+                    }
+                }
+            }
+            cacheService.evictTaggedRoutes(tags);
+        });
+    }
+
+    /**
+     * Evict the entries mentioning a changed or deleted location
+     *
+     * @param locationId Id of the location
+     */
+    public void locationChanged(Long locationId) {
+        afterCommit(() -> cacheService.evictTaggedRoutes(Set.of(CacheService.locationTag(locationId))));
+    }
+
+    private void evictSingleFlightRoutes(int dayOfWeek, TransportationEdge flight) {
+        RouteGraphIndex.DayIndex timetable = routeGraphIndex.forDay(dayOfWeek);
+        
+        Set<String> originTags = new LinkedHashSet<>();
+        originTags.add(CacheService.originTag(dayOfWeek, flight.originId()));
+        for (Transportation transfer : timetable.getTransfersTo(flight.originId())) {
+            originTags.add(CacheService.originTag(dayOfWeek, transfer.getOriginLocation().getId()));
+        }
+        
+        Set<String> destinationTags = new LinkedHashSet<>();
+        destinationTags.add(CacheService.destinationTag(dayOfWeek, flight.destinationId()));
+        for (Transportation transfer : timetable.getTransfersFrom(flight.destinationId())) {
+            destinationTags.add(CacheService.destinationTag(dayOfWeek, transfer.getDestinationLocation().getId()));
+        }
+        
+        cacheService.evictTaggedRoutes(originTags, destinationTags);
+    }
+
+    private void afterCommit(Runnable eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        } else {
+            eviction.run();
+        }
+    }
+}
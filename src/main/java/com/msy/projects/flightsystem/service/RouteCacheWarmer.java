@@ -0,0 +1,225 @@
+package com.msy.projects.flightsystem.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Refills the route cache with the most popular searches after startup and after the
+ * route cache was cleared, so the first requests do not all run a search. Popular searches
+ * whose entries were evicted by a timetable or location change are replayed right away.
+ *
+ * Searches are counted per (origin, destination, weekday) in memory and added to a Redis sorted
+ * set shared by all nodes every flush interval. A warmup replays the top searches through
+ * {@link RouteService#findRoutes(String, String, LocalDate)} on the small routeWarmupExecutor,
+ * in batches of route.warmup.rate-per-second searches handed to the executor one second apart
+ * by the task scheduler, so no executor thread waits for its turn. A newer full warmup
+ * cancels the batches an older one has not started yet.
+ */
+@Service
+public class RouteCacheWarmer {
+
+    private static final Logger log = LoggerFactory.getLogger(RouteCacheWarmer.class);
+
+    static final String POPULAR_SEARCHES_KEY = "routeWarmup::popularSearches";
+    private static final String SEPARATOR = "\t";
+    private static final Duration POPULAR_SEARCHES_TTL = Duration.ofDays(7);
+
+    private final RouteService routeService;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final TaskExecutor warmupExecutor;
+    private final TaskScheduler taskScheduler;
+    private final boolean enabled;
+    private final int maxKeys;
+    private final int ratePerSecond;
+
+    private final ConcurrentMap<String, LongAdder> pendingCounts = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public RouteCacheWarmer(RouteService routeService,
+                            RedisTemplate<String, Object> redisTemplate,
+                            @Qualifier("routeWarmupExecutor") TaskExecutor warmupExecutor,
+                            TaskScheduler taskScheduler,
+                            @Value("${route.warmup.enabled:true}") boolean enabled,
+                            @Value("${route.warmup.max-keys:200}") int maxKeys,
+                            @Value("${route.warmup.rate-per-second:20}") int ratePerSecond) {
+        this.routeService = routeService;
+        this.redisTemplate = redisTemplate;
+        this.warmupExecutor = warmupExecutor;
+        this.taskScheduler = taskScheduler;
+        this.enabled = enabled;
+        this.maxKeys = maxKeys;
+        this.ratePerSecond = Math.max(1, ratePerSecond);
+    }
+
+    /**
+     * Count a search of the default route search
+     */
+    public void recordSearch(String originCode, String destinationCode, LocalDate travelDate) {
+        if (!enabled) {
+            return;
+        }
+        String member = RouteService.normalizeCode(originCode) + SEPARATOR
+                + RouteService.normalizeCode(destinationCode) + SEPARATOR + travelDate.getDayOfWeek();
+        pendingCounts.computeIfAbsent(member, k -> new LongAdder()).increment();
+    }
+
+    /**
+     * Add the searches counted since the last flush to the shared popularity ranking,
+     * keeping only the top entries
+     */
+    @Scheduled(fixedDelayString = "${route.warmup.flush-interval:30s}")
+    public void flushSearchCounts() {
+        if (pendingCounts.isEmpty()) {
+            return;
+        }
+        Map<String, Long> counts = new HashMap<>();
+        for (String member : pendingCounts.keySet()) {
+            LongAdder count = pendingCounts.remove(member);
+            if (count != null) {
+                counts.put(member, count.sum());
+            }
+        }
+        
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, Object> stringOperations = (RedisOperations<String, Object>) operations;
+                    counts.forEach((member, count) ->
+                            stringOperations.opsForZSet().incrementScore(POPULAR_SEARCHES_KEY, member, count));
+                    // Keep ten times the replayed searches so new favorites can climb up
+                    stringOperations.opsForZSet().removeRange(POPULAR_SEARCHES_KEY, 0, -10L * maxKeys - 1);
+                    stringOperations.expire(POPULAR_SEARCHES_KEY, POPULAR_SEARCHES_TTL);
+                    return null;
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not record {} popular searches", counts.size(), e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpOnStartup() {
+        warmUp();
+    }
+
+    @EventListener(RouteCacheClearedEvent.class)
+    public void warmUpAfterClear() {
+        warmUp();
+    }
+
+    /**
+     * Replay the popular searches among the evicted entries, so the next request for them is a hit
+     */
+    @EventListener
+    public void warmUpEvicted(RouteCacheEvictedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        List<String> evicted = popularSearches().stream()
+                .filter(search -> event.keys().contains(String.join("-", search.split(SEPARATOR))))
+                .toList();
+        if (!evicted.isEmpty()) {
+            log.debug("Warming up {} evicted popular searches", evicted.size());
+            replay(evicted, generation.get());
+        }
+    }
+
+    /**
+     * Replay the most popular searches in the background
+     *
+     * @return Number of searches scheduled
+     */
+    public int warmUp() {
+        if (!enabled) {
+            return 0;
+        }
+        List<String> searches = popularSearches();
+        replay(searches, generation.incrementAndGet());
+        log.info("Warming up route cache with {} popular searches", searches.size());
+        return searches.size();
+    }
+
+    private List<String> popularSearches() {
+        try {
+            Set<Object> members = redisTemplate.opsForZSet().reverseRange(POPULAR_SEARCHES_KEY, 0, maxKeys - 1);
+            return members == null ? List.of() : members.stream().map(String::valueOf).toList();
+        } catch (RuntimeException e) {
+            log.warn("Could not read popular searches, skipping route cache warmup", e);
+            return List.of();
+        }
+    }
+
+    /**
+     * Hand the first batch to the executor now and schedule the others one second apart
+     */
+    private void replay(List<String> searches, long warmup) {
+        Instant start = Instant.now();
+        for (int from = 0, batch = 0; from < searches.size(); from += ratePerSecond, batch++) {
+            List<String> searchBatch = searches.subList(from, Math.min(from + ratePerSecond, searches.size()));
+            if (batch == 0) {
+                submit(searchBatch, warmup);
+            } else {
+                taskScheduler.schedule(() -> submit(searchBatch, warmup), start.plusSeconds(batch));
+            }
+        }
+    }
+
+    private void submit(List<String> searches, long warmup) {
+        if (generation.get() != warmup) {
+            return;
+        }
+        for (String search : searches) {
+            try {
+                warmupExecutor.execute(() -> warm(search, warmup));
+            } catch (TaskRejectedException e) {
+                log.debug("Route cache warmup queue is full, skipping the rest of the batch");
+                return;
+            }
+        }
+    }
+
+    private void warm(String search, long warmup) {
+        if (generation.get() != warmup) {
+            return;
+        }
+        
+        String[] parts = search.split(SEPARATOR);
+        if (parts.length != 3) {
+            return;
+        }
+        try {
+            LocalDate travelDate = LocalDate.now().with(TemporalAdjusters.nextOrSame(DayOfWeek.valueOf(parts[2])));
+            routeService.findRoutes(parts[0], parts[1], travelDate);
+        } catch (RuntimeException e) {
+            // A location may have been deleted since the search was recorded
+            log.debug("Could not warm up routes {}", search, e);
+        }
+    }
+}
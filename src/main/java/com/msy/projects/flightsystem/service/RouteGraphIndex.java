@@ -0,0 +1,294 @@
+package com.msy.projects.flightsystem.service;
+
+import com.msy.projects.flightsystem.model.Transportation;
+import com.msy.projects.flightsystem.model.TransportationType;
+import com.msy.projects.flightsystem.repository.TransportationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory route graph of the transportation timetable, partitioned by weekday.
+ *
+ * Each weekday is loaded with a single repository call the first time it is needed and
+ * indexed by origin and destination location id, so a route search only performs hash
+ * lookups instead of re-reading the whole timetable for every candidate flight.
+ * Days are evicted when a transportation operating on them changes and rebuilt lazily.
+ *
+ * Each day also answers whether a location can reach another one at all under the rules of the
+ * default route search (optional transfer, one flight, optional transfer), so searches of pairs
+ * that can never connect are answered without enumerating routes.
+ */
+@Service
+public class RouteGraphIndex {
+
+    private final TransportationRepository transportationRepository;
+    private final Map<Integer, DayIndex> days = new ConcurrentHashMap<>();
+    private final ReentrantLock[] dayLocks = new ReentrantLock[8];
+    /**
+     * Incremented on every eviction of a day, a build only caches its index if no eviction happened meanwhile
+     */
+    private final AtomicLongArray generations = new AtomicLongArray(8);
+
+    @Autowired
+    public RouteGraphIndex(TransportationRepository transportationRepository) {
+        this.transportationRepository = transportationRepository;
+        for (int day = 1; day <= 7; day++) {
+            dayLocks[day] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Get the index for a day of week, building it on first access.
+     * Concurrent first accesses of a day wait for one build under a lock of that day,
+     * which unlike a map computation does not pin a virtual thread during the repository call.
+     * A build overlapping an eviction of its day is returned to the caller but not cached,
+     * as it may have read the timetable before the change was committed.
+     *
+     * @param dayOfWeek Day of week (1-7, where 1 is Monday)
+     * @return Indexed timetable of that day
+     */
+    public DayIndex forDay(int dayOfWeek) {
+        DayIndex day = days.get(dayOfWeek);
+        if (day != null) {
+            return day;
+        }
+        if (dayOfWeek < 1 || dayOfWeek > 7) {
+            throw new IllegalArgumentException("Day of week must be between 1 and 7: " + dayOfWeek);
+        }
+        ReentrantLock lock = dayLocks[dayOfWeek];
+        lock.lock();
+        try {
+            day = days.get(dayOfWeek);
+            if (day == null) {
+                long generation = generations.get(dayOfWeek);
+                day = buildDay(dayOfWeek);
+                if (generation == generations.get(dayOfWeek)) {
+                    days.put(dayOfWeek, day);
+                    // An eviction between the check and the put has already run its remove
+                    if (generation != generations.get(dayOfWeek)) {
+                        days.remove(dayOfWeek, day);
+                    }
+                }
+            }
+            return day;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Generation of a day, moved by every eviction of it. A search reading the same generation
+     * before and after it ran did not overlap a committed change of that day.
+     *
+     * @param dayOfWeek Day of week (1-7, where 1 is Monday)
+     */
+    public long generation(int dayOfWeek) {
+        return generations.get(dayOfWeek);
+    }
+
+    /**
+     * Evict the given days so they are rebuilt from the repository on next access.
+     * When called inside a transaction the days are evicted again after commit. Each eviction
+     * moves the generation of its days, so a build that started before the commit and finishes
+     * after it does not cache the timetable it read.
+     *
+     * @param daysOfWeek Days of week (1-7) whose timetable changed
+     */
+    public void evictDays(Collection<Integer> daysOfWeek) {
+        if (daysOfWeek == null || daysOfWeek.isEmpty()) {
+            return;
+        }
+        Set<Integer> affectedDays = new HashSet<>(daysOfWeek);
+        affectedDays.forEach(this::evictDay);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    affectedDays.forEach(RouteGraphIndex.this::evictDay);
+                }
+            });
+        }
+    }
+
+    /**
+     * Evict every day of the index
+     */
+    public void evictAll() {
+        for (int day = 1; day <= 7; day++) {
+            evictDay(day);
+        }
+    }
+
+    private void evictDay(int dayOfWeek) {
+        if (dayOfWeek < 1 || dayOfWeek > 7) {
+            return;
+        }
+        generations.incrementAndGet(dayOfWeek);
+        days.remove(dayOfWeek);
+    }
+
+    private DayIndex buildDay(int dayOfWeek) {
+        return new DayIndex(dayOfWeek, transportationRepository.findByOperatingDay(dayOfWeek));
+    }
+
+    /**
+     * Timetable of a single weekday indexed by location id.
+     * Lists keep the order in which the repository returned the transportations.
+     */
+    public static final class DayIndex {
+
+        private final int dayOfWeek;
+        private final List<Transportation> flights = new ArrayList<>();
+        private final Map<Long, Transportation> transportationsById = new HashMap<>();
+        private final Map<Long, List<Transportation>> flightsByOrigin = new HashMap<>();
+        private final Map<Long, List<Transportation>> flightsByDestination = new HashMap<>();
+        private final Map<Long, List<Transportation>> transfersByOrigin = new HashMap<>();
+        private final Map<Long, List<Transportation>> transfersByDestination = new HashMap<>();
+        private final Map<Long, Map<Long, List<Transportation>>> transfersByOriginAndDestination = new HashMap<>();
+        private volatile Map<Long, BitSet> reachableByOrigin;
+        private final ReentrantLock reachabilityLock = new ReentrantLock();
+
+        DayIndex(int dayOfWeek, List<Transportation> transportations) {
+            this.dayOfWeek = dayOfWeek;
+            for (Transportation transportation : transportations) {
+                Long originId = transportation.getOriginLocation().getId();
+                Long destinationId = transportation.getDestinationLocation().getId();
+                transportationsById.put(transportation.getId(), transportation);
+
+                if (transportation.getTransportationType() == TransportationType.FLIGHT) {
+                    flights.add(transportation);
+                    flightsByOrigin.computeIfAbsent(originId, k -> new ArrayList<>()).add(transportation);
+                    flightsByDestination.computeIfAbsent(destinationId, k -> new ArrayList<>()).add(transportation);
+                } else {
+                    transfersByOrigin.computeIfAbsent(originId, k -> new ArrayList<>()).add(transportation);
+                    transfersByDestination.computeIfAbsent(destinationId, k -> new ArrayList<>()).add(transportation);
+                    transfersByOriginAndDestination
+                            .computeIfAbsent(originId, k -> new HashMap<>())
+                            .computeIfAbsent(destinationId, k -> new ArrayList<>())
+                            .add(transportation);
+                }
+            }
+        }
+
+        public int getDayOfWeek() {
+            return dayOfWeek;
+        }
+
+        /**
+         * Transportation of this day with the given id, or null
+         */
+        public Transportation getTransportation(Long id) {
+            return transportationsById.get(id);
+        }
+
+        /**
+         * All flights operating on this day
+         */
+        public List<Transportation> getFlights() {
+            return Collections.unmodifiableList(flights);
+        }
+
+        public List<Transportation> getFlightsFrom(Long originId) {
+            return flightsByOrigin.getOrDefault(originId, List.of());
+        }
+
+        public List<Transportation> getFlightsTo(Long destinationId) {
+            return flightsByDestination.getOrDefault(destinationId, List.of());
+        }
+
+        /**
+         * Non-flight transportations leaving the given location
+         */
+        public List<Transportation> getTransfersFrom(Long originId) {
+            return transfersByOrigin.getOrDefault(originId, List.of());
+        }
+
+        /**
+         * Non-flight transportations arriving at the given location
+         */
+        public List<Transportation> getTransfersTo(Long destinationId) {
+            return transfersByDestination.getOrDefault(destinationId, List.of());
+        }
+
+        /**
+         * Whether the default route search can find any route between the locations on this day.
+         * Built on first use: one bit set of reachable destination ids per origin id.
+         */
+        public boolean canReach(Long originId, Long destinationId) {
+            if (destinationId > Integer.MAX_VALUE) {
+                return true;
+            }
+            BitSet reachable = reachability().get(originId);
+            return reachable != null && reachable.get(destinationId.intValue());
+        }
+
+        private Map<Long, BitSet> reachability() {
+            Map<Long, BitSet> reachable = reachableByOrigin;
+            if (reachable == null) {
+                reachabilityLock.lock();
+                try {
+                    reachable = reachableByOrigin;
+                    if (reachable == null) {
+                        reachable = buildReachability();
+                        reachableByOrigin = reachable;
+                    }
+                } finally {
+                    reachabilityLock.unlock();
+                }
+            }
+            return reachable;
+        }
+
+        /**
+         * Every flight connects its origin and the origins of its feeder transfers
+         * with its destination and the destinations of its onward transfers
+         */
+        private Map<Long, BitSet> buildReachability() {
+            Map<Long, BitSet> reachable = new HashMap<>();
+            Map<Long, BitSet> arrivalsByFlightDestination = new HashMap<>();
+            for (Transportation flight : flights) {
+                Long departureId = flight.getOriginLocation().getId();
+                Long arrivalId = flight.getDestinationLocation().getId();
+                BitSet arrivals = arrivalsByFlightDestination.computeIfAbsent(arrivalId, id -> {
+                    BitSet ids = new BitSet();
+                    setBit(ids, id);
+                    for (Transportation transfer : getTransfersFrom(id)) {
+                        setBit(ids, transfer.getDestinationLocation().getId());
+                    }
+                    return ids;
+                });
+
+                reachable.computeIfAbsent(departureId, id -> new BitSet()).or(arrivals);
+                for (Transportation transfer : getTransfersTo(departureId)) {
+                    reachable.computeIfAbsent(transfer.getOriginLocation().getId(), id -> new BitSet()).or(arrivals);
+                }
+            }
+            return reachable;
+        }
+
+        private static void setBit(BitSet ids, Long id) {
+            if (id <= Integer.MAX_VALUE) {
+                ids.set(id.intValue());
+            }
+        }
+
+        /**
+         * Non-flight transportations connecting the two locations directly
+         */
+        public List<Transportation> getTransfers(Long originId, Long destinationId) {
+            Map<Long, List<Transportation>> byDestination = transfersByOriginAndDestination.get(originId);
+            if (byDestination == null) {
+                return List.of();
+            }
+            return byDestination.getOrDefault(destinationId, List.of());
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.msy.projects.flightsystem.service;
+
+import com.msy.projects.flightsystem.model.Transportation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Optional precomputed routes of {@link RouteService#findRoutes(String, String, java.time.LocalDate)}.
+ *
+ * When route.materialized.enabled is set, every weekday's 1-3 segment routes of all origin and
+ * destination pairs are computed in the background after startup and stored as arrays of
+ * transportation ids, turning the default search into a lookup. A transportation change only
+ * recomputes the pairs it could take part in, on the graph before and after the change.
+ * Days that are not materialized yet are searched live.
+ */
+@Service
+public class RouteMaterializer {
+
+    private static final Logger log = LoggerFactory.getLogger(RouteMaterializer.class);
+
+    private final RouteGraphIndex routeGraphIndex;
+    private final TaskExecutor routeSearchExecutor;
+    private final boolean enabled;
+    private final Map<Integer, DayRoutes> days = new ConcurrentHashMap<>();
+    /**
+     * Serializes computations, which may read the repository and should not pin a virtual thread
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @Autowired
+    public RouteMaterializer(RouteGraphIndex routeGraphIndex,
+                             @Qualifier("routeSearchExecutor") TaskExecutor routeSearchExecutor,
+                             @Value("${route.materialized.enabled:false}") boolean enabled) {
+        this.routeGraphIndex = routeGraphIndex;
+        this.routeSearchExecutor = routeSearchExecutor;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Materialize all weekdays in the background once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void materializeAll() {
+        if (!enabled) {
+            return;
+        }
+        for (int day = 1; day <= 7; day++) {
+            int dayOfWeek = day;
+            routeSearchExecutor.execute(() -> materializeDay(dayOfWeek));
+        }
+    }
+
+    /**
+     * Compute and store every route of a weekday
+     *
+     * @param dayOfWeek Day of week (1-7, where 1 is Monday)
+     */
+    public void materializeDay(int dayOfWeek) {
+        lock.lock();
+        try {
+            materialize(dayOfWeek);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void materialize(int dayOfWeek) {
+        RouteGraphIndex.DayIndex timetable = routeGraphIndex.forDay(dayOfWeek);
+        Map<Long, Map<Long, List<long[]>>> routes = new HashMap<>();
+        for (Transportation flight : timetable.getFlights()) {
+            forEachRoute(timetable, flight, null, null, route -> routes
+                    .computeIfAbsent(route.get(0).getOriginLocation().getId(), k -> new HashMap<>())
+                    .computeIfAbsent(route.get(route.size() - 1).getDestinationLocation().getId(), k -> new ArrayList<>())
+                    .add(toIds(route)));
+        }
+
+        DayRoutes dayRoutes = new DayRoutes(timetable);
+        routes.forEach((originId, byDestination) -> byDestination.forEach((destinationId, pairRoutes) ->
+                dayRoutes.put(originId, destinationId, pairRoutes)));
+        days.put(dayOfWeek, dayRoutes);
+        log.info("Materialized {} origin/destination pairs for day {}", dayRoutes.pairCount(), dayOfWeek);
+    }
+
+    /**
+     * Look up the materialized routes between two locations
+     *
+     * @param dayOfWeek Day of week (1-7, where 1 is Monday)
+     * @param originId Id of the origin location
+     * @param destinationId Id of the destination location
+     * @return Routes in the order of the live search, or empty if the day is not materialized
+     */
+    public Optional<List<List<Transportation>>> findRoutes(int dayOfWeek, Long originId, Long destinationId) {
+        DayRoutes dayRoutes = enabled ? days.get(dayOfWeek) : null;
+        if (dayRoutes == null) {
+            return Optional.empty();
+        }
+        List<List<Transportation>> routes = new ArrayList<>();
+        for (long[] ids : dayRoutes.get(originId, destinationId)) {
+            List<Transportation> route = new ArrayList<>(ids.length);
+            for (long id : ids) {
+                route.add(dayRoutes.timetable.getTransportation(id));
+            }
+            routes.add(route);
+        }
+        return Optional.of(routes);
+    }
+
+    /**
+     * Recompute the pairs a changed transportation takes part in. Inside a transaction the
+     * work runs after commit, after {@link RouteGraphIndex#evictDays} has dropped the old days.
+     *
+     * @param before Transportation before the change, null when it was created
+     * @param after Transportation after the change, null when it was deleted
+     */
+    public void transportationChanged(TransportationEdge before, TransportationEdge after) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh(before, after);
+                }
+            });
+        } else {
+            refresh(before, after);
+        }
+    }
+
+    /**
+     * Drop all materialized days and compute them again, e.g. after bulk imports.
+     * Inside a transaction this happens after commit. Searches run live until a day is rebuilt.
+     */
+    public void rebuildAll() {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    days.clear();
+                    materializeAll();
+                }
+            });
+        } else {
+            days.clear();
+            materializeAll();
+        }
+    }
+
+    /**
+     * Swap in the new timetable on the materialized days that use a changed location. The
+     * stored routes are transportation ids and stay valid, only the entities resolving them
+     * carry the old location code. Inside a transaction this happens after commit, after
+     * {@link RouteGraphIndex#evictDays} has dropped the old days.
+     *
+     * @param locationId Id of the updated location
+     */
+    public void locationChanged(Long locationId) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refreshTimetables(locationId);
+                }
+            });
+        } else {
+            refreshTimetables(locationId);
+        }
+    }
+
+    private void refreshTimetables(Long locationId) {
+        lock.lock();
+        try {
+            for (Map.Entry<Integer, DayRoutes> day : days.entrySet()) {
+                RouteGraphIndex.DayIndex timetable = day.getValue().timetable;
+                if (timetable.getFlightsFrom(locationId).isEmpty() && timetable.getFlightsTo(locationId).isEmpty()
+                        && timetable.getTransfersFrom(locationId).isEmpty()
+                        && timetable.getTransfersTo(locationId).isEmpty()) {
+                    continue;
+                }
+                days.put(day.getKey(), day.getValue().withTimetable(routeGraphIndex.forDay(day.getKey())));
+                log.debug("Refreshed the timetable of day {} for location {}", day.getKey(), locationId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refresh(TransportationEdge before, TransportationEdge after) {
+        lock.lock();
+        try {
+            refreshDays(before, after);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refreshDays(TransportationEdge before, TransportationEdge after) {
+        Set<Integer> affectedDays = new TreeSet<>();
+        if (before != null) {
+            affectedDays.addAll(before.operatingDays());
+        }
+        if (after != null) {
+            affectedDays.addAll(after.operatingDays());
+        }
+
+        for (int dayOfWeek : affectedDays) {
+            DayRoutes current = days.get(dayOfWeek);
+            if (current == null) {
+                // Not materialized yet, the full computation will read the new timetable
+                continue;
+            }
+            RouteGraphIndex.DayIndex timetable = routeGraphIndex.forDay(dayOfWeek);
+
+            Set<List<Long>> pairs = new LinkedHashSet<>();
+            if (before != null && before.operatingDays().contains(dayOfWeek)) {
+                pairs.addAll(affectedPairs(current.timetable, before));
+            }
+            if (after != null && after.operatingDays().contains(dayOfWeek)) {
+                pairs.addAll(affectedPairs(timetable, after));
+            }
+
+            DayRoutes updated = current.withTimetable(timetable);
+            for (List<Long> pair : pairs) {
+                List<long[]> pairRoutes = new ArrayList<>();
+                for (Transportation flight : timetable.getFlights()) {
+                    forEachRoute(timetable, flight, pair.get(0), pair.get(1), route -> pairRoutes.add(toIds(route)));
+                }
+                updated.put(pair.get(0), pair.get(1), pairRoutes);
+            }
+            days.put(dayOfWeek, updated);
+            log.debug("Recomputed {} origin/destination pairs for day {}", pairs.size(), dayOfWeek);
+        }
+    }
+
+    /**
+     * Origin/destination pairs of all routes that can contain the transportation
+     */
+    private Set<List<Long>> affectedPairs(RouteGraphIndex.DayIndex timetable, TransportationEdge edge) {
+        Set<List<Long>> pairs = new LinkedHashSet<>();
+        if (edge.flight()) {
+            Set<Long> origins = routeStarts(timetable, edge.originId());
+            Set<Long> destinations = routeEnds(timetable, edge.destinationId());
+            for (Long originId : origins) {
+                for (Long destinationId : destinations) {
+                    pairs.add(List.of(originId, destinationId));
+                }
+            }
+            return pairs;
+        }
+
+        // As a before-flight transfer
+        for (Transportation flight : timetable.getFlightsFrom(edge.destinationId())) {
+            for (Long destinationId : routeEnds(timetable, flight.getDestinationLocation().getId())) {
+                pairs.add(List.of(edge.originId(), destinationId));
+            }
+        }
+        // As an after-flight transfer
+        for (Transportation flight : timetable.getFlightsTo(edge.originId())) {
+            for (Long originId : routeStarts(timetable, flight.getOriginLocation().getId())) {
+                pairs.add(List.of(originId, edge.destinationId()));
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Locations a route can start from when its flight departs from the airport
+     */
+    private Set<Long> routeStarts(RouteGraphIndex.DayIndex timetable, Long airportId) {
+        Set<Long> starts = new LinkedHashSet<>();
+        starts.add(airportId);
+        timetable.getTransfersTo(airportId).forEach(t -> starts.add(t.getOriginLocation().getId()));
+        return starts;
+    }
+
+    /**
+     * Locations a route can end at when its flight lands at the airport
+     */
+    private Set<Long> routeEnds(RouteGraphIndex.DayIndex timetable, Long airportId) {
+        Set<Long> ends = new LinkedHashSet<>();
+        ends.add(airportId);
+        timetable.getTransfersFrom(airportId).forEach(t -> ends.add(t.getDestinationLocation().getId()));
+        return ends;
+    }
+
+    /**
+     * Enumerate the routes built around one flight in the order of the live search: the flight
+     * alone, with a before-flight transfer, with an after-flight transfer, and with both.
+     * Null origin or destination ids match any location.
+     */
+    private void forEachRoute(RouteGraphIndex.DayIndex timetable, Transportation flight,
+                              Long originId, Long destinationId, Consumer<List<Transportation>> sink) {
+        Long flightOriginId = flight.getOriginLocation().getId();
+        Long flightDestinationId = flight.getDestinationLocation().getId();
+        List<Transportation> beforeFlight = originId == null
+                ? timetable.getTransfersTo(flightOriginId)
+                : timetable.getTransfers(originId, flightOriginId);
+        List<Transportation> afterFlight = destinationId == null
+                ? timetable.getTransfersFrom(flightDestinationId)
+                : timetable.getTransfers(flightDestinationId, destinationId);
+        boolean fromOrigin = originId == null || originId.equals(flightOriginId);
+        boolean toDestination = destinationId == null || destinationId.equals(flightDestinationId);
+
+        if (fromOrigin && toDestination) {
+            sink.accept(List.of(flight));
+        }
+        if (toDestination) {
+            beforeFlight.forEach(before -> sink.accept(List.of(before, flight)));
+        }
+        if (fromOrigin) {
+            afterFlight.forEach(after -> sink.accept(List.of(flight, after)));
+        }
+        for (Transportation before : beforeFlight) {
+            for (Transportation after : afterFlight) {
+                sink.accept(List.of(before, flight, after));
+            }
+        }
+    }
+
+    private static long[] toIds(List<Transportation> route) {
+        return route.stream().mapToLong(Transportation::getId).toArray();
+    }
+
+    /**
+     * Materialized routes of one weekday with the timetable used to resolve their ids
+     */
+    private static final class DayRoutes {
+
+        private final RouteGraphIndex.DayIndex timetable;
+        private final Map<Long, Map<Long, long[][]>> routes;
+
+        DayRoutes(RouteGraphIndex.DayIndex timetable) {
+            this(timetable, new HashMap<>());
+        }
+
+        private DayRoutes(RouteGraphIndex.DayIndex timetable, Map<Long, Map<Long, long[][]>> routes) {
+            this.timetable = timetable;
+            this.routes = routes;
+        }
+
+        /**
+         * Copy for an incremental update, the unchanged pairs share their arrays
+         */
+        DayRoutes withTimetable(RouteGraphIndex.DayIndex newTimetable) {
+            Map<Long, Map<Long, long[][]>> copy = new HashMap<>();
+            routes.forEach((originId, byDestination) -> copy.put(originId, new HashMap<>(byDestination)));
+            return new DayRoutes(newTimetable, copy);
+        }
+
+        void put(Long originId, Long destinationId, List<long[]> pairRoutes) {
+            if (pairRoutes.isEmpty()) {
+                Map<Long, long[][]> byDestination = routes.get(originId);
+                if (byDestination != null) {
+                    byDestination.remove(destinationId);
+                }
+                return;
+            }
+            routes.computeIfAbsent(originId, k -> new HashMap<>())
+                    .put(destinationId, pairRoutes.toArray(new long[0][]));
+        }
+
+        long[][] get(Long originId, Long destinationId) {
+            Map<Long, long[][]> byDestination = routes.get(originId);
+            long[][] pairRoutes = byDestination != null ? byDestination.get(destinationId) : null;
+            return pairRoutes != null ? pairRoutes : new long[0][];
+        }
+
+        int pairCount() {
+            return routes.values().stream().mapToInt(Map::size).sum();
+        }
+    }
+}
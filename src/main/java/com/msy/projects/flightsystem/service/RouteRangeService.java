@@ -0,0 +1,66 @@
+package com.msy.projects.flightsystem.service;
+
+import com.msy.projects.flightsystem.dto.RouteRangeResponseDto;
+import com.msy.projects.flightsystem.dto.TransportationDto;
+import com.msy.projects.flightsystem.exception.BadRequestException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class RouteRangeService {
+
+    /**
+     * Longest date range accepted by a single request, in days
+     */
+    public static final int MAX_RANGE_DAYS = 366;
+
+    private final RouteService routeService;
+
+    @Autowired
+    public RouteRangeService(RouteService routeService) {
+        this.routeService = routeService;
+    }
+
+    /**
+     * Find routes for every date between fromDate and toDate (both inclusive)
+     * 
+     * Routes only depend on the day of week, so at most seven searches are run,
+     * one per distinct weekday in the range, and their results are shared by all
+     * dates falling on that weekday.
+     * 
+     * @param originCode Code of the origin location
+     * @param destinationCode Code of the destination location
+     * @param fromDate First date of travel
+     * @param toDate Last date of travel
+     * @return Routes grouped by day of week with the dates each group applies to
+     */
+    public RouteRangeResponseDto findRoutesInRange(String originCode, String destinationCode,
+                                                   LocalDate fromDate, LocalDate toDate) {
+        if (fromDate.isAfter(toDate)) {
+            throw new BadRequestException("fromDate must not be after toDate");
+        }
+        if (ChronoUnit.DAYS.between(fromDate, toDate) >= MAX_RANGE_DAYS) {
+            throw new BadRequestException("Date range must not exceed " + MAX_RANGE_DAYS + " days");
+        }
+        
+        Map<DayOfWeek, List<LocalDate>> datesByDay = new EnumMap<>(DayOfWeek.class);
+        for (LocalDate date = fromDate; !date.isAfter(toDate); date = date.plusDays(1)) {
+            datesByDay.computeIfAbsent(date.getDayOfWeek(), day -> new ArrayList<>()).add(date);
+        }
+        
+        // Search once per weekday, using its first date in the range
+        Map<DayOfWeek, List<List<TransportationDto>>> routesByDay = new EnumMap<>(DayOfWeek.class);
+        datesByDay.forEach((day, dates) ->
+                routesByDay.put(day, routeService.findRoutes(originCode, destinationCode, dates.get(0))));
+        
+        return new RouteRangeResponseDto(originCode, destinationCode, fromDate, toDate, datesByDay, routesByDay);
+    }
+}
@@ -0,0 +1,130 @@
+package com.msy.projects.flightsystem.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Meters of the route searches computed by {@link RouteService}, exported through actuator.
+ *
+ * <ul>
+ *     <li>{@code route.search}: duration of a computed search, tagged with the search kind, the weekday
+ *     and a bucket of the number of routes found, with percentiles and a histogram</li>
+ *     <li>{@code route.search.phase}: duration of the location lookup, flight fetch, transfer expansion
+ *     and DTO mapping phases</li>
+ *     <li>{@code route.search.routes}: routes returned</li>
+ *     <li>{@code route.search.flights.scanned}: candidate flights looked at by the searches</li>
+ * </ul>
+ *
+ * Searches answered from the route cache are not timed here, see the cache meters instead.
+ * Tags only take a handful of values, so the number of meters stays small.
+ */
+@Component
+public class RouteSearchMetrics {
+
+    public static final String SEARCH_DEFAULT = "default";
+    public static final String SEARCH_BOUNDED = "bounded";
+    public static final String SEARCH_COMPACT = "compact";
+    public static final String SEARCH_PAGE = "page";
+
+    public static final String PHASE_LOCATION_LOOKUP = "location_lookup";
+    public static final String PHASE_FLIGHT_FETCH = "flight_fetch";
+    public static final String PHASE_TRANSFER_EXPANSION = "transfer_expansion";
+    public static final String PHASE_DTO_MAPPING = "dto_mapping";
+
+    private static final String[] RESULT_BUCKETS = {"0", "1-10", "11-100", "101+"};
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> searchTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> phaseTimers = new ConcurrentHashMap<>();
+    private final Map<DayOfWeek, Counter> routeCounters = new EnumMap<>(DayOfWeek.class);
+    private final Counter flightsScanned;
+
+    @Autowired
+    public RouteSearchMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (DayOfWeek day : DayOfWeek.values()) {
+            routeCounters.put(day, Counter.builder("route.search.routes")
+                    .description("Routes returned by computed route searches")
+                    .tag("weekday", weekday(day))
+                    .register(meterRegistry));
+        }
+        this.flightsScanned = Counter.builder("route.search.flights.scanned")
+                .description("Candidate flights looked at by route searches")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Start timing a search, finished by {@link #recordSearch}
+     */
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    /**
+     * Record a finished search
+     *
+     * @param sample Sample returned by {@link #start()}
+     * @param search Kind of search, one of the SEARCH_ constants
+     * @param travelDate Date of travel
+     * @param routes Number of routes found
+     */
+    public void recordSearch(Timer.Sample sample, String search, LocalDate travelDate, int routes) {
+        String weekday = weekday(travelDate.getDayOfWeek());
+        String bucket = resultBucket(routes);
+        sample.stop(searchTimers.computeIfAbsent(search + '|' + weekday + '|' + bucket,
+                k -> Timer.builder("route.search")
+                        .description("Duration of computed route searches")
+                        .tag("search", search)
+                        .tag("weekday", weekday)
+                        .tag("result", bucket)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)));
+        routeCounters.get(travelDate.getDayOfWeek()).increment(routes);
+    }
+
+    /**
+     * Run one phase of a search and record its duration
+     *
+     * @param phase Phase, one of the PHASE_ constants
+     * @param body Work of the phase
+     * @return Result of the phase
+     */
+    public <T> T phase(String phase, Supplier<T> body) {
+        return phaseTimers.computeIfAbsent(phase, p -> Timer.builder("route.search.phase")
+                        .description("Duration of the phases of computed route searches")
+                        .tag("phase", p)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(meterRegistry))
+                .record(body);
+    }
+
+    public void recordFlightsScanned(int flights) {
+        flightsScanned.increment(flights);
+    }
+
+    static String resultBucket(int routes) {
+        if (routes == 0) {
+            return RESULT_BUCKETS[0];
+        }
+        if (routes <= 10) {
+            return RESULT_BUCKETS[1];
+        }
+        return routes <= 100 ? RESULT_BUCKETS[2] : RESULT_BUCKETS[3];
+    }
+
+    private static String weekday(DayOfWeek day) {
+        return day.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,34 +1,85 @@
 package com.msy.projects.flightsystem.service;
 
+import com.msy.projects.flightsystem.config.RedisConfig;
+import com.msy.projects.flightsystem.dto.CompactRoutesDto;
+import com.msy.projects.flightsystem.dto.RoutePageDto;
 import com.msy.projects.flightsystem.dto.TransportationDto;
+import com.msy.projects.flightsystem.exception.BadRequestException;
 import com.msy.projects.flightsystem.exception.ResourceNotFoundException;
 import com.msy.projects.flightsystem.model.Location;
+import com.msy.projects.flightsystem.model.RouteSort;
 import com.msy.projects.flightsystem.model.Transportation;
 import com.msy.projects.flightsystem.model.TransportationType;
 import com.msy.projects.flightsystem.repository.LocationRepository;
-import com.msy.projects.flightsystem.repository.TransportationRepository;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 public class RouteService {
 
-    private final TransportationRepository transportationRepository;
+    /**
+     * Upper limits accepted for the bounded connecting-flight search
+     */
+    public static final int MAX_FLIGHTS_LIMIT = 4;
+    public static final int MAX_SEGMENTS_LIMIT = 6;
+
+    /**
+     * Largest page accepted by {@link #findRoutePage}
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * Appended to the route cache key of a search cached in the compact response format
+     */
+    public static final String COMPACT_KEY_SUFFIX = "-COMPACT";
+
+    /**
+     * Attempts of a cached search overlapping evictions of its day, see {@link #searchConsistently}
+     */
+    private static final int MAX_SEARCH_ATTEMPTS = 3;
+
+    private final RouteGraphIndex routeGraphIndex;
     private final LocationRepository locationRepository;
     private final TransportationService transportationService;
+    private final RouteMaterializer routeMaterializer;
+    private final CacheService cacheService;
+    private final RouteSearchMetrics searchMetrics;
+    private final ParallelRouteEnumerator parallelEnumerator;
+    private final boolean legacyKeyFallback;
+    private final long legacyKeyFallbackUntil;
+    private final long[] legacyKeyGenerations = new long[8];
 
     @Autowired
-    public RouteService(TransportationRepository transportationRepository,
+    public RouteService(RouteGraphIndex routeGraphIndex,
                       LocationRepository locationRepository,
-                      TransportationService transportationService) {
-        this.transportationRepository = transportationRepository;
+                      TransportationService transportationService,
+                      RouteMaterializer routeMaterializer,
+                      CacheService cacheService,
+                      RouteSearchMetrics searchMetrics,
+                      ParallelRouteEnumerator parallelEnumerator,
+                      @Value("${route.cache.legacy-key-fallback:false}") boolean legacyKeyFallback) {
+        this.routeGraphIndex = routeGraphIndex;
         this.locationRepository = locationRepository;
         this.transportationService = transportationService;
+        this.routeMaterializer = routeMaterializer;
+        this.cacheService = cacheService;
+        this.searchMetrics = searchMetrics;
+        this.parallelEnumerator = parallelEnumerator;
+        this.legacyKeyFallback = legacyKeyFallback;
+        // Entries under the old keys have all expired one cache TTL after startup
+        this.legacyKeyFallbackUntil = System.nanoTime() + RedisConfig.CACHE_TTL.toNanos();
+        for (int dayOfWeek = 1; dayOfWeek <= 7; dayOfWeek++) {
+            legacyKeyGenerations[dayOfWeek] = routeGraphIndex.generation(dayOfWeek);
+        }
     }
 
     /**
@@ -42,46 +93,454 @@ public class RouteService {
      * 5. All transportations must be connected (destination of one = origin of next)
      * 6. All transportations must be available on the specified date
      * 
-     * This method is cached using Redis with a key based on origin, destination, and travel date.
+     * Transportations are read from the day-partitioned {@link RouteGraphIndex}, so the
+     * timetable is not queried again for every candidate flight. Pairs the index reports as
+     * unreachable on that day are answered with an empty list without a search. When route materialization
+     * is enabled the routes are looked up in the {@link RouteMaterializer} instead.
+     * Days with many candidate flights can be searched in parallel, see {@link ParallelRouteEnumerator}.
+     * 
+     * This method is cached using Redis with a key based on origin, destination, and the weekday of the travel date.
+     * Concurrent calls missing the same entry run the search once, see {@link com.msy.projects.flightsystem.cache.TwoTierCache}.
+     * The entry is tagged with the locations and transportations it depends on, see {@link RouteCacheInvalidator}.
+     * Computed searches are timed per phase, see {@link RouteSearchMetrics}.
      * 
      * @param originCode Code of the origin location
      * @param destinationCode Code of the destination location
      * @param travelDate Date of travel
      * @return List of possible routes (as lists of transportation segments)
      */
-    @Cacheable(value = "routeCache", key = "#originCode + '-' + #destinationCode + '-' + #travelDate")
+    @Cacheable(value = CacheService.ROUTE_CACHE, keyGenerator = "routeCacheKeyGenerator", sync = true)
     public List<List<TransportationDto>> findRoutes(String originCode, String destinationCode, LocalDate travelDate) {
+        Timer.Sample sample = searchMetrics.start();
+        
         // Validate locations exist
-        Location origin = locationRepository.findByLocationCode(originCode)
-                .orElseThrow(() -> new ResourceNotFoundException("Origin location not found with code: " + originCode));
+        Location origin = findOrigin(originCode);
+        Location destination = findDestination(destinationCode);
         
-        Location destination = locationRepository.findByLocationCode(destinationCode)
-                .orElseThrow(() -> new ResourceNotFoundException("Destination location not found with code: " + destinationCode));
+        String legacyKey = originCode + "-" + destinationCode + "-" + travelDate;
+        List<List<TransportationDto>> validRoutes = legacyCachedRoutes(legacyKey, travelDate)
+                .orElseGet(() -> searchConsistently(travelDate,
+                        () -> toDtoList(searchRoutes(origin, destination, travelDate))));
+        
+        // Tag the entry so only writes touching it evict it
+        cacheService.tagRoutes(routeCacheKey(originCode, destinationCode, travelDate),
+                travelDate.getDayOfWeek().getValue(), origin.getId(), destination.getId(), false, validRoutes);
+        searchMetrics.recordSearch(sample, RouteSearchMetrics.SEARCH_DEFAULT, travelDate, validRoutes.size());
+        return validRoutes;
+    }
+
+    /**
+     * Stream the routes of {@link #findRoutes(String, String, LocalDate)} without collecting them
+     * 
+     * Locations are validated when the stream is created, so a missing location fails before
+     * any route is written. Streamed routes are not cached.
+     * 
+     * @param originCode Code of the origin location
+     * @param destinationCode Code of the destination location
+     * @param travelDate Date of travel
+     * @return Stream producing the routes in the same order as the list returned by findRoutes
+     */
+    public RouteStream streamRoutes(String originCode, String destinationCode, LocalDate travelDate) {
+        // Validate locations exist
+        Location origin = findOrigin(originCode);
+        Location destination = findDestination(destinationCode);
         
+        return streamRoutes(origin, destination, travelDate);
+    }
+
+    private RouteStream streamRoutes(Location origin, Location destination, LocalDate travelDate) {
+        return toDtos(searchRoutes(origin, destination, travelDate));
+    }
+
+    private TransportationRoutes searchRoutes(Location origin, Location destination, LocalDate travelDate) {
         // Get the day of week (1-7, where 1 is Monday)
         int dayOfWeek = travelDate.getDayOfWeek().getValue();
         
-        // List to store all valid routes
-        List<List<TransportationDto>> validRoutes = new ArrayList<>();
+        // Get the indexed timetable of the specified day
+        RouteGraphIndex.DayIndex timetable = searchMetrics.phase(RouteSearchMetrics.PHASE_FLIGHT_FETCH,
+                () -> routeGraphIndex.forDay(dayOfWeek));
         
-        // Get all available flight options on the specified day
-        List<Transportation> availableFlights = transportationRepository.findByOperatingDay(dayOfWeek)
-                .stream()
-                .filter(t -> t.getTransportationType() == TransportationType.FLIGHT)
-                .collect(Collectors.toList());
+        // Pairs that can never connect on this day need no search
+        if (!timetable.canReach(origin.getId(), destination.getId())) {
+            return sink -> { };
+        }
         
-        for (Transportation flight : availableFlights) {
-            findValidRoutesWithFlight(origin, destination, dayOfWeek, flight, validRoutes);
+        // Use the precomputed routes when the day is materialized
+        Optional<List<List<Transportation>>> materializedRoutes =
+                routeMaterializer.findRoutes(dayOfWeek, origin.getId(), destination.getId());
+        if (materializedRoutes.isPresent()) {
+            return materializedRoutes.get()::forEach;
         }
         
+        // Large days are split across cores, the routes keep the order of the flights
+        return sink -> {
+            parallelEnumerator.forEach(timetable.getFlights(),
+                    (flight, flightSink) -> findValidRoutesWithFlight(origin, destination, timetable, flight, flightSink),
+                    sink);
+            searchMetrics.recordFlightsScanned(timetable.getFlights().size());
+        };
+    }
+
+    /**
+     * Build the route cache key used by {@link #findRoutes(String, String, LocalDate)}
+     * 
+     * Routes only depend on the weekday, so all dates of a weekday and all spellings of
+     * a location code share one entry, e.g. IST-LHR-MONDAY.
+     * 
+     * @param originCode Code of the origin location
+     * @param destinationCode Code of the destination location
+     * @param travelDate Date of travel
+     * @return Key of the route cache entry
+     */
+    public static String routeCacheKey(String originCode, String destinationCode, LocalDate travelDate) {
+        return normalizeCode(originCode) + "-" + normalizeCode(destinationCode) + "-" + travelDate.getDayOfWeek();
+    }
+
+    /**
+     * Location codes are matched upper-cased and without surrounding whitespace
+     */
+    public static String normalizeCode(String locationCode) {
+        return locationCode == null ? null : locationCode.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Run a search whose result is cached, again if the timetable of its day was evicted meanwhile.
+     * The search may otherwise have read the timetable before a change was committed, and its result
+     * would be cached after the eviction of the entries that change affected.
+     * Gives up after {@value #MAX_SEARCH_ATTEMPTS} attempts under constant writes to the day.
+     */
+    private <T> T searchConsistently(LocalDate travelDate, Supplier<T> search) {
+        int dayOfWeek = travelDate.getDayOfWeek().getValue();
+        for (int attempt = 1; ; attempt++) {
+            long generation = routeGraphIndex.generation(dayOfWeek);
+            T result = search.get();
+            if (generation == routeGraphIndex.generation(dayOfWeek) || attempt == MAX_SEARCH_ATTEMPTS) {
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Routes cached under the date-based key used before keys were normalized, so entries written
+     * before the switch are reused instead of recomputed all at once. Enabled with
+     * route.cache.legacy-key-fallback for the upgrade only, the lookup stops by itself one cache TTL
+     * after startup, when no such entry is left.
+     *
+     * Legacy entries carry no tags, so tag eviction never removes them. Once the timetable of a day
+     * changed on this node, its legacy entries are ignored instead.
+     */
+    private Optional<List<List<TransportationDto>>> legacyCachedRoutes(String legacyKey, LocalDate travelDate) {
+        if (!legacyKeyFallback || System.nanoTime() - legacyKeyFallbackUntil >= 0) {
+            return Optional.empty();
+        }
+        int dayOfWeek = travelDate.getDayOfWeek().getValue();
+        if (routeGraphIndex.generation(dayOfWeek) != legacyKeyGenerations[dayOfWeek]) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cacheService.getCachedRoutes(List.of(legacyKey)).get(legacyKey));
+    }
+
+    /**
+     * Find all routes from origin to destination on the specified date allowing connecting flights
+     * 
+     * A valid route must:
+     * 1. Have between one and maxFlights consecutive FLIGHT transportations
+     * 2. Can optionally have a before-flight transfer (non-FLIGHT)
+     * 3. Can optionally have an after-flight transfer (non-FLIGHT)
+     * 4. Have at most maxSegments transportation segments total
+     * 5. Not let a connecting flight return to a location the flights already visited
+     * 6. Have all transportations connected and available on the specified date
+     * 
+     * The search runs over the in-memory {@link RouteGraphIndex}; see {@link BoundedRouteSearch}.
+     * With maxFlights = 1 and maxSegments = 3 the result contains the same routes as
+     * {@link #findRoutes(String, String, LocalDate)}.
+     * 
+     * @param originCode Code of the origin location
+     * @param destinationCode Code of the destination location
+     * @param travelDate Date of travel
+     * @param maxFlights Maximum number of flights (1 to {@value #MAX_FLIGHTS_LIMIT})
+     * @param maxSegments Maximum number of segments (1 to {@value #MAX_SEGMENTS_LIMIT})
+     * @return List of possible routes (as lists of transportation segments)
+     */
+    @Cacheable(value = CacheService.ROUTE_CACHE, keyGenerator = "routeCacheKeyGenerator", sync = true)
+    public List<List<TransportationDto>> findRoutes(String originCode, String destinationCode, LocalDate travelDate,
+                                                    int maxFlights, int maxSegments) {
+        validateBounds(maxFlights, maxSegments);
+        Timer.Sample sample = searchMetrics.start();
+        
+        // Validate locations exist
+        Location origin = findOrigin(originCode);
+        Location destination = findDestination(destinationCode);
+        
+        String legacyKey = originCode + "-" + destinationCode + "-" + travelDate + "-" + maxFlights + "-" + maxSegments;
+        List<List<TransportationDto>> validRoutes = legacyCachedRoutes(legacyKey, travelDate)
+                .orElseGet(() -> searchConsistently(travelDate,
+                        () -> toDtoList(searchRoutes(origin, destination, travelDate, maxFlights, maxSegments))));
+        
+        // Tag the entry so only writes touching it evict it
+        cacheService.tagRoutes(routeCacheKey(originCode, destinationCode, travelDate, maxFlights, maxSegments),
+                travelDate.getDayOfWeek().getValue(), origin.getId(), destination.getId(), maxFlights > 1, validRoutes);
+        searchMetrics.recordSearch(sample, RouteSearchMetrics.SEARCH_BOUNDED, travelDate, validRoutes.size());
         return validRoutes;
     }
 
+    /**
+     * Build the route cache key used by {@link #findRoutes(String, String, LocalDate, int, int)}
+     */
+    public static String routeCacheKey(String originCode, String destinationCode, LocalDate travelDate,
+                                       int maxFlights, int maxSegments) {
+        return routeCacheKey(originCode, destinationCode, travelDate) + "-" + maxFlights + "-" + maxSegments;
+    }
+
+    /**
+     * Stream the routes of {@link #findRoutes(String, String, LocalDate, int, int)} without collecting them
+     * 
+     * Bounds and locations are validated when the stream is created. Streamed routes are not cached.
+     * 
+     * @param originCode Code of the origin location
+     * @param destinationCode Code of the destination location
+     * @param travelDate Date of travel
+     * @param maxFlights Maximum number of flights (1 to {@value #MAX_FLIGHTS_LIMIT})
+     * @param maxSegments Maximum number of segments (1 to {@value #MAX_SEGMENTS_LIMIT})
+     * @return Stream producing the routes in the same order as the list returned by findRoutes
+     */
+    public RouteStream streamRoutes(String originCode, String destinationCode, LocalDate travelDate,
+                                    int maxFlights, int maxSegments) {
+        validateBounds(maxFlights, maxSegments);
+        
+        // Validate locations exist
+        Location origin = findOrigin(originCode);
+        Location destination = findDestination(destinationCode);
+        
+        return streamRoutes(origin, destination, travelDate, maxFlights, maxSegments);
+    }
+
+    private RouteStream streamRoutes(Location origin, Location destination, LocalDate travelDate,
+                                     int maxFlights, int maxSegments) {
+        return toDtos(searchRoutes(origin, destination, travelDate, maxFlights, maxSegments));
+    }
+
+    private TransportationRoutes searchRoutes(Location origin, Location destination, LocalDate travelDate,
+                                              int maxFlights, int maxSegments) {
+        RouteGraphIndex.DayIndex timetable = searchMetrics.phase(RouteSearchMetrics.PHASE_FLIGHT_FETCH,
+                () -> routeGraphIndex.forDay(travelDate.getDayOfWeek().getValue()));
+        
+        return sink -> {
+            BoundedRouteSearch search =
+                    new BoundedRouteSearch(timetable, origin.getId(), destination.getId(), maxFlights, maxSegments);
+            search.search(route -> {
+                sink.accept(route);
+                return true;
+            });
+            searchMetrics.recordFlightsScanned(search.getFlightsScanned());
+        };
+    }
+
+    /**
+     * Find the routes of {@link #findRoutes(String, String, LocalDate)} in the compact response format
+     * 
+     * Every transportation is mapped to a DTO once and routes only hold transportation ids.
+     * Cached separately from the list format and tagged the same way.
+     * 
+     * @param originCode Code of the origin location
+     * @param destinationCode Code of the destination location
+     * @param travelDate Date of travel
+     * @return Transportations by id and routes as lists of transportation ids
+     */
+    @Cacheable(value = CacheService.ROUTE_CACHE, keyGenerator = "routeCacheKeyGenerator", sync = true)
+    public CompactRoutesDto findCompactRoutes(String originCode, String destinationCode, LocalDate travelDate) {
+        Timer.Sample sample = searchMetrics.start();
+        
+        // Validate locations exist
+        Location origin = findOrigin(originCode);
+        Location destination = findDestination(destinationCode);
+        
+        CompactRoutesDto routes = searchConsistently(travelDate,
+                () -> toCompact(searchRoutes(origin, destination, travelDate)));
+        cacheService.tagRouteSegments(routeCacheKey(originCode, destinationCode, travelDate) + COMPACT_KEY_SUFFIX,
+                travelDate.getDayOfWeek().getValue(), origin.getId(), destination.getId(), false,
+                routes.getTransportations().values());
+        searchMetrics.recordSearch(sample, RouteSearchMetrics.SEARCH_COMPACT, travelDate, routes.getRoutes().size());
+        return routes;
+    }
+
+    /**
+     * Find the routes of {@link #findRoutes(String, String, LocalDate, int, int)} in the compact response format
+     */
+    @Cacheable(value = CacheService.ROUTE_CACHE, keyGenerator = "routeCacheKeyGenerator", sync = true)
+    public CompactRoutesDto findCompactRoutes(String originCode, String destinationCode, LocalDate travelDate,
+                                              int maxFlights, int maxSegments) {
+        validateBounds(maxFlights, maxSegments);
+        Timer.Sample sample = searchMetrics.start();
+        
+        // Validate locations exist
+        Location origin = findOrigin(originCode);
+        Location destination = findDestination(destinationCode);
+        
+        CompactRoutesDto routes = searchConsistently(travelDate,
+                () -> toCompact(searchRoutes(origin, destination, travelDate, maxFlights, maxSegments)));
+        cacheService.tagRouteSegments(
+                routeCacheKey(originCode, destinationCode, travelDate, maxFlights, maxSegments) + COMPACT_KEY_SUFFIX,
+                travelDate.getDayOfWeek().getValue(), origin.getId(), destination.getId(), maxFlights > 1,
+                routes.getTransportations().values());
+        searchMetrics.recordSearch(sample, RouteSearchMetrics.SEARCH_COMPACT, travelDate, routes.getRoutes().size());
+        return routes;
+    }
+
+    /**
+     * Find one page of routes ranked by the given sort order
+     * 
+     * The bounded search is run with increasing segment limits so routes are ranked in order of
+     * their segment count, and the enumeration stops as soon as no remaining route can enter the
+     * page (see {@link TopRoutes}). Only the routes of the page are mapped to DTOs.
+     * A cursor refers to the position of a route in the enumeration, pages of a timetable that
+     * changed in between may skip or repeat routes. A cursor of another search is rejected.
+     * 
+     * @param originCode Code of the origin location
+     * @param destinationCode Code of the destination location
+     * @param travelDate Date of travel
+     * @param maxFlights Maximum number of flights (1 to {@value #MAX_FLIGHTS_LIMIT})
+     * @param maxSegments Maximum number of segments (1 to {@value #MAX_SEGMENTS_LIMIT})
+     * @param sort Ranking of the routes
+     * @param preferredTypes Transfer types preferred by {@link RouteSort#PREFERRED_TYPES}
+     * @param limit Page size (1 to {@value #MAX_PAGE_SIZE})
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @return Page of routes and the cursor of the next page
+     */
+    public RoutePageDto findRoutePage(String originCode, String destinationCode, LocalDate travelDate,
+                                      int maxFlights, int maxSegments, RouteSort sort,
+                                      Collection<TransportationType> preferredTypes, int limit, String cursor) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        validateBounds(maxFlights, maxSegments);
+        Timer.Sample sample = searchMetrics.start();
+        
+        // Validate locations exist
+        Location origin = findOrigin(originCode);
+        Location destination = findDestination(destinationCode);
+        
+        RouteGraphIndex.DayIndex timetable = searchMetrics.phase(RouteSearchMetrics.PHASE_FLIGHT_FETCH,
+                () -> routeGraphIndex.forDay(travelDate.getDayOfWeek().getValue()));
+        
+        // Cursors are bound to the search they were issued for
+        String searchKey = origin.getId() + "-" + destination.getId() + ":" + travelDate + ":"
+                + maxFlights + ":" + maxSegments;
+        TopRoutes topRoutes = searchMetrics.phase(RouteSearchMetrics.PHASE_TRANSFER_EXPANSION, () -> {
+            TopRoutes top = new TopRoutes(sort, preferredTypes, limit, searchKey, cursor);
+            boolean[] settled = {false};
+            for (int segments = 1; segments <= maxSegments && !settled[0]; segments++) {
+                int level = segments;
+                BoundedRouteSearch search =
+                        new BoundedRouteSearch(timetable, origin.getId(), destination.getId(), maxFlights, level);
+                search.search(route -> {
+                    // Shorter routes were ranked by the previous levels
+                    if (route.size() < level) {
+                        return true;
+                    }
+                    settled[0] = !top.offer(route);
+                    return !settled[0];
+                });
+                searchMetrics.recordFlightsScanned(search.getFlightsScanned());
+            }
+            return top;
+        });
+        
+        List<List<TransportationDto>> routes = searchMetrics.phase(RouteSearchMetrics.PHASE_DTO_MAPPING, () -> {
+            Map<Long, TransportationDto> dtos = new HashMap<>();
+            return topRoutes.page().stream()
+                    .map(route -> toDtos(route, dtos))
+                    .collect(Collectors.toList());
+        });
+        searchMetrics.recordSearch(sample, RouteSearchMetrics.SEARCH_PAGE, travelDate, routes.size());
+        return new RoutePageDto(routes, topRoutes.nextCursor());
+    }
+
+    /**
+     * Map every transportation once, routes sharing a segment share its DTO
+     */
+    private RouteStream toDtos(TransportationRoutes routes) {
+        return sink -> {
+            Map<Long, TransportationDto> dtos = new HashMap<>();
+            routes.forEach(route -> sink.accept(toDtos(route, dtos)));
+        };
+    }
+
+    /**
+     * Collect the routes of a search, expanding and mapping them as separately timed phases
+     */
+    private List<List<TransportationDto>> toDtoList(TransportationRoutes routes) {
+        List<List<Transportation>> expanded = expand(routes);
+        return searchMetrics.phase(RouteSearchMetrics.PHASE_DTO_MAPPING, () -> {
+            Map<Long, TransportationDto> dtos = new HashMap<>();
+            List<List<TransportationDto>> mapped = new ArrayList<>(expanded.size());
+            for (List<Transportation> route : expanded) {
+                mapped.add(toDtos(route, dtos));
+            }
+            return mapped;
+        });
+    }
+
+    private CompactRoutesDto toCompact(TransportationRoutes routes) {
+        List<List<Transportation>> expanded = expand(routes);
+        return searchMetrics.phase(RouteSearchMetrics.PHASE_DTO_MAPPING, () -> {
+            Map<Long, TransportationDto> transportations = new LinkedHashMap<>();
+            List<List<Long>> routeIds = new ArrayList<>(expanded.size());
+            for (List<Transportation> route : expanded) {
+                List<Long> ids = new ArrayList<>(route.size());
+                for (Transportation transportation : route) {
+                    transportations.computeIfAbsent(transportation.getId(), id -> transportationService.mapToDto(transportation));
+                    ids.add(transportation.getId());
+                }
+                routeIds.add(ids);
+            }
+            return new CompactRoutesDto(transportations, routeIds);
+        });
+    }
+
+    private List<List<Transportation>> expand(TransportationRoutes routes) {
+        return searchMetrics.phase(RouteSearchMetrics.PHASE_TRANSFER_EXPANSION, () -> {
+            List<List<Transportation>> expanded = new ArrayList<>();
+            routes.forEach(expanded::add);
+            return expanded;
+        });
+    }
+
+    /**
+     * Map a route to DTOs, reusing the DTO of a transportation already mapped
+     */
+    private List<TransportationDto> toDtos(List<Transportation> route, Map<Long, TransportationDto> dtos) {
+        return route.stream()
+                .map(t -> dtos.computeIfAbsent(t.getId(), id -> transportationService.mapToDto(t)))
+                .collect(Collectors.toList());
+    }
+
+    private Location findOrigin(String originCode) {
+        return searchMetrics.phase(RouteSearchMetrics.PHASE_LOCATION_LOOKUP,
+                        () -> locationRepository.findByLocationCode(normalizeCode(originCode)))
+                .orElseThrow(() -> new ResourceNotFoundException("Origin location not found with code: " + originCode));
+    }
+
+    private Location findDestination(String destinationCode) {
+        return searchMetrics.phase(RouteSearchMetrics.PHASE_LOCATION_LOOKUP,
+                        () -> locationRepository.findByLocationCode(normalizeCode(destinationCode)))
+                .orElseThrow(() -> new ResourceNotFoundException("Destination location not found with code: " + destinationCode));
+    }
+
+    private void validateBounds(int maxFlights, int maxSegments) {
+        if (maxFlights < 1 || maxFlights > MAX_FLIGHTS_LIMIT) {
+            throw new BadRequestException("maxFlights must be between 1 and " + MAX_FLIGHTS_LIMIT);
+        }
+        if (maxSegments < 1 || maxSegments > MAX_SEGMENTS_LIMIT) {
+            throw new BadRequestException("maxSegments must be between 1 and " + MAX_SEGMENTS_LIMIT);
+        }
+    }
+
     /**
      * Find valid routes using a specific flight as the main transportation
      */
-    private void findValidRoutesWithFlight(Location origin, Location destination, int dayOfWeek, 
-                                        Transportation flight, List<List<TransportationDto>> validRoutes) {
+    private void findValidRoutesWithFlight(Location origin, Location destination, RouteGraphIndex.DayIndex timetable,
+                                        Transportation flight, Consumer<List<Transportation>> sink) {
         
         Location flightOrigin = flight.getOriginLocation();
         Location flightDestination = flight.getDestinationLocation();
@@ -90,85 +549,72 @@ public class RouteService {
         if (flightOrigin.getId().equals(origin.getId()) && flightDestination.getId().equals(destination.getId())) {
             List<Transportation> route = new ArrayList<>();
             route.add(flight);
-            validRoutes.add(route.stream().map(transportationService::mapToDto).collect(Collectors.toList()));
+            sink.accept(route);
         }
         
         // Case 2: Before-flight transfer + Flight
         if (flightDestination.getId().equals(destination.getId())) {
-            findBeforeFlightTransfers(origin, flight, dayOfWeek, validRoutes);
+            findBeforeFlightTransfers(origin, flight, timetable, sink);
         }
         
         // Case 3: Flight + After-flight transfer
         if (flightOrigin.getId().equals(origin.getId())) {
-            findAfterFlightTransfers(flight, destination, dayOfWeek, validRoutes);
+            findAfterFlightTransfers(flight, destination, timetable, sink);
         }
         
         // Case 4: Before-flight transfer + Flight + After-flight transfer
-        findCompleteRoutes(origin, flight, destination, dayOfWeek, validRoutes);
+        findCompleteRoutes(origin, flight, destination, timetable, sink);
     }
     
     /**
      * Find valid before-flight transfers
      */
-    private void findBeforeFlightTransfers(Location origin, Transportation flight, int dayOfWeek,
-                                           List<List<TransportationDto>> validRoutes) {
-        // Find all non-flight transportations from origin to flight origin that operate on the given day
-        List<Transportation> beforeFlightOptions = transportationRepository.findByOperatingDay(dayOfWeek)
-                .stream()
-                .filter(t -> t.getTransportationType() != TransportationType.FLIGHT)
-                .filter(t -> t.getOriginLocation().getId().equals(origin.getId()))
-                .filter(t -> t.getDestinationLocation().getId().equals(flight.getOriginLocation().getId()))
-                .collect(Collectors.toList());
+    private void findBeforeFlightTransfers(Location origin, Transportation flight, RouteGraphIndex.DayIndex timetable,
+                                           Consumer<List<Transportation>> sink) {
+        // Non-flight transportations from origin to flight origin that operate on the given day
+        List<Transportation> beforeFlightOptions =
+                timetable.getTransfers(origin.getId(), flight.getOriginLocation().getId());
         
         for (Transportation beforeFlight : beforeFlightOptions) {
             List<Transportation> route = new ArrayList<>();
             route.add(beforeFlight);
             route.add(flight);
-            validRoutes.add(route.stream().map(transportationService::mapToDto).collect(Collectors.toList()));
+            sink.accept(route);
         }
     }
     
     /**
      * Find valid after-flight transfers
      */
-    private void findAfterFlightTransfers(Transportation flight, Location destination, int dayOfWeek,
-                                          List<List<TransportationDto>> validRoutes) {
-        // Find all non-flight transportations from flight destination to final destination that operate on the given day
-        List<Transportation> afterFlightOptions = transportationRepository.findByOperatingDay(dayOfWeek)
-                .stream()
-                .filter(t -> t.getTransportationType() != TransportationType.FLIGHT)
-                .filter(t -> t.getOriginLocation().getId().equals(flight.getDestinationLocation().getId()))
-                .filter(t -> t.getDestinationLocation().getId().equals(destination.getId()))
-                .collect(Collectors.toList());
+    private void findAfterFlightTransfers(Transportation flight, Location destination, RouteGraphIndex.DayIndex timetable,
+                                          Consumer<List<Transportation>> sink) {
+        // Non-flight transportations from flight destination to final destination that operate on the given day
+        List<Transportation> afterFlightOptions =
+                timetable.getTransfers(flight.getDestinationLocation().getId(), destination.getId());
         
         for (Transportation afterFlight : afterFlightOptions) {
             List<Transportation> route = new ArrayList<>();
             route.add(flight);
             route.add(afterFlight);
-            validRoutes.add(route.stream().map(transportationService::mapToDto).collect(Collectors.toList()));
+            sink.accept(route);
         }
     }
     
     /**
      * Find complete routes (before-flight + flight + after-flight)
      */
-    private void findCompleteRoutes(Location origin, Transportation flight, Location destination, int dayOfWeek,
-                                    List<List<TransportationDto>> validRoutes) {
+    private void findCompleteRoutes(Location origin, Transportation flight, Location destination,
+                                    RouteGraphIndex.DayIndex timetable, Consumer<List<Transportation>> sink) {
         // Find all valid before-flight transfers
-        List<Transportation> beforeFlightOptions = transportationRepository.findByOperatingDay(dayOfWeek)
-                .stream()
-                .filter(t -> t.getTransportationType() != TransportationType.FLIGHT)
-                .filter(t -> t.getOriginLocation().getId().equals(origin.getId()))
-                .filter(t -> t.getDestinationLocation().getId().equals(flight.getOriginLocation().getId()))
-                .collect(Collectors.toList());
+        List<Transportation> beforeFlightOptions =
+                timetable.getTransfers(origin.getId(), flight.getOriginLocation().getId());
+        if (beforeFlightOptions.isEmpty()) {
+            return;
+        }
         
         // Find all valid after-flight transfers
-        List<Transportation> afterFlightOptions = transportationRepository.findByOperatingDay(dayOfWeek)
-                .stream()
-                .filter(t -> t.getTransportationType() != TransportationType.FLIGHT)
-                .filter(t -> t.getOriginLocation().getId().equals(flight.getDestinationLocation().getId()))
-                .filter(t -> t.getDestinationLocation().getId().equals(destination.getId()))
-                .collect(Collectors.toList());
+        List<Transportation> afterFlightOptions =
+                timetable.getTransfers(flight.getDestinationLocation().getId(), destination.getId());
         
         // Create all possible combinations
         for (Transportation beforeFlight : beforeFlightOptions) {
@@ -177,8 +623,16 @@ public class RouteService {
                 route.add(beforeFlight);
                 route.add(flight);
                 route.add(afterFlight);
-                validRoutes.add(route.stream().map(transportationService::mapToDto).collect(Collectors.toList()));
+                sink.accept(route);
             }
         }
     }
+
+    /**
+     * Routes of a validated search as the transportation entities, before mapping to DTOs
+     */
+    @FunctionalInterface
+    private interface TransportationRoutes {
+        void forEach(Consumer<List<Transportation>> sink);
+    }
 }
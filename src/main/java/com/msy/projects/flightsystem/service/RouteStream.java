@@ -0,0 +1,20 @@
+package com.msy.projects.flightsystem.service;
+
+import com.msy.projects.flightsystem.dto.TransportationDto;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Routes of a validated search that are produced one at a time instead of collected into a list
+ */
+@FunctionalInterface
+public interface RouteStream {
+
+    /**
+     * Run the search, passing every route to the sink as soon as it is found
+     *
+     * @param sink Receiver of the routes (as lists of transportation segments)
+     */
+    void forEach(Consumer<List<TransportationDto>> sink);
+}
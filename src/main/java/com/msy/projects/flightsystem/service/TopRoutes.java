@@ -0,0 +1,133 @@
+package com.msy.projects.flightsystem.service;
+
+import com.msy.projects.flightsystem.exception.BadRequestException;
+import com.msy.projects.flightsystem.model.RouteSort;
+import com.msy.projects.flightsystem.model.Transportation;
+import com.msy.projects.flightsystem.model.TransportationType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Bounded priority queue keeping the best limit + 1 routes after an optional cursor.
+ *
+ * Every route is ranked by (sort key, segment count, enumeration sequence), where the sort key
+ * is 0 for the best class of routes. Routes must be offered in non-decreasing segment count, so
+ * once the queue is full and its worst route has sort key 0 and no more segments than the route
+ * just offered, no later route can enter the page and {@link #offer} asks the search to stop.
+ * Cursors carry a short hash of the search they were issued for and are rejected by any other.
+ */
+class TopRoutes {
+
+    private static final Comparator<RankedRoute> RANKING = Comparator
+            .comparingInt(RankedRoute::sortKey)
+            .thenComparingInt(RankedRoute::segments)
+            .thenComparingLong(RankedRoute::sequence);
+
+    private final RouteSort sort;
+    private final Set<TransportationType> preferredTypes;
+    private final int limit;
+    private final String searchHash;
+    private final RankedRoute after;
+    private final PriorityQueue<RankedRoute> worstFirst;
+    private long nextSequence;
+
+    /**
+     * @param search Parameters of the search besides sort and preferred types, identifying the
+     *               enumeration the cursors of this search refer to
+     */
+    TopRoutes(RouteSort sort, Collection<TransportationType> preferredTypes, int limit, String search, String cursor) {
+        this.sort = sort;
+        this.preferredTypes = preferredTypes == null || preferredTypes.isEmpty()
+                ? EnumSet.noneOf(TransportationType.class)
+                : EnumSet.copyOf(preferredTypes);
+        this.limit = limit;
+        this.searchHash = searchHash(search + ":" + sort + ":" + this.preferredTypes);
+        this.after = cursor != null ? decodeCursor(cursor) : null;
+        this.worstFirst = new PriorityQueue<>(limit + 1, RANKING.reversed());
+    }
+
+    /**
+     * Offer the next route of the enumeration
+     *
+     * @return false when no later route can change the page
+     */
+    boolean offer(List<Transportation> route) {
+        RankedRoute ranked = new RankedRoute(sortKey(route), route.size(), nextSequence++, route);
+        if (after == null || RANKING.compare(ranked, after) > 0) {
+            if (worstFirst.size() <= limit) {
+                worstFirst.add(ranked);
+            } else if (RANKING.compare(ranked, worstFirst.peek()) < 0) {
+                worstFirst.poll();
+                worstFirst.add(ranked);
+            }
+        }
+
+        RankedRoute worst = worstFirst.peek();
+        return worstFirst.size() <= limit || worst.sortKey() > 0 || worst.segments() > route.size();
+    }
+
+    /**
+     * Routes of the page in ranking order
+     */
+    List<List<Transportation>> page() {
+        List<RankedRoute> ranked = sortedRoutes();
+        return ranked.subList(0, Math.min(limit, ranked.size())).stream()
+                .map(RankedRoute::route)
+                .toList();
+    }
+
+    /**
+     * Cursor continuing after the page, or null if no route follows it
+     */
+    String nextCursor() {
+        List<RankedRoute> ranked = sortedRoutes();
+        if (ranked.size() <= limit) {
+            return null;
+        }
+        RankedRoute last = ranked.get(limit - 1);
+        String cursor = searchHash + ":" + last.sortKey() + ":" + last.segments() + ":" + last.sequence();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<RankedRoute> sortedRoutes() {
+        List<RankedRoute> ranked = new ArrayList<>(worstFirst);
+        ranked.sort(RANKING);
+        return ranked;
+    }
+
+    private int sortKey(List<Transportation> route) {
+        return switch (sort) {
+            case SEGMENTS -> 0;
+            case FLIGHTS_ONLY -> route.stream()
+                    .allMatch(t -> t.getTransportationType() == TransportationType.FLIGHT) ? 0 : 1;
+            case PREFERRED_TYPES -> (int) route.stream()
+                    .filter(t -> t.getTransportationType() != TransportationType.FLIGHT)
+                    .filter(t -> !preferredTypes.contains(t.getTransportationType()))
+                    .count();
+        };
+    }
+
+    private RankedRoute decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 4 || !parts[0].equals(searchHash)) {
+                throw new BadRequestException("Cursor does not belong to this search");
+            }
+            return new RankedRoute(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+                    Long.parseLong(parts[3]), List.of());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    private static String searchHash(String search) {
+        CRC32 crc = new CRC32();
+        crc.update(search.getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+
+    private record RankedRoute(int sortKey, int segments, long sequence, List<Transportation> route) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.msy.projects.flightsystem.service;
+
+import com.msy.projects.flightsystem.model.Transportation;
+import com.msy.projects.flightsystem.model.TransportationType;
+
+import java.util.List;
+
+/**
+ * Endpoints, type and days of a transportation, captured before the entity is modified
+ */
+public record TransportationEdge(Long originId, Long destinationId, boolean flight, List<Integer> operatingDays) {
+
+    public static TransportationEdge of(Transportation transportation) {
+        return new TransportationEdge(transportation.getOriginLocation().getId(),
+                transportation.getDestinationLocation().getId(),
+                transportation.getTransportationType() == TransportationType.FLIGHT,
+                List.copyOf(transportation.getOperatingDays()));
+    }
+}
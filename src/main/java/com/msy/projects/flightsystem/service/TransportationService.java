@@ -1,9 +1,13 @@
 package com.msy.projects.flightsystem.service;
 
+import com.msy.projects.flightsystem.dto.KeysetPageDto;
 import com.msy.projects.flightsystem.dto.TransportationDto;
+import com.msy.projects.flightsystem.exception.BadRequestException;
 import com.msy.projects.flightsystem.exception.ResourceNotFoundException;
 import com.msy.projects.flightsystem.model.Location;
+import com.msy.projects.flightsystem.model.OperatingDays;
 import com.msy.projects.flightsystem.model.Transportation;
+import com.msy.projects.flightsystem.model.TransportationType;
 import com.msy.projects.flightsystem.repository.LocationRepository;
 import com.msy.projects.flightsystem.repository.TransportationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,7 +16,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,29 +26,62 @@ public class TransportationService {
 
     private final TransportationRepository transportationRepository;
     private final LocationRepository locationRepository;
-    private final CacheService cacheService;
+    private final RouteCacheInvalidator routeCacheInvalidator;
+    private final RouteGraphIndex routeGraphIndex;
+    private final RouteMaterializer routeMaterializer;
+    private final KeysetPaging keysetPaging;
 
     @Autowired
     public TransportationService(TransportationRepository transportationRepository,
                                LocationRepository locationRepository,
-                               CacheService cacheService) {
+                               RouteCacheInvalidator routeCacheInvalidator,
+                               RouteGraphIndex routeGraphIndex,
+                               RouteMaterializer routeMaterializer,
+                               KeysetPaging keysetPaging) {
         this.transportationRepository = transportationRepository;
         this.locationRepository = locationRepository;
-        this.cacheService = cacheService;
+        this.routeCacheInvalidator = routeCacheInvalidator;
+        this.routeGraphIndex = routeGraphIndex;
+        this.routeMaterializer = routeMaterializer;
+        this.keysetPaging = keysetPaging;
     }
 
+    /**
+     * Get the transportations in id order, at most list.max-results of them
+     */
+    @Transactional(readOnly = true)
     public List<TransportationDto> getAllTransportations() {
-        return transportationRepository.findAll().stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+        return transportationRepository.findAllDtos(keysetPaging.maxResults());
+    }
+
+    /**
+     * Get one page of the transportations in id order, filters are ignored when null
+     *
+     * @param originCode Code of the origin location
+     * @param destinationCode Code of the destination location
+     * @param type Transportation type
+     * @param weekday Day of week the transportations operate on (1-7, where 1 is Monday)
+     * @param limit Page size (1 to {@value KeysetPaging#MAX_PAGE_SIZE})
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     */
+    @Transactional(readOnly = true)
+    public KeysetPageDto<TransportationDto> getTransportationPage(String originCode, String destinationCode,
+                                                                  TransportationType type, Integer weekday,
+                                                                  int limit, String cursor) {
+        Integer dayBits = weekday != null ? Integer.valueOf(toOperatingDaysMask(List.of(weekday))) : null;
+        List<TransportationDto> rows = transportationRepository.findDtoPage(keysetPaging.afterId(cursor),
+                originCode, destinationCode, type, dayBits, keysetPaging.pageLimit(limit));
+        return keysetPaging.page(rows, limit, TransportationDto::getId);
     }
 
+    @Transactional(readOnly = true)
     public TransportationDto getTransportationById(Long id) {
         Transportation transportation = transportationRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Transportation not found with id: " + id));
         return mapToDto(transportation);
     }
 
+    @Transactional(readOnly = true)
     public List<TransportationDto> getTransportationsByOriginAndDestination(String originCode, String destCode) {
         Location origin = locationRepository.findByLocationCode(originCode)
                 .orElseThrow(() -> new ResourceNotFoundException("Origin location not found with code: " + originCode));
@@ -55,6 +94,7 @@ public class TransportationService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<TransportationDto> getTransportationsByOriginAndDate(String originCode, LocalDate date) {
         Location origin = locationRepository.findByLocationCode(originCode)
                 .orElseThrow(() -> new ResourceNotFoundException("Origin location not found with code: " + originCode));
@@ -80,12 +120,15 @@ public class TransportationService {
         transportation.setOriginLocation(origin);
         transportation.setDestinationLocation(destination);
         transportation.setTransportationType(transportationDto.getTransportationType());
-        transportation.setOperatingDays(transportationDto.getOperatingDays());
+        transportation.setOperatingDaysMask(toOperatingDaysMask(transportationDto.getOperatingDays()));
         
         Transportation savedTransportation = transportationRepository.save(transportation);
         
-        // Clear route cache as transportation data has changed
-        cacheService.clearRouteCache();
+        // Refresh the indexed days, then the materialized and cached routes that can use it
+        TransportationEdge created = TransportationEdge.of(savedTransportation);
+        routeGraphIndex.evictDays(savedTransportation.getOperatingDays());
+        routeMaterializer.transportationChanged(null, created);
+        routeCacheInvalidator.transportationChanged(savedTransportation.getId(), null, created);
         
         return mapToDto(savedTransportation);
     }
@@ -101,15 +144,23 @@ public class TransportationService {
         Location destination = locationRepository.findById(transportationDto.getDestinationLocationId())
                 .orElseThrow(() -> new ResourceNotFoundException("Destination location not found with id: " + transportationDto.getDestinationLocationId()));
         
+        // Remember the previous days, the transportation may no longer operate on them
+        Set<Integer> affectedDays = new HashSet<>(existingTransportation.getOperatingDays());
+        TransportationEdge previous = TransportationEdge.of(existingTransportation);
+        
         existingTransportation.setOriginLocation(origin);
         existingTransportation.setDestinationLocation(destination);
         existingTransportation.setTransportationType(transportationDto.getTransportationType());
-        existingTransportation.setOperatingDays(transportationDto.getOperatingDays());
+        existingTransportation.setOperatingDaysMask(toOperatingDaysMask(transportationDto.getOperatingDays()));
         
         Transportation updatedTransportation = transportationRepository.save(existingTransportation);
+        affectedDays.addAll(updatedTransportation.getOperatingDays());
         
-        // Clear route cache as transportation data has changed
-        cacheService.clearRouteCache();
+        // Refresh the indexed days, then the materialized and cached routes that used or can use it
+        TransportationEdge updated = TransportationEdge.of(updatedTransportation);
+        routeGraphIndex.evictDays(affectedDays);
+        routeMaterializer.transportationChanged(previous, updated);
+        routeCacheInvalidator.transportationChanged(id, previous, updated);
         
         return mapToDto(updatedTransportation);
     }
@@ -120,8 +171,19 @@ public class TransportationService {
                 .orElseThrow(() -> new ResourceNotFoundException("Transportation not found with id: " + id));
         transportationRepository.delete(transportation);
         
-        // Clear route cache as transportation data has changed
-        cacheService.clearRouteCache();
+        // Refresh the indexed days, then the materialized and cached routes that used it
+        TransportationEdge deleted = TransportationEdge.of(transportation);
+        routeGraphIndex.evictDays(transportation.getOperatingDays());
+        routeMaterializer.transportationChanged(deleted, null);
+        routeCacheInvalidator.transportationChanged(id, deleted, null);
+    }
+
+    private short toOperatingDaysMask(List<Integer> operatingDays) {
+        try {
+            return OperatingDays.toMask(operatingDays);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
     }
 
     public TransportationDto mapToDto(Transportation transportation) {
@@ -1,5 +1,6 @@
 package com.msy.projects.flightsystem.service;
 
+import com.msy.projects.flightsystem.dto.KeysetPageDto;
 import com.msy.projects.flightsystem.dto.UserRequestDto;
 import com.msy.projects.flightsystem.dto.UserResponseDto;
 import com.msy.projects.flightsystem.entity.User;
@@ -17,11 +18,13 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final KeysetPaging keysetPaging;
 
     @Autowired
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, KeysetPaging keysetPaging) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.keysetPaging = keysetPaging;
     }
 
     /**
@@ -64,14 +67,28 @@ public class UserService {
     }
     
     /**
-     * Get all users as DTOs
+     * Get all users as DTOs, in id order and at most list.max-results of them
      * @return list of user response DTOs
      */
     public List<UserResponseDto> getAllUsersDto() {
-        return userRepository.findAll().stream()
+        return userRepository.findByIdGreaterThanOrderByIdAsc(0L, keysetPaging.maxResults()).stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
+    
+    /**
+     * Get one page of the users as DTOs, in id order
+     * @param limit page size (1 to {@value KeysetPaging#MAX_PAGE_SIZE})
+     * @param cursor cursor returned with the previous page, or null for the first page
+     * @return page of user response DTOs and the cursor of the next page
+     */
+    public KeysetPageDto<UserResponseDto> getUserPage(int limit, String cursor) {
+        List<UserResponseDto> rows = userRepository
+                .findByIdGreaterThanOrderByIdAsc(keysetPaging.afterId(cursor), keysetPaging.pageLimit(limit)).stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+        return keysetPaging.page(rows, limit, UserResponseDto::getId);
+    }
 
     /**
      * Get user by ID
@@ -0,0 +1,8 @@
+-- Drop the legacy operating days collection table once every node reads operating_days_mask,
+-- i.e. after operating-days-mask.sql ran and the rolling deploy finished.
+--
+-- Hibernate no longer maps the table: its foreign key blocks deleting older transportations,
+-- and while it exists OperatingDaysMigration refills masks cleared to no day on each start.
+-- Setting migration.operating-days.drop-legacy-table=true drops it on the next start instead.
+
+DROP TABLE transportation_operating_days;
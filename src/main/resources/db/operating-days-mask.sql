@@ -0,0 +1,19 @@
+-- Move Transportation.operatingDays from the transportation_operating_days collection table
+-- to a 7-bit weekday mask on transportations (bit 0 = Monday, ..., bit 6 = Sunday).
+--
+-- Run this before deploying to environments using spring.jpa.hibernate.ddl-auto=validate.
+-- Environments using ddl-auto=update get the column from Hibernate and the data from
+-- OperatingDaysMigration on startup.
+
+ALTER TABLE transportations ADD COLUMN IF NOT EXISTS operating_days_mask SMALLINT NOT NULL DEFAULT 0;
+
+UPDATE transportations t
+SET operating_days_mask = (
+    SELECT COALESCE(SUM(DISTINCT CAST(POWER(2, d.day_of_week - 1) AS INTEGER)), 0)
+    FROM transportation_operating_days d
+    WHERE d.transportation_id = t.id AND d.day_of_week BETWEEN 1 AND 7
+)
+WHERE t.operating_days_mask = 0;
+
+-- Nodes of the previous version still read transportation_operating_days, drop it with
+-- operating-days-drop-legacy.sql once every node runs this version.
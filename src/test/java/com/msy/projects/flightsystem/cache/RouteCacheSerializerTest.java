@@ -0,0 +1,137 @@
+package com.msy.projects.flightsystem.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import com.msy.projects.flightsystem.dto.CompactRoutesDto;
+import com.msy.projects.flightsystem.dto.TransportationDto;
+import com.msy.projects.flightsystem.model.TransportationType;
+
+public class RouteCacheSerializerTest {
+
+    private RouteCacheSerializer serializer;
+    private GenericJackson2JsonRedisSerializer jsonSerializer;
+    private List<List<TransportationDto>> routes;
+
+    @BeforeEach
+    void setUp() {
+        serializer = new RouteCacheSerializer(true);
+        jsonSerializer = new GenericJackson2JsonRedisSerializer();
+
+        TransportationDto bus = new TransportationDto(1L, 1L, "TAK", 2L, "IST", TransportationType.BUS, List.of(1, 2, 3));
+        TransportationDto flight = new TransportationDto(2L, 2L, "IST", 3L, "LHR", TransportationType.FLIGHT, List.of(1, 7));
+        TransportationDto uber = new TransportationDto(300L, 3L, "LHR", 4L, "WEM", TransportationType.UBER, null);
+        routes = List.of(List.of(flight), List.of(bus, flight), List.of(bus, flight, uber));
+    }
+
+    @Test
+    void deserialize_OfSerializedRoutes_ShouldRestoreEqualRoutes() {
+        // Act
+        Object restored = serializer.deserialize(serializer.serialize(routes));
+
+        // Assert
+        assertEquals(routes, restored);
+    }
+
+    @Test
+    void deserialize_ShouldNotShareSegmentInstancesBetweenRoutes() {
+        // Act
+        @SuppressWarnings("unchecked")
+        List<List<TransportationDto>> restored = (List<List<TransportationDto>>) serializer.deserialize(serializer.serialize(routes));
+
+        // Assert
+        assertNotSame(restored.get(0).get(0), restored.get(1).get(1));
+    }
+
+    @Test
+    void serialize_ShouldBeSmallerThanJson() {
+        // Act
+        byte[] binary = serializer.serialize(routes);
+        byte[] json = jsonSerializer.serialize(routes);
+
+        // Assert
+        assertTrue(binary.length * 5 < json.length, binary.length + " bytes vs " + json.length + " bytes of JSON");
+    }
+
+    @Test
+    void deserialize_OfJsonValue_ShouldFallBackToJson() {
+        // Arrange
+        byte[] json = jsonSerializer.serialize(new ArrayList<>(routes));
+
+        // Act
+        Object restored = serializer.deserialize(json);
+
+        // Assert
+        assertEquals(routes, restored);
+    }
+
+    @Test
+    void deserialize_OfUnknownVersion_ShouldReturnNull() {
+        // Arrange
+        byte[] bytes = serializer.serialize(routes);
+        bytes[2] = RouteCacheSerializer.STAMPED_VERSION + 1;
+
+        // Act & Assert
+        assertNull(serializer.deserialize(bytes));
+    }
+
+    @Test
+    void serialize_OfOtherValues_ShouldWriteJson() {
+        // Act
+        byte[] bytes = serializer.serialize("IST-LHR-MONDAY");
+
+        // Assert
+        assertEquals("\"IST-LHR-MONDAY\"", new String(bytes));
+        assertEquals("IST-LHR-MONDAY", serializer.deserialize(bytes));
+    }
+
+    @Test
+    void deserialize_OfCompactRoutes_ShouldRestoreEqualValue() {
+        // Arrange
+        TransportationDto flight = routes.get(0).get(0);
+        CompactRoutesDto compact = new CompactRoutesDto(new LinkedHashMap<>(Map.of(flight.getId(), flight)),
+            List.of(List.of(flight.getId())));
+
+        // Act
+        Object restored = serializer.deserialize(serializer.serialize(compact));
+
+        // Assert
+        assertEquals(compact, restored);
+    }
+
+    @Test
+    void deserialize_OfStampedValues_ShouldRestoreValueAndWriteTime() {
+        // Arrange
+        StampedValue stampedRoutes = new StampedValue(routes, 1_744_000_000_000L);
+        StampedValue stampedKey = new StampedValue("IST-LHR-MONDAY", 1_744_000_000_000L);
+
+        // Act
+        Object restoredRoutes = serializer.deserialize(serializer.serialize(stampedRoutes));
+        Object restoredKey = new RouteCacheSerializer(false).deserialize(new RouteCacheSerializer(false).serialize(stampedKey));
+
+        // Assert
+        assertEquals(stampedRoutes, restoredRoutes);
+        assertEquals(stampedKey, restoredKey);
+    }
+
+    @Test
+    void serialize_WhenBinaryDisabled_ShouldWriteJsonButStillReadBinary() {
+        // Arrange
+        RouteCacheSerializer jsonOnly = new RouteCacheSerializer(false);
+
+        // Act
+        byte[] bytes = jsonOnly.serialize(routes);
+
+        // Assert
+        assertEquals('[', bytes[0]);
+        assertEquals(routes, jsonOnly.deserialize(serializer.serialize(routes)));
+    }
+}
@@ -0,0 +1,32 @@
+package com.msy.projects.flightsystem.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.msy.projects.flightsystem.dto.CompactRoutesDto;
+import com.msy.projects.flightsystem.dto.TransportationDto;
+
+public class RouteCacheTtlTest {
+
+    private final RouteCacheTtl routeCacheTtl = new RouteCacheTtl(Duration.ofHours(1), Duration.ofMinutes(5));
+
+    @Test
+    void getTimeToLive_OfEmptyResults_ShouldUseEmptyResultTtl() {
+        // Act & Assert
+        assertEquals(Duration.ofMinutes(5), routeCacheTtl.getTimeToLive("IST-JFK-MONDAY", List.of()));
+        assertEquals(Duration.ofMinutes(5),
+            routeCacheTtl.getTimeToLive("IST-JFK-MONDAY-COMPACT", new CompactRoutesDto(Map.of(), List.of())));
+    }
+
+    @Test
+    void getTimeToLive_OfRoutes_ShouldUseRegularTtl() {
+        // Act & Assert
+        assertEquals(Duration.ofHours(1),
+            routeCacheTtl.getTimeToLive("IST-LHR-MONDAY", List.of(List.of(new TransportationDto()))));
+    }
+}
@@ -0,0 +1,348 @@
+package com.msy.projects.flightsystem.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class TwoTierCacheTest {
+
+    private static final RedisCacheWriter.TtlFunction TTL = RedisCacheWriter.TtlFunction.just(Duration.ofHours(1));
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private ConcurrentMapCacheManager remoteCacheManager;
+    private SimpleMeterRegistry meterRegistry;
+    private TwoTierCacheManager cacheManager;
+    private TwoTierCache cache;
+
+    @BeforeEach
+    void setUp() {
+        remoteCacheManager = new ConcurrentMapCacheManager("routeCache");
+        meterRegistry = new SimpleMeterRegistry();
+        cacheManager = new TwoTierCacheManager(remoteCacheManager, redisTemplate, meterRegistry,
+            "cache:invalidation", 100, 0, TTL, null, null);
+        cache = (TwoTierCache) cacheManager.getCache("routeCache");
+        // Unstamped entries read from L2 are fresh unless a test says otherwise
+        lenient().when(redisTemplate.getExpire(anyString(), eq(TimeUnit.MILLISECONDS)))
+            .thenReturn(Duration.ofHours(1).toMillis());
+    }
+
+    @Test
+    void get_WhenOnlyInRedis_ShouldServeLaterReadsFromLocalCache() {
+        // Arrange
+        remoteCacheManager.getCache("routeCache").put("IST-LHR-2025-04-07", List.of());
+
+        // Act
+        cache.get("IST-LHR-2025-04-07");
+        remoteCacheManager.getCache("routeCache").evict("IST-LHR-2025-04-07");
+        Cache.ValueWrapper second = cache.get("IST-LHR-2025-04-07");
+
+        // Assert
+        assertNotNull(second);
+        assertEquals(1.0, gets("l1", "hit"));
+        assertEquals(1.0, gets("l1", "miss"));
+        assertEquals(1.0, gets("l2", "hit"));
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", "routeCache").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void getAllLocal_ShouldReturnOnlyLocalEntriesWithoutReadingRedis() {
+        // Arrange
+        cache.put("IST-LHR-2025-04-07", List.of());
+        remoteCacheManager.getCache("routeCache").put("SAW-LHR-2025-04-07", List.of());
+
+        // Act
+        Map<Object, Object> values = cache.getAllLocal(List.of("IST-LHR-2025-04-07", "SAW-LHR-2025-04-07"));
+
+        // Assert
+        assertEquals(Map.of("IST-LHR-2025-04-07", List.of()), values);
+        assertEquals(1.0, gets("l1", "hit"));
+        assertEquals(1.0, gets("l1", "miss"));
+        assertEquals(0.0, gets("l2", "hit"));
+    }
+
+    @Test
+    void get_WhenStampedEntryAboutToExpireInRedis_ShouldNotOutliveItInLocalCache() {
+        // Arrange
+        remoteCacheManager.getCache("routeCache").put("IST-LHR-2025-04-07", writtenAgo(List.of("route"), 61));
+
+        // Act
+        Cache.ValueWrapper first = cache.get("IST-LHR-2025-04-07");
+        remoteCacheManager.getCache("routeCache").evict("IST-LHR-2025-04-07");
+        Cache.ValueWrapper second = cache.get("IST-LHR-2025-04-07");
+
+        // Assert
+        assertEquals(List.of("route"), first.get());
+        assertNull(second);
+        verify(redisTemplate, never()).getExpire(anyString(), any(TimeUnit.class));
+    }
+
+    @Test
+    void get_WhenUnstampedEntryExpiredInRedis_ShouldNotKeepLocalCopy() {
+        // Arrange
+        remoteCacheManager.getCache("routeCache").put("IST-LHR-2025-04-07", List.of("route"));
+        when(redisTemplate.getExpire("routeCache::IST-LHR-2025-04-07", TimeUnit.MILLISECONDS)).thenReturn(-2L);
+
+        // Act
+        Cache.ValueWrapper first = cache.get("IST-LHR-2025-04-07");
+        remoteCacheManager.getCache("routeCache").evict("IST-LHR-2025-04-07");
+        Cache.ValueWrapper second = cache.get("IST-LHR-2025-04-07");
+
+        // Assert
+        assertEquals(List.of("route"), first.get());
+        assertNull(second);
+    }
+
+    @Test
+    void evict_ShouldRemoveBothTiersAndPublishInvalidation() {
+        // Arrange
+        cache.put("IST-LHR-2025-04-07", List.of());
+
+        // Act
+        cache.evict("IST-LHR-2025-04-07");
+
+        // Assert
+        assertNull(cache.get("IST-LHR-2025-04-07"));
+        ArgumentCaptor<Object> message = ArgumentCaptor.forClass(Object.class);
+        verify(redisTemplate).convertAndSend(eq("cache:invalidation"), message.capture());
+        assertTrue(message.getValue().toString().endsWith("\trouteCache\tIST-LHR-2025-04-07"));
+        assertEquals(1.0, meterRegistry.get("cache.evictions").tag("cache", "routeCache").counter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "routeCache").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void onMessage_FromOtherNode_ShouldDropOnlyLocalEntries() {
+        // Arrange
+        when(redisTemplate.getValueSerializer()).thenReturn((RedisSerializer) new StringRedisSerializer());
+        cache.put("IST-LHR-2025-04-07", List.of());
+        cache.put("SAW-LHR-2025-04-07", List.of());
+        remoteCacheManager.getCache("routeCache").clear();
+
+        // Act
+        cacheManager.onMessage(message("other-node\trouteCache\tIST-LHR-2025-04-07"), null);
+
+        // Assert
+        assertNull(cache.get("IST-LHR-2025-04-07"));
+        assertNotNull(cache.get("SAW-LHR-2025-04-07"));
+        verify(redisTemplate, never()).convertAndSend(anyString(), any());
+    }
+
+    @Test
+    void get_WhenInvalidatedDuringRemoteRead_ShouldNotKeepLocalCopy() {
+        // Arrange
+        Cache remote = mock(Cache.class);
+        TwoTierCache racingCache = new TwoTierCache("racing", remote,
+            Caffeine.newBuilder().build(), cacheManager, meterRegistry);
+        when(remote.get("IST-LHR-2025-04-07")).thenAnswer(inv -> {
+            racingCache.invalidateLocal(List.of("IST-LHR-2025-04-07"));
+            return new SimpleValueWrapper(List.of());
+        });
+
+        // Act
+        racingCache.get("IST-LHR-2025-04-07");
+        racingCache.get("IST-LHR-2025-04-07");
+
+        // Assert
+        verify(remote, times(2)).get("IST-LHR-2025-04-07");
+    }
+
+    @Test
+    void getWithLoader_WhenMissedConcurrently_ShouldLoadOnce() throws Exception {
+        // Arrange
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loaderCalls = new AtomicInteger();
+        Callable<List<String>> loader = () -> {
+            loaderCalls.incrementAndGet();
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of("route");
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            // Act
+            Future<List<String>> first = executor.submit(() -> cache.get("IST-LHR-MONDAY", loader));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            List<Future<List<String>>> others = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                others.add(executor.submit(() -> cache.get("IST-LHR-MONDAY", loader)));
+            }
+            while (loads("coalesced") < 3) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            // Assert
+            assertEquals(List.of("route"), first.get(5, TimeUnit.SECONDS));
+            for (Future<List<String>> other : others) {
+                assertEquals(List.of("route"), other.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loaderCalls.get());
+        assertEquals(1, loads("computed"));
+        assertNotNull(remoteCacheManager.getCache("routeCache").get("IST-LHR-MONDAY"));
+    }
+
+    @Test
+    void getWithLoader_WhenLoaderFails_ShouldThrowAndNotCache() {
+        // Arrange
+        Callable<List<String>> loader = () -> {
+            throw new IllegalStateException("search failed");
+        };
+
+        // Act
+        Cache.ValueRetrievalException exception = assertThrows(Cache.ValueRetrievalException.class,
+            () -> cache.get("IST-LHR-MONDAY", loader));
+
+        // Assert
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+        assertNull(cache.get("IST-LHR-MONDAY"));
+    }
+
+    @Test
+    void getWithLoader_WhenAnotherNodeHoldsLoadLock_ShouldWaitForItsValue() {
+        // Arrange
+        RedisLoadLock loadLock = mock(RedisLoadLock.class);
+        when(loadLock.tryLock("routeCache", "IST-LHR-MONDAY")).thenReturn(false);
+        when(loadLock.getMaximumWait()).thenReturn(Duration.ofSeconds(5));
+        TwoTierCache lockedCache = (TwoTierCache) new TwoTierCacheManager(remoteCacheManager, redisTemplate,
+            meterRegistry, "cache:invalidation", 100, 0, TTL, loadLock, null).getCache("routeCache");
+        Cache remote = remoteCacheManager.getCache("routeCache");
+        AtomicInteger polls = new AtomicInteger();
+        when(loadLock.getPollInterval()).thenAnswer(inv -> {
+            // The other node finishes while this one is waiting
+            if (polls.incrementAndGet() == 3) {
+                remote.put("IST-LHR-MONDAY", List.of("remote route"));
+            }
+            return Duration.ofMillis(10);
+        });
+
+        // Act
+        List<String> routes = lockedCache.get("IST-LHR-MONDAY", () -> List.of("local route"));
+
+        // Assert
+        assertEquals(List.of("remote route"), routes);
+        assertEquals(1, loads("remote"));
+        assertEquals(0, loads("computed"));
+        verify(loadLock, never()).unlock(any(), any());
+    }
+
+    @Test
+    void getWithLoader_WhenEntryPastRefreshPoint_ShouldReturnItAndRefreshInBackground() {
+        // Arrange
+        TwoTierCache refreshingCache = refreshingCache();
+        remoteCacheManager.getCache("routeCache").put("IST-LHR-MONDAY", writtenAgo(List.of("old route"), 50));
+
+        // Act
+        List<String> first = refreshingCache.get("IST-LHR-MONDAY", () -> List.of("new route"));
+        List<String> second = refreshingCache.get("IST-LHR-MONDAY", () -> List.of("newer route"));
+
+        // Assert
+        assertEquals(List.of("old route"), first);
+        assertEquals(List.of("new route"), second);
+        assertEquals(List.of("new route"),
+            StampedValue.unwrap(remoteCacheManager.getCache("routeCache").get("IST-LHR-MONDAY").get()));
+        assertEquals(1, loads("refreshed"));
+    }
+
+    @Test
+    void getWithLoader_WhenEntryBeforeRefreshPoint_ShouldNotRunLoader() {
+        // Arrange
+        TwoTierCache refreshingCache = refreshingCache();
+        remoteCacheManager.getCache("routeCache").put("IST-LHR-MONDAY", writtenAgo(List.of("route"), 10));
+        AtomicInteger loaderCalls = new AtomicInteger();
+
+        // Act
+        List<String> routes = refreshingCache.get("IST-LHR-MONDAY", () -> {
+            loaderCalls.incrementAndGet();
+            return List.of("new route");
+        });
+
+        // Assert
+        assertEquals(List.of("route"), routes);
+        assertEquals(0, loaderCalls.get());
+    }
+
+    @Test
+    void getWithLoader_WhenEvictedDuringRefresh_ShouldDropRefreshedValue() {
+        // Arrange
+        TwoTierCache refreshingCache = refreshingCache();
+        remoteCacheManager.getCache("routeCache").put("IST-LHR-MONDAY", writtenAgo(List.of("old route"), 50));
+
+        // Act
+        refreshingCache.get("IST-LHR-MONDAY", () -> {
+            refreshingCache.evict("IST-LHR-MONDAY");
+            return List.of("new route");
+        });
+
+        // Assert
+        assertNull(remoteCacheManager.getCache("routeCache").get("IST-LHR-MONDAY"));
+        assertEquals(0, loads("refreshed"));
+    }
+
+    private TwoTierCache refreshingCache() {
+        RefreshAhead refreshAhead = new RefreshAhead(TTL, 0.5, new SyncTaskExecutor());
+        return (TwoTierCache) new TwoTierCacheManager(remoteCacheManager, redisTemplate, meterRegistry,
+            "cache:invalidation", 100, 0, TTL, null, refreshAhead).getCache("routeCache");
+    }
+
+    private static StampedValue writtenAgo(Object value, int minutes) {
+        return new StampedValue(value, System.currentTimeMillis() - Duration.ofMinutes(minutes).toMillis());
+    }
+
+    private double loads(String result) {
+        return meterRegistry.get("cache.loads")
+            .tag("cache", "routeCache").tag("result", result)
+            .counter().count();
+    }
+
+    private double gets(String tier, String result) {
+        return meterRegistry.get("cache.tier.gets")
+            .tag("cache", "routeCache").tag("tier", tier).tag("result", result)
+            .counter().count();
+    }
+
+    private DefaultMessage message(String body) {
+        return new DefaultMessage("cache:invalidation".getBytes(StandardCharsets.UTF_8),
+            body.getBytes(StandardCharsets.UTF_8));
+    }
+}
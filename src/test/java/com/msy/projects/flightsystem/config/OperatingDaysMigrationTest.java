@@ -0,0 +1,126 @@
+package com.msy.projects.flightsystem.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.msy.projects.flightsystem.model.Location;
+import com.msy.projects.flightsystem.model.Transportation;
+import com.msy.projects.flightsystem.model.TransportationType;
+import com.msy.projects.flightsystem.repository.LocationRepository;
+import com.msy.projects.flightsystem.repository.TransportationRepository;
+
+@DataJpaTest
+@ActiveProfiles("test")
+// DDL commits implicitly, so the test cannot roll back and cleans up instead
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OperatingDaysMigrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private TransportationRepository transportationRepository;
+
+    private Transportation legacyFlight;
+
+    @BeforeEach
+    void setUp() {
+        Location istanbulAirport = locationRepository.save(new Location(null, "Istanbul Airport", "Turkey", "Istanbul", "IST"));
+        Location heathrowAirport = locationRepository.save(new Location(null, "Heathrow Airport", "UK", "London", "LHR"));
+        legacyFlight = new Transportation();
+        legacyFlight.setOriginLocation(istanbulAirport);
+        legacyFlight.setDestinationLocation(heathrowAirport);
+        legacyFlight.setTransportationType(TransportationType.FLIGHT);
+        legacyFlight = transportationRepository.saveAndFlush(legacyFlight);
+
+        // Collection table as generated for the former @ElementCollection
+        jdbcTemplate.execute("CREATE TABLE transportation_operating_days (transportation_id BIGINT NOT NULL, "
+                + "day_of_week INTEGER, FOREIGN KEY (transportation_id) REFERENCES transportations (id))");
+        jdbcTemplate.update("INSERT INTO transportation_operating_days VALUES (?, 1), (?, 3)",
+                legacyFlight.getId(), legacyFlight.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS transportation_operating_days");
+        transportationRepository.deleteAll();
+        locationRepository.deleteAll();
+    }
+
+    @Test
+    void run_WhenDropEnabled_ShouldMigrateDaysOnceAndDropLegacyTable() throws Exception {
+        // Arrange
+        OperatingDaysMigration migration = new OperatingDaysMigration(jdbcTemplate, true);
+
+        // Act
+        migration.run();
+        Transportation migrated = transportationRepository.findById(legacyFlight.getId()).orElseThrow();
+        migrated.setOperatingDays(List.of());
+        transportationRepository.save(migrated);
+        migration.run();
+
+        // Assert
+        Integer legacyTables = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES "
+                + "WHERE UPPER(TABLE_NAME) = 'TRANSPORTATION_OPERATING_DAYS'", Integer.class);
+        assertEquals(0, legacyTables);
+        assertEquals(List.of(), transportationRepository.findById(legacyFlight.getId()).orElseThrow().getOperatingDays());
+        transportationRepository.deleteById(legacyFlight.getId());
+        assertFalse(transportationRepository.existsById(legacyFlight.getId()));
+    }
+
+    @Test
+    void run_ShouldCopyLegacyDaysIntoMask() throws Exception {
+        // Act
+        new OperatingDaysMigration(jdbcTemplate, false).run();
+
+        // Assert
+        assertEquals(Arrays.asList(1, 3),
+                transportationRepository.findById(legacyFlight.getId()).orElseThrow().getOperatingDays());
+    }
+
+    @Test
+    void run_ByDefault_ShouldKeepLegacyTableAndLeaveMigratedMasks() throws Exception {
+        // Arrange
+        OperatingDaysMigration migration = new OperatingDaysMigration(jdbcTemplate, false);
+        migration.run();
+        Transportation migrated = transportationRepository.findById(legacyFlight.getId()).orElseThrow();
+        migrated.setOperatingDays(List.of(5));
+        transportationRepository.save(migrated);
+
+        // Act
+        migration.run();
+
+        // Assert
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transportation_operating_days", Integer.class));
+        assertEquals(List.of(5), transportationRepository.findById(legacyFlight.getId()).orElseThrow().getOperatingDays());
+    }
+
+    @Test
+    void run_WithInvalidLegacyDays_ShouldSkipThemAndMigrateTheOthers() throws Exception {
+        // Arrange
+        jdbcTemplate.update("INSERT INTO transportation_operating_days VALUES (?, 0), (?, 8), (?, NULL)",
+                legacyFlight.getId(), legacyFlight.getId(), legacyFlight.getId());
+
+        // Act
+        new OperatingDaysMigration(jdbcTemplate, false).run();
+
+        // Assert
+        assertEquals(Arrays.asList(1, 3),
+                transportationRepository.findById(legacyFlight.getId()).orElseThrow().getOperatingDays());
+    }
+}
@@ -0,0 +1,107 @@
+package com.msy.projects.flightsystem.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.msy.projects.flightsystem.model.Location;
+import com.msy.projects.flightsystem.model.Transportation;
+import com.msy.projects.flightsystem.model.TransportationType;
+import com.msy.projects.flightsystem.repository.LocationRepository;
+import com.msy.projects.flightsystem.repository.TransportationRepository;
+import com.msy.projects.flightsystem.service.CacheService;
+import com.msy.projects.flightsystem.service.RouteGraphIndex;
+import com.msy.projects.flightsystem.service.RouteMaterializer;
+
+@DataJpaTest
+@ActiveProfiles("test")
+public class SyntheticDataLoaderTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private TransportationRepository transportationRepository;
+
+    @Test
+    void generator_WithSameSeed_ShouldGenerateSameNetwork() {
+        // Act
+        SyntheticNetworkGenerator first = new SyntheticNetworkGenerator(100, 300, 2, 1.0, 7);
+        SyntheticNetworkGenerator second = new SyntheticNetworkGenerator(100, 300, 2, 1.0, 7);
+
+        // Assert
+        assertEquals(100, first.getLocations().size());
+        assertEquals(20, first.getAirports().size());
+        assertEquals(300 + 80 * 2 * 2, first.getTransportations().size());
+        assertEquals(describe(first.getTransportations()), describe(second.getTransportations()));
+        assertTrue(first.getTransportations().stream()
+                .filter(t -> t.getTransportationType() == TransportationType.FLIGHT)
+                .allMatch(t -> first.getAirports().contains(t.getOriginLocation())
+                        && first.getAirports().contains(t.getDestinationLocation())));
+    }
+
+    @Test
+    void run_ShouldBulkInsertNetworkOnce() throws Exception {
+        // Arrange
+        RouteGraphIndex routeGraphIndex = mock(RouteGraphIndex.class);
+        RouteMaterializer routeMaterializer = mock(RouteMaterializer.class);
+        CacheService cacheService = mock(CacheService.class);
+        SyntheticDataLoader loader = new SyntheticDataLoader(jdbcTemplate, routeGraphIndex, routeMaterializer,
+                cacheService, 50, 200, 2, 1.0, 42, 64);
+        SyntheticNetworkGenerator expected = new SyntheticNetworkGenerator(50, 200, 2, 1.0, 42);
+
+        // Act
+        loader.run();
+        loader.run();
+
+        // Assert
+        assertEquals(50, locationRepository.count());
+        assertEquals(expected.getTransportations().size(), transportationRepository.count());
+        Transportation firstFlight = expected.getTransportations().get(0);
+        Optional<Location> origin = locationRepository.findByLocationCode(firstFlight.getOriginLocation().getLocationCode());
+        assertTrue(origin.isPresent());
+        assertTrue(transportationRepository.findByOriginLocation(origin.get()).stream()
+                .anyMatch(t -> t.getDestinationLocation().getLocationCode()
+                        .equals(firstFlight.getDestinationLocation().getLocationCode())
+                        && t.getOperatingDaysMask() == firstFlight.getOperatingDaysMask()));
+        verify(routeMaterializer, times(1)).rebuildAll();
+        verifyNoInteractions(routeGraphIndex, cacheService);
+    }
+
+    @Test
+    void run_AfterCommit_ShouldEvictIndexAndClearRouteCache() throws Exception {
+        // Arrange
+        RouteGraphIndex routeGraphIndex = mock(RouteGraphIndex.class);
+        CacheService cacheService = mock(CacheService.class);
+        SyntheticDataLoader loader = new SyntheticDataLoader(jdbcTemplate, routeGraphIndex,
+                mock(RouteMaterializer.class), cacheService, 50, 200, 2, 1.0, 42, 64);
+        loader.run();
+
+        // Act
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        // Assert
+        verify(routeGraphIndex).evictAll();
+        verify(cacheService).clearRouteCache();
+    }
+
+    private static List<String> describe(List<Transportation> transportations) {
+        return transportations.stream()
+                .map(t -> t.getOriginLocation().getLocationCode() + ">" + t.getDestinationLocation().getLocationCode()
+                        + ":" + t.getTransportationType() + ":" + t.getOperatingDaysMask())
+                .toList();
+    }
+}
@@ -0,0 +1,94 @@
+package com.msy.projects.flightsystem.controller;
+
+import com.msy.projects.flightsystem.dto.LocationDto;
+import com.msy.projects.flightsystem.security.JwtUtil;
+import com.msy.projects.flightsystem.service.KeysetPaging;
+import com.msy.projects.flightsystem.service.LocationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(LocationController.class)
+@AutoConfigureMockMvc
+@Import({LocationControllerTest.TestConfig.class, LocationController.class})
+public class LocationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private LocationService locationService;
+
+    @Configuration
+    static class TestConfig {
+        @Bean
+        public LocationService locationService() {
+            return org.mockito.Mockito.mock(LocationService.class);
+        }
+
+        @Bean
+        public KeysetPaging keysetPaging() {
+            return new KeysetPaging(2);
+        }
+
+        @Bean
+        public JwtUtil jwtUtil() {
+            return org.mockito.Mockito.mock(JwtUtil.class);
+        }
+
+        @Bean
+        public UserDetailsService userDetailsService() {
+            return org.mockito.Mockito.mock(UserDetailsService.class);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        // Mocks are context beans shared by all tests
+        reset(locationService);
+    }
+
+    @Test
+    @WithMockUser(roles = "AGENCY")
+    void getAllLocations_WhenBelowCap_ShouldNotMarkListAsTruncated() throws Exception {
+        // Arrange
+        when(locationService.getAllLocations()).thenReturn(List.of(
+            new LocationDto(1L, "Istanbul Airport", "Turkey", "Istanbul", "IST")));
+
+        // Act & Assert
+        mockMvc.perform(get("/locations"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(header().doesNotExist(KeysetPaging.TRUNCATED_HEADER));
+    }
+
+    @Test
+    @WithMockUser(roles = "AGENCY")
+    void getAllLocations_WhenCapReached_ShouldMarkListAsTruncated() throws Exception {
+        // Arrange
+        when(locationService.getAllLocations()).thenReturn(List.of(
+            new LocationDto(1L, "Istanbul Airport", "Turkey", "Istanbul", "IST"),
+            new LocationDto(2L, "Heathrow Airport", "UK", "London", "LHR")));
+
+        // Act & Assert
+        mockMvc.perform(get("/locations"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(header().string(KeysetPaging.TRUNCATED_HEADER, "true"));
+    }
+}
@@ -1,9 +1,16 @@
 package com.msy.projects.flightsystem.controller;
 
+import com.msy.projects.flightsystem.dto.CompactRoutesDto;
+import com.msy.projects.flightsystem.dto.RoutePageDto;
 import com.msy.projects.flightsystem.dto.TransportationDto;
 import com.msy.projects.flightsystem.exception.ResourceNotFoundException;
+import com.msy.projects.flightsystem.model.RouteSort;
 import com.msy.projects.flightsystem.model.TransportationType;
 import com.msy.projects.flightsystem.security.JwtUtil;
+import com.msy.projects.flightsystem.dto.RouteRangeResponseDto;
+import com.msy.projects.flightsystem.service.RouteBatchService;
+import com.msy.projects.flightsystem.service.RouteCacheWarmer;
+import com.msy.projects.flightsystem.service.RouteRangeService;
 import com.msy.projects.flightsystem.service.RouteService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,22 +24,29 @@ import org.springframework.http.MediaType;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(RouteController.class)
 @AutoConfigureMockMvc
-@Import(RouteControllerTest.TestConfig.class)
+@Import({RouteControllerTest.TestConfig.class, RouteController.class})
 public class RouteControllerTest {
 
     @Autowired
@@ -41,6 +55,9 @@ public class RouteControllerTest {
     @Autowired
     private RouteService routeService;
     
+    @Autowired
+    private RouteRangeService routeRangeService;
+    
     @Configuration
     static class TestConfig {
         @Bean
@@ -48,6 +65,21 @@ public class RouteControllerTest {
             return org.mockito.Mockito.mock(RouteService.class);
         }
         
+        @Bean
+        public RouteRangeService routeRangeService() {
+            return org.mockito.Mockito.mock(RouteRangeService.class);
+        }
+        
+        @Bean
+        public RouteBatchService routeBatchService() {
+            return org.mockito.Mockito.mock(RouteBatchService.class);
+        }
+
+        @Bean
+        public RouteCacheWarmer routeCacheWarmer() {
+            return org.mockito.Mockito.mock(RouteCacheWarmer.class);
+        }
+
         @Bean
         public JwtUtil jwtUtil() {
             return org.mockito.Mockito.mock(JwtUtil.class);
@@ -64,6 +96,9 @@ public class RouteControllerTest {
 
     @BeforeEach
     void setUp() {
+        // Mocks are context beans shared by all tests
+        reset(routeService, routeRangeService);
+
         // Setup test data
         TransportationDto flightDto = new TransportationDto();
         flightDto.setId(1L);
@@ -181,4 +216,155 @@ public class RouteControllerTest {
 
         verifyNoInteractions(routeService);
     }
+
+    @Test
+    @WithMockUser(roles = "AGENCY")
+    void searchRoutesInRange_WhenValidRequest_ShouldReturnRoutesByDay() throws Exception {
+        // Arrange
+        LocalDate fromDate = LocalDate.of(2025, 4, 7);
+        LocalDate toDate = LocalDate.of(2025, 4, 14);
+        Map<DayOfWeek, List<LocalDate>> datesByDay = new EnumMap<>(DayOfWeek.class);
+        datesByDay.put(DayOfWeek.MONDAY, Arrays.asList(fromDate, toDate));
+        Map<DayOfWeek, List<List<TransportationDto>>> routesByDay = new EnumMap<>(DayOfWeek.class);
+        routesByDay.put(DayOfWeek.MONDAY, allRoutes);
+        when(routeRangeService.findRoutesInRange("IST", "LHR", fromDate, toDate))
+            .thenReturn(new RouteRangeResponseDto("IST", "LHR", fromDate, toDate, datesByDay, routesByDay));
+
+        // Act & Assert
+        mockMvc.perform(get("/routes/search-range")
+                .param("originCode", "IST")
+                .param("destinationCode", "LHR")
+                .param("fromDate", "2025-04-07")
+                .param("toDate", "2025-04-14")
+                .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.datesByDay.MONDAY", hasSize(2)))
+            .andExpect(jsonPath("$.datesByDay.MONDAY[1]").value("2025-04-14"))
+            .andExpect(jsonPath("$.routesByDay.MONDAY[0][0].originLocationCode").value("IST"));
+
+        verify(routeRangeService).findRoutesInRange("IST", "LHR", fromDate, toDate);
+    }
+
+    @Test
+    @WithMockUser(roles = "AGENCY")
+    void searchRoutes_WithoutStreamingAccept_ShouldReturnJsonList() throws Exception {
+        // Arrange
+        LocalDate travelDate = LocalDate.of(2025, 4, 7);
+        when(routeService.findRoutes("IST", "LHR", travelDate)).thenReturn(allRoutes);
+
+        // Act & Assert
+        mockMvc.perform(get("/routes/search")
+                .param("originCode", "IST")
+                .param("destinationCode", "LHR")
+                .param("travelDate", "2025-04-07"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$[0][0].originLocationCode").value("IST"));
+
+        verify(routeService, never()).streamRoutes(any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(roles = "AGENCY")
+    void searchRoutes_WithCompactFormat_ShouldReturnTransportationsByIdAndRouteIds() throws Exception {
+        // Arrange
+        LocalDate travelDate = LocalDate.of(2025, 4, 7);
+        TransportationDto flight = allRoutes.get(0).get(0);
+        when(routeService.findCompactRoutes("IST", "LHR", travelDate))
+            .thenReturn(new CompactRoutesDto(Map.of(flight.getId(), flight), List.of(List.of(flight.getId()))));
+
+        // Act & Assert
+        mockMvc.perform(get("/routes/search")
+                .param("originCode", "IST")
+                .param("destinationCode", "LHR")
+                .param("travelDate", "2025-04-07")
+                .param("format", "compact"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.transportations['" + flight.getId() + "'].originLocationCode").value("IST"))
+            .andExpect(jsonPath("$.routes[0][0]").value(flight.getId()));
+
+        verify(routeService, never()).findRoutes(any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(roles = "AGENCY")
+    void searchRoutes_WithNdjsonAccept_ShouldStreamOneRoutePerLine() throws Exception {
+        // Arrange
+        LocalDate travelDate = LocalDate.of(2025, 4, 7);
+        when(routeService.streamRoutes("IST", "LHR", travelDate))
+            .thenReturn(sink -> allRoutes.forEach(sink));
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/routes/search")
+                .param("originCode", "IST")
+                .param("destinationCode", "LHR")
+                .param("travelDate", "2025-04-07")
+                .accept(MediaType.APPLICATION_NDJSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // Assert
+        String body = mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+            .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(1, lines.length);
+        assertTrue(lines[0].startsWith("[{") && lines[0].contains("\"originLocationCode\":\"IST\""));
+        verify(routeService, never()).findRoutes(any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(roles = "AGENCY")
+    void searchRoutes_WithEventStreamAccept_ShouldStreamRoutesAsEvents() throws Exception {
+        // Arrange
+        LocalDate travelDate = LocalDate.of(2025, 4, 7);
+        when(routeService.streamRoutes("IST", "LHR", travelDate, 2, 4))
+            .thenReturn(sink -> allRoutes.forEach(sink));
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/routes/search")
+                .param("originCode", "IST")
+                .param("destinationCode", "LHR")
+                .param("travelDate", "2025-04-07")
+                .param("maxFlights", "2")
+                .accept(MediaType.TEXT_EVENT_STREAM))
+            .andReturn();
+
+        // Assert
+        String body = mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        assertTrue(body.startsWith("data: [{"));
+        assertTrue(body.endsWith("event: end\ndata: {\"count\":1}\n\n"));
+    }
+
+    @Test
+    @WithMockUser(roles = "AGENCY")
+    void searchRoutes_WithNdjsonAcceptAndLimit_ShouldStreamRoutePage() throws Exception {
+        // Arrange
+        LocalDate travelDate = LocalDate.of(2025, 4, 7);
+        when(routeService.findRoutePage("IST", "LHR", travelDate, 1, 3, RouteSort.SEGMENTS, null, 1, null))
+            .thenReturn(new RoutePageDto(allRoutes, "next-page"));
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/routes/search")
+                .param("originCode", "IST")
+                .param("destinationCode", "LHR")
+                .param("travelDate", "2025-04-07")
+                .param("limit", "1")
+                .accept(MediaType.APPLICATION_NDJSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // Assert
+        String body = mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+            .andExpect(header().string(RouteController.NEXT_CURSOR_HEADER, "next-page"))
+            .andReturn().getResponse().getContentAsString();
+        assertEquals(1, body.split("\n").length);
+        assertTrue(body.startsWith("[{"));
+        verify(routeService, never()).streamRoutes(any(), any(), any());
+    }
 }
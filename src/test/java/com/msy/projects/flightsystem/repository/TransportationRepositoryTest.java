@@ -0,0 +1,222 @@
+package com.msy.projects.flightsystem.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.msy.projects.flightsystem.dto.LocationDto;
+import com.msy.projects.flightsystem.dto.TransportationDto;
+import com.msy.projects.flightsystem.model.Location;
+import com.msy.projects.flightsystem.model.OperatingDays;
+import com.msy.projects.flightsystem.model.Transportation;
+import com.msy.projects.flightsystem.model.TransportationType;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+public class TransportationRepositoryTest {
+
+    @Autowired
+    private TransportationRepository transportationRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Location istanbulAirport;
+    private Transportation weekdayFlight;
+    private Transportation weekendBus;
+
+    @BeforeEach
+    void setUp() {
+        istanbulAirport = locationRepository.save(new Location(null, "Istanbul Airport", "Turkey", "Istanbul", "IST"));
+        Location heathrowAirport = locationRepository.save(new Location(null, "Heathrow Airport", "UK", "London", "LHR"));
+
+        weekdayFlight = new Transportation();
+        weekdayFlight.setOriginLocation(istanbulAirport);
+        weekdayFlight.setDestinationLocation(heathrowAirport);
+        weekdayFlight.setTransportationType(TransportationType.FLIGHT);
+        weekdayFlight.setOperatingDays(Arrays.asList(1, 2, 3, 4, 5));
+        weekdayFlight = transportationRepository.save(weekdayFlight);
+
+        weekendBus = new Transportation();
+        weekendBus.setOriginLocation(heathrowAirport);
+        weekendBus.setDestinationLocation(istanbulAirport);
+        weekendBus.setTransportationType(TransportationType.BUS);
+        weekendBus.setOperatingDays(Arrays.asList(6, 7));
+        weekendBus = transportationRepository.save(weekendBus);
+    }
+
+    @Test
+    void findByOperatingDay_ShouldFilterOnWeekdayMask() {
+        // Act
+        List<Transportation> monday = transportationRepository.findByOperatingDay(1);
+        List<Transportation> sunday = transportationRepository.findByOperatingDay(7);
+
+        // Assert
+        assertEquals(List.of(weekdayFlight.getId()), monday.stream().map(Transportation::getId).toList());
+        assertEquals(List.of(weekendBus.getId()), sunday.stream().map(Transportation::getId).toList());
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), monday.get(0).getOperatingDays());
+    }
+
+    @Test
+    void findByOriginLocationAndOperatingDay_ShouldFilterOnOriginAndWeekdayMask() {
+        // Act
+        List<Transportation> friday = transportationRepository.findByOriginLocationAndOperatingDay(istanbulAirport, 5);
+        List<Transportation> saturday = transportationRepository.findByOriginLocationAndOperatingDay(istanbulAirport, 6);
+
+        // Assert
+        assertEquals(1, friday.size());
+        assertEquals(weekdayFlight.getId(), friday.get(0).getId());
+        assertTrue(saturday.isEmpty());
+    }
+
+    @Test
+    void findAllDtos_ShouldProjectCodesWithoutManagedEntities() {
+        // Arrange
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        List<TransportationDto> transportations = transportationRepository.findAllDtos(Limit.unlimited());
+        List<LocationDto> locations = locationRepository.findAllDtos(Limit.unlimited());
+
+        // Assert
+        assertEquals(2, transportations.size());
+        TransportationDto flight = transportations.get(0);
+        assertEquals(weekdayFlight.getId(), flight.getId());
+        assertEquals(istanbulAirport.getId(), flight.getOriginLocationId());
+        assertEquals("IST", flight.getOriginLocationCode());
+        assertEquals("LHR", flight.getDestinationLocationCode());
+        assertEquals(TransportationType.FLIGHT, flight.getTransportationType());
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), flight.getOperatingDays());
+        assertEquals(List.of("IST", "LHR"), locations.stream().map(LocationDto::getLocationCode).toList());
+        assertEquals(0, entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount());
+    }
+
+    @Test
+    void findDtoPage_ShouldFilterAndContinueAfterId() {
+        // Arrange
+        addFlights(3);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        List<TransportationDto> istanbulFlights = transportationRepository.findDtoPage(
+                0, "IST", null, TransportationType.FLIGHT, OperatingDays.bit(6), Limit.of(10));
+        List<TransportationDto> firstPage = transportationRepository.findDtoPage(
+                0, null, null, null, OperatingDays.ALL_DAYS, Limit.of(2));
+        List<TransportationDto> nextPage = transportationRepository.findDtoPage(
+                firstPage.get(1).getId(), null, null, null, OperatingDays.ALL_DAYS, Limit.of(2));
+        List<TransportationDto> buses = transportationRepository.findDtoPage(
+                0, null, "IST", TransportationType.BUS, OperatingDays.ALL_DAYS, Limit.of(10));
+
+        // Assert
+        assertEquals(3, istanbulFlights.size());
+        assertTrue(istanbulFlights.stream().allMatch(t -> t.getOriginLocationCode().equals("IST")));
+        assertEquals(2, firstPage.size());
+        assertEquals(List.of(weekdayFlight.getId(), weekendBus.getId()),
+                firstPage.stream().map(TransportationDto::getId).toList());
+        assertEquals(2, nextPage.size());
+        assertTrue(nextPage.get(0).getId() > weekendBus.getId());
+        assertEquals(List.of(weekendBus.getId()), buses.stream().map(TransportationDto::getId).toList());
+        assertEquals(1, locationRepository.findDtoPage(istanbulAirport.getId(), Limit.of(1)).size());
+    }
+
+    @Test
+    void findDtoPage_WithoutDayFilter_ShouldKeepTransportationsWithoutOperatingDays() {
+        // Arrange
+        Transportation suspended = new Transportation();
+        suspended.setOriginLocation(istanbulAirport);
+        suspended.setDestinationLocation(weekdayFlight.getDestinationLocation());
+        suspended.setTransportationType(TransportationType.FLIGHT);
+        suspended.setOperatingDays(List.of());
+        suspended = transportationRepository.save(suspended);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        List<TransportationDto> unfiltered = transportationRepository.findDtoPage(
+                0, null, null, null, null, Limit.of(10));
+        List<TransportationDto> monday = transportationRepository.findDtoPage(
+                0, null, null, null, OperatingDays.bit(1), Limit.of(10));
+
+        // Assert
+        assertEquals(List.of(weekdayFlight.getId(), weekendBus.getId(), suspended.getId()),
+                unfiltered.stream().map(TransportationDto::getId).toList());
+        assertEquals(transportationRepository.findAllDtos(Limit.unlimited()).stream().map(TransportationDto::getId).toList(),
+                unfiltered.stream().map(TransportationDto::getId).toList());
+        assertEquals(List.of(weekdayFlight.getId()), monday.stream().map(TransportationDto::getId).toList());
+    }
+
+    @Test
+    void timetableFinders_ShouldUseConstantStatementCountAsRowsGrow() {
+        // Arrange
+        addFlights(5);
+        long fewRowsStatements = countStatements(() -> transportationRepository.findByOperatingDay(1));
+        long fewRowsFindAll = countStatements(transportationRepository::findAll);
+        addFlights(50);
+
+        // Act
+        long manyRowsStatements = countStatements(() -> transportationRepository.findByOperatingDay(1));
+        long manyRowsFindAll = countStatements(transportationRepository::findAll);
+        long byOriginStatements = countStatements(
+                () -> transportationRepository.findByOriginLocationAndOperatingDay(istanbulAirport, 1));
+
+        // Assert
+        assertEquals(1, fewRowsStatements);
+        assertEquals(fewRowsStatements, manyRowsStatements);
+        assertEquals(1, fewRowsFindAll);
+        assertEquals(fewRowsFindAll, manyRowsFindAll);
+        assertEquals(1, byOriginStatements);
+    }
+
+    /**
+     * Add daily flights between new pairs of locations, each also departing from Istanbul
+     */
+    private void addFlights(int count) {
+        long existing = locationRepository.count();
+        for (int i = 0; i < count; i++) {
+            Location origin = locationRepository.save(
+                    new Location(null, "Origin " + (existing + i), "Country", "City", "O" + (existing + i)));
+            Location destination = locationRepository.save(
+                    new Location(null, "Destination " + (existing + i), "Country", "City", "D" + (existing + i)));
+            for (Location from : List.of(origin, istanbulAirport)) {
+                Transportation flight = new Transportation();
+                flight.setOriginLocation(from);
+                flight.setDestinationLocation(destination);
+                flight.setTransportationType(TransportationType.FLIGHT);
+                flight.setOperatingDays(Arrays.asList(1, 2, 3, 4, 5, 6, 7));
+                transportationRepository.save(flight);
+            }
+        }
+    }
+
+    /**
+     * SQL statements prepared by a query run against an empty persistence context
+     */
+    private long countStatements(Supplier<List<Transportation>> query) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<Transportation> result = query.get();
+        result.forEach(t -> t.getDestinationLocation().getLocationCode());
+        return statistics.getPrepareStatementCount();
+    }
+}
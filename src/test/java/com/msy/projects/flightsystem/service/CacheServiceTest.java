@@ -7,7 +7,25 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.ValueOperations;
 
+import com.msy.projects.flightsystem.cache.TwoTierCache;
+import com.msy.projects.flightsystem.dto.TransportationDto;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -19,6 +37,18 @@ public class CacheServiceTest {
     @Mock
     private Cache routeCache;
 
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, Object> valueOperations;
+
+    @Mock
+    private SetOperations<String, Object> setOperations;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private CacheService cacheService;
 
@@ -33,18 +63,108 @@ public class CacheServiceTest {
         // Assert
         verify(cacheManager).getCache("routeCache");
         verify(routeCache).clear();
+        verify(eventPublisher).publishEvent(any(RouteCacheClearedEvent.class));
     }
 
     @Test
-    void clearSpecificRouteCache_ShouldClearEntireCache() {
+    void clearSpecificRouteCache_ShouldEvictOnlyEntriesOfThePair() {
         // Arrange
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(setOperations.union(argThat((Collection<String> tags) -> tags != null && tags.contains("routeTags::origin:1:2"))))
+                .thenReturn(new HashSet<>(Set.of("IST-LHR-MONDAY", "IST-CDG-MONDAY", "IST-LHR-FRIDAY-COMPACT")));
+        when(setOperations.union(argThat((Collection<String> tags) -> tags != null && tags.contains("routeTags::dest:1:3"))))
+                .thenReturn(new HashSet<>(Set.of("IST-LHR-MONDAY", "SAW-LHR-MONDAY", "IST-LHR-FRIDAY-COMPACT")));
         when(cacheManager.getCache("routeCache")).thenReturn(routeCache);
 
         // Act
-        cacheService.clearSpecificRouteCache("IST", "LHR");
+        cacheService.clearSpecificRouteCache(2L, 3L);
 
         // Assert
-        verify(cacheManager).getCache("routeCache");
-        verify(routeCache).clear();
+        verify(redisTemplate).delete(argThat((Collection<String> keys) -> keys != null
+                && new HashSet<>(keys).equals(Set.of("routeCache::IST-LHR-MONDAY", "routeCache::IST-LHR-FRIDAY-COMPACT"))));
+        verify(routeCache, never()).clear();
+        verify(eventPublisher).publishEvent(new RouteCacheEvictedEvent(Set.of("IST-LHR-MONDAY", "IST-LHR-FRIDAY-COMPACT")));
+    }
+
+    @Test
+    void getCachedRoutes_ShouldReadAllKeysWithOneMultiGet() {
+        // Arrange
+        List<List<TransportationDto>> routes = List.of(List.of(new TransportationDto()));
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.multiGet(List.of("routeCache::IST-LHR-2025-05-05", "routeCache::SAW-LHR-2025-05-05")))
+                .thenReturn(Arrays.asList(routes, null));
+
+        // Act
+        Map<String, List<List<TransportationDto>>> result =
+                cacheService.getCachedRoutes(List.of("IST-LHR-2025-05-05", "SAW-LHR-2025-05-05"));
+
+        // Assert
+        assertEquals(Map.of("IST-LHR-2025-05-05", routes), result);
+        verify(valueOperations, times(1)).multiGet(anyCollection());
+    }
+
+    @Test
+    void getCachedRoutes_ShouldReadOnlyKeysMissingFromLocalCacheFromRedis() {
+        // Arrange
+        List<List<TransportationDto>> localRoutes = List.of(List.of(new TransportationDto()));
+        List<List<TransportationDto>> remoteRoutes = List.of();
+        TwoTierCache twoTierCache = mock(TwoTierCache.class);
+        when(cacheManager.getCache("routeCache")).thenReturn(twoTierCache);
+        when(twoTierCache.getAllLocal(List.of("IST-LHR-2025-05-05", "SAW-LHR-2025-05-05")))
+                .thenReturn(Map.of("IST-LHR-2025-05-05", localRoutes));
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.multiGet(List.of("routeCache::SAW-LHR-2025-05-05"))).thenReturn(List.of(remoteRoutes));
+
+        // Act
+        Map<String, List<List<TransportationDto>>> result =
+                cacheService.getCachedRoutes(List.of("IST-LHR-2025-05-05", "SAW-LHR-2025-05-05"));
+
+        // Assert
+        assertEquals(Map.of("IST-LHR-2025-05-05", localRoutes, "SAW-LHR-2025-05-05", remoteRoutes), result);
+    }
+
+    @Test
+    void getCachedRoutes_WhenRedisFails_ShouldReturnMisses() {
+        // Arrange
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.multiGet(anyCollection()))
+                .thenThrow(new RedisConnectionFailureException("Connection refused"));
+
+        // Act
+        Map<String, List<List<TransportationDto>>> result =
+                cacheService.getCachedRoutes(List.of("IST-LHR-2025-05-05", "SAW-LHR-2025-05-05"));
+
+        // Assert
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void evictTaggedRoutes_WithOriginAndDestinationTags_ShouldDeleteOnlyEntriesTaggedWithBoth() {
+        // Arrange
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(setOperations.union(List.of("routeTags::origin:1:1", "routeTags::origin:1:2")))
+                .thenReturn(new HashSet<>(Set.of("TAK-LHR-2025-04-07", "IST-LHR-2025-04-07", "TAK-JFK-2025-04-07")));
+        when(setOperations.union(List.of("routeTags::dest:1:3")))
+                .thenReturn(new HashSet<>(Set.of("TAK-LHR-2025-04-07", "SAW-LHR-2025-04-07")));
+
+        // Act
+        cacheService.evictTaggedRoutes(List.of("origin:1:1", "origin:1:2"), List.of("dest:1:3"));
+
+        // Assert
+        verify(redisTemplate).delete(List.of("routeCache::TAK-LHR-2025-04-07"));
+    }
+
+    @Test
+    void evictTaggedRoutes_ShouldDeleteTaggedEntriesAndTags() {
+        // Arrange
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(setOperations.union(List.of("routeTags::t:2"))).thenReturn(new HashSet<>(Set.of("TAK-LHR-2025-04-07")));
+
+        // Act
+        cacheService.evictTaggedRoutes(List.of("t:2"));
+
+        // Assert
+        verify(redisTemplate).delete(List.of("routeCache::TAK-LHR-2025-04-07"));
+        verify(redisTemplate).delete(List.of("routeTags::t:2"));
     }
 }
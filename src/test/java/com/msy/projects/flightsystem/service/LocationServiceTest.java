@@ -12,7 +12,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import com.msy.projects.flightsystem.dto.LocationDto;
 import com.msy.projects.flightsystem.model.Location;
@@ -23,6 +25,18 @@ public class LocationServiceTest {
 
     @Mock
     private LocationRepository locationRepository;
+    
+    @Mock
+    private RouteCacheInvalidator routeCacheInvalidator;
+    
+    @Mock
+    private RouteGraphIndex routeGraphIndex;
+    
+    @Mock
+    private RouteMaterializer routeMaterializer;
+
+    @Spy
+    private KeysetPaging keysetPaging = new KeysetPaging(1000);
 
     @InjectMocks
     private LocationService locationService;
@@ -40,11 +54,11 @@ public class LocationServiceTest {
     @Test
     void getAllLocations_ShouldReturnAllLocations() {
         // Arrange
-        List<Location> locations = Arrays.asList(
-            testLocation,
-            new Location(2L, "John F. Kennedy Airport", "USA", "New York", "JFK")
+        List<LocationDto> locations = Arrays.asList(
+            testLocationDto,
+            new LocationDto(2L, "John F. Kennedy Airport", "USA", "New York", "JFK")
         );
-        when(locationRepository.findAll()).thenReturn(locations);
+        when(locationRepository.findAllDtos(Limit.of(1000))).thenReturn(locations);
 
         // Act
         List<LocationDto> result = locationService.getAllLocations();
@@ -53,7 +67,8 @@ public class LocationServiceTest {
         assertEquals(2, result.size());
         assertEquals("IST", result.get(0).getLocationCode());
         assertEquals("JFK", result.get(1).getLocationCode());
-        verify(locationRepository, times(1)).findAll();
+        verify(locationRepository, times(1)).findAllDtos(Limit.of(1000));
+        verify(locationRepository, never()).findAll();
     }
 
     @Test
@@ -155,6 +170,26 @@ public class LocationServiceTest {
         assertEquals("IST", result.getLocationCode());
         verify(locationRepository).findById(1L);
         verify(locationRepository).save(any(Location.class));
+        verifyNoInteractions(routeGraphIndex, routeMaterializer, routeCacheInvalidator);
+    }
+
+    @Test
+    void updateLocation_WhenCodeChanged_ShouldRefreshRoutesOfThatLocation() {
+        // Arrange
+        LocationDto updateDto = new LocationDto(1L, "Istanbul Airport", "Turkey", "Istanbul", "ISL");
+        Location existingLocation = new Location(1L, "Istanbul Airport", "Turkey", "Istanbul", "IST");
+        when(locationRepository.findById(1L)).thenReturn(Optional.of(existingLocation));
+        when(locationRepository.existsByLocationCode("ISL")).thenReturn(false);
+        when(locationRepository.save(any(Location.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // Act
+        LocationDto result = locationService.updateLocation(1L, updateDto);
+
+        // Assert
+        assertEquals("ISL", result.getLocationCode());
+        verify(routeGraphIndex).evictDays(anyList());
+        verify(routeMaterializer).locationChanged(1L);
+        verify(routeCacheInvalidator).locationChanged(1L);
     }
 
     @Test
@@ -168,6 +203,7 @@ public class LocationServiceTest {
         // Assert
         verify(locationRepository).findById(1L);
         verify(locationRepository).delete(testLocation);
+        verify(routeCacheInvalidator).locationChanged(1L);
     }
 
     @Test
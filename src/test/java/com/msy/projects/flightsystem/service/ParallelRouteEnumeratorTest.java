@@ -0,0 +1,81 @@
+package com.msy.projects.flightsystem.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.msy.projects.flightsystem.model.Location;
+import com.msy.projects.flightsystem.model.Transportation;
+import com.msy.projects.flightsystem.model.TransportationType;
+
+public class ParallelRouteEnumeratorTest {
+
+    private ForkJoinPool pool;
+    private List<Transportation> flights;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(4);
+        flights = new ArrayList<>();
+        for (long i = 0; i < 100; i++) {
+            Location origin = new Location(i, "Airport " + i, "Country", "City", "A" + i);
+            Location destination = new Location(i + 1000, "Airport " + (i + 1000), "Country", "City", "B" + i);
+            flights.add(new Transportation(i, origin, destination, TransportationType.FLIGHT, (short) 0x7F));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void forEach_WhenParallel_ShouldKeepSequentialOrderOnCallingThread() {
+        // Arrange
+        ParallelRouteEnumerator sequential = new ParallelRouteEnumerator(pool, false, 0);
+        ParallelRouteEnumerator parallel = new ParallelRouteEnumerator(pool, true, 0);
+        List<List<Transportation>> expected = new ArrayList<>();
+        List<List<Transportation>> actual = new ArrayList<>();
+        Thread caller = Thread.currentThread();
+
+        // Act
+        sequential.forEach(flights, ParallelRouteEnumeratorTest::twoRoutes, expected::add);
+        parallel.forEach(flights, ParallelRouteEnumeratorTest::twoRoutes, route -> {
+            assertSame(caller, Thread.currentThread());
+            actual.add(route);
+        });
+
+        // Assert
+        assertEquals(200, expected.size());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void forEach_BelowThreshold_ShouldNotUsePool() {
+        // Arrange
+        ParallelRouteEnumerator parallel = new ParallelRouteEnumerator(pool, true, flights.size() + 1);
+        Thread caller = Thread.currentThread();
+        List<List<Transportation>> actual = new ArrayList<>();
+
+        // Act
+        parallel.forEach(flights, (flight, sink) -> {
+            assertSame(caller, Thread.currentThread());
+            twoRoutes(flight, sink);
+        }, actual::add);
+
+        // Assert
+        assertEquals(200, actual.size());
+    }
+
+    private static void twoRoutes(Transportation flight, Consumer<List<Transportation>> sink) {
+        sink.accept(List.of(flight));
+        sink.accept(List.of(flight, flight));
+    }
+}
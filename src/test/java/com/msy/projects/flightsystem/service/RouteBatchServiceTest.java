@@ -0,0 +1,118 @@
+package com.msy.projects.flightsystem.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.dao.QueryTimeoutException;
+
+import com.msy.projects.flightsystem.dto.RouteBatchResultDto;
+import com.msy.projects.flightsystem.dto.RouteRequestDto;
+import com.msy.projects.flightsystem.dto.TransportationDto;
+import com.msy.projects.flightsystem.exception.BadRequestException;
+import com.msy.projects.flightsystem.exception.ResourceNotFoundException;
+
+@ExtendWith(MockitoExtension.class)
+public class RouteBatchServiceTest {
+
+    @Mock
+    private RouteService routeService;
+
+    @Mock
+    private CacheService cacheService;
+
+    private RouteBatchService routeBatchService;
+
+    private final LocalDate travelDate = LocalDate.of(2025, 5, 5);
+
+    @BeforeEach
+    void setUp() {
+        routeBatchService = new RouteBatchService(routeService, cacheService, new SimpleAsyncTaskExecutor(), 3);
+    }
+
+    @Test
+    void findRoutes_ShouldUseCacheHitsAndSearchMissesOnce() {
+        // Arrange
+        List<List<TransportationDto>> cachedRoutes = List.of(List.of(new TransportationDto()));
+        List<List<TransportationDto>> searchedRoutes = List.of(List.of(new TransportationDto(), new TransportationDto()));
+        when(cacheService.getCachedRoutes(List.of("IST-LHR-MONDAY", "SAW-LHR-MONDAY")))
+                .thenReturn(Map.of("IST-LHR-MONDAY", cachedRoutes));
+        when(routeService.findRoutes("SAW", "LHR", travelDate)).thenReturn(searchedRoutes);
+
+        // Act
+        Map<Integer, RouteBatchResultDto> results = routeBatchService.findRoutes(List.of(
+                new RouteRequestDto("IST", "LHR", travelDate),
+                new RouteRequestDto("SAW", "LHR", travelDate),
+                new RouteRequestDto("SAW", "LHR", travelDate)));
+
+        // Assert
+        assertEquals(cachedRoutes, results.get(0).getRoutes());
+        assertEquals(searchedRoutes, results.get(1).getRoutes());
+        assertEquals(searchedRoutes, results.get(2).getRoutes());
+        verify(routeService, never()).findRoutes("IST", "LHR", travelDate);
+        verify(routeService, times(1)).findRoutes("SAW", "LHR", travelDate);
+    }
+
+    @Test
+    void findRoutes_WhenEntryFails_ShouldReportErrorForThatEntryOnly() {
+        // Arrange
+        when(cacheService.getCachedRoutes(anyList())).thenReturn(Collections.emptyMap());
+        when(routeService.findRoutes("IST", "LHR", travelDate)).thenReturn(List.of());
+        when(routeService.findRoutes("XXX", "LHR", travelDate))
+                .thenThrow(new ResourceNotFoundException("Location not found with code: XXX"));
+
+        // Act
+        Map<Integer, RouteBatchResultDto> results = routeBatchService.findRoutes(List.of(
+                new RouteRequestDto("IST", "LHR", travelDate),
+                new RouteRequestDto("XXX", "LHR", travelDate),
+                new RouteRequestDto("IST", null, travelDate)));
+
+        // Assert
+        assertEquals(200, results.get(0).getStatus());
+        assertEquals(404, results.get(1).getStatus());
+        assertNotNull(results.get(1).getError());
+        assertEquals(400, results.get(2).getStatus());
+    }
+
+    @Test
+    void findRoutes_WhenEntryFailsUnexpectedly_ShouldReportServerErrorForThatEntryOnly() {
+        // Arrange
+        when(cacheService.getCachedRoutes(anyList())).thenReturn(Collections.emptyMap());
+        when(routeService.findRoutes("IST", "LHR", travelDate)).thenReturn(List.of());
+        when(routeService.findRoutes("SAW", "LHR", travelDate))
+                .thenThrow(new QueryTimeoutException("Redis command timed out"));
+
+        // Act
+        Map<Integer, RouteBatchResultDto> results = routeBatchService.findRoutes(List.of(
+                new RouteRequestDto("IST", "LHR", travelDate),
+                new RouteRequestDto("SAW", "LHR", travelDate)));
+
+        // Assert
+        assertEquals(200, results.get(0).getStatus());
+        assertEquals(500, results.get(1).getStatus());
+        assertNull(results.get(1).getRoutes());
+        assertNotNull(results.get(1).getError());
+    }
+
+    @Test
+    void findRoutes_WhenBatchTooLarge_ShouldThrowBadRequestException() {
+        // Arrange
+        RouteRequestDto request = new RouteRequestDto("IST", "LHR", travelDate);
+
+        // Act & Assert
+        assertThrows(BadRequestException.class,
+                () -> routeBatchService.findRoutes(List.of(request, request, request, request)));
+        verifyNoInteractions(cacheService, routeService);
+    }
+}
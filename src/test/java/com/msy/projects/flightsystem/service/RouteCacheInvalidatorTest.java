@@ -0,0 +1,107 @@
+package com.msy.projects.flightsystem.service;
+
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.msy.projects.flightsystem.model.Location;
+import com.msy.projects.flightsystem.model.Transportation;
+import com.msy.projects.flightsystem.model.TransportationType;
+import com.msy.projects.flightsystem.repository.TransportationRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class RouteCacheInvalidatorTest {
+
+    @Mock
+    private CacheService cacheService;
+
+    @Mock
+    private TransportationRepository transportationRepository;
+
+    private RouteCacheInvalidator routeCacheInvalidator;
+
+    private Location taksimSquare;
+    private Location istanbulAirport;
+    private Location heathrowAirport;
+    private Location wembleyStadium;
+
+    @BeforeEach
+    void setUp() {
+        routeCacheInvalidator = new RouteCacheInvalidator(cacheService, new RouteGraphIndex(transportationRepository));
+
+        taksimSquare = new Location(1L, "Taksim Square", "Turkey", "Istanbul", "TAK");
+        istanbulAirport = new Location(2L, "Istanbul Airport", "Turkey", "Istanbul", "IST");
+        heathrowAirport = new Location(3L, "Heathrow Airport", "UK", "London", "LHR");
+        wembleyStadium = new Location(4L, "Wembley Stadium", "UK", "London", "WEM");
+    }
+
+    @Test
+    void transportationChanged_WhenTransferCreated_ShouldEvictEntriesFromItsOriginOrToItsDestination() {
+        // Arrange
+        Transportation bus = transportation(1L, taksimSquare, istanbulAirport, TransportationType.BUS);
+
+        // Act
+        routeCacheInvalidator.transportationChanged(1L, null, TransportationEdge.of(bus));
+
+        // Assert
+        verify(cacheService).evictTaggedRoutes(Set.of("origin:1:1", "dest:1:2"));
+        verifyNoInteractions(transportationRepository);
+    }
+
+    @Test
+    void transportationChanged_WhenFlightCreated_ShouldEvictPairsReachableThroughItsTransfers() {
+        // Arrange
+        Transportation flight = transportation(2L, istanbulAirport, heathrowAirport, TransportationType.FLIGHT);
+        when(transportationRepository.findByOperatingDay(1)).thenReturn(Arrays.asList(
+            transportation(1L, taksimSquare, istanbulAirport, TransportationType.BUS),
+            flight,
+            transportation(3L, heathrowAirport, wembleyStadium, TransportationType.UBER)));
+
+        // Act
+        routeCacheInvalidator.transportationChanged(2L, null, TransportationEdge.of(flight));
+
+        // Assert
+        verify(cacheService).evictTaggedRoutes(Set.of("origin:1:2", "origin:1:1"), Set.of("dest:1:3", "dest:1:4"));
+        verify(cacheService).evictTaggedRoutes(Set.of("multi:1"));
+    }
+
+    @Test
+    void transportationChanged_WhenDeleted_ShouldEvictOnlyEntriesContainingIt() {
+        // Arrange
+        Transportation flight = transportation(2L, istanbulAirport, heathrowAirport, TransportationType.FLIGHT);
+
+        // Act
+        routeCacheInvalidator.transportationChanged(2L, TransportationEdge.of(flight), null);
+
+        // Assert
+        verify(cacheService).evictTaggedRoutes(Set.of("t:2"));
+        verifyNoMoreInteractions(cacheService);
+    }
+
+    @Test
+    void locationChanged_ShouldEvictEntriesMentioningTheLocation() {
+        // Act
+        routeCacheInvalidator.locationChanged(3L);
+
+        // Assert
+        verify(cacheService).evictTaggedRoutes(Set.of("loc:3"));
+    }
+
+    private Transportation transportation(Long id, Location origin, Location destination, TransportationType type) {
+        Transportation transportation = new Transportation();
+        transportation.setId(id);
+        transportation.setOriginLocation(origin);
+        transportation.setDestinationLocation(destination);
+        transportation.setTransportationType(type);
+        transportation.setOperatingDays(List.of(1));
+        return transportation;
+    }
+}
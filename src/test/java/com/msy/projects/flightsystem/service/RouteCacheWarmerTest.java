@@ -0,0 +1,157 @@
+package com.msy.projects.flightsystem.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.TaskScheduler;
+
+import com.msy.projects.flightsystem.exception.ResourceNotFoundException;
+
+@ExtendWith(MockitoExtension.class)
+public class RouteCacheWarmerTest {
+
+    @Mock
+    private RouteService routeService;
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private ZSetOperations<String, Object> zSetOperations;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    private RouteCacheWarmer routeCacheWarmer;
+
+    @BeforeEach
+    void setUp() {
+        routeCacheWarmer = new RouteCacheWarmer(routeService, redisTemplate, new SyncTaskExecutor(), taskScheduler, true, 200, 1000);
+    }
+
+    @Test
+    void warmUp_ShouldReplayPopularSearchesOnTheirWeekday() {
+        // Arrange
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.reverseRange(RouteCacheWarmer.POPULAR_SEARCHES_KEY, 0, 199))
+            .thenReturn(new LinkedHashSet<>(List.of("IST\tLHR\tMONDAY", "SAW\tLHR\tFRIDAY")));
+
+        // Act
+        int scheduled = routeCacheWarmer.warmUp();
+
+        // Assert
+        assertEquals(2, scheduled);
+        ArgumentCaptor<LocalDate> monday = ArgumentCaptor.forClass(LocalDate.class);
+        ArgumentCaptor<LocalDate> friday = ArgumentCaptor.forClass(LocalDate.class);
+        verify(routeService).findRoutes(eq("IST"), eq("LHR"), monday.capture());
+        verify(routeService).findRoutes(eq("SAW"), eq("LHR"), friday.capture());
+        assertEquals(DayOfWeek.MONDAY, monday.getValue().getDayOfWeek());
+        assertEquals(DayOfWeek.FRIDAY, friday.getValue().getDayOfWeek());
+    }
+
+    @Test
+    void warmUp_WhenSearchFails_ShouldContinueWithNextSearch() {
+        // Arrange
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.reverseRange(RouteCacheWarmer.POPULAR_SEARCHES_KEY, 0, 199))
+            .thenReturn(new LinkedHashSet<>(List.of("XXX\tLHR\tMONDAY", "IST\tLHR\tMONDAY")));
+        when(routeService.findRoutes(eq("XXX"), eq("LHR"), any()))
+            .thenThrow(new ResourceNotFoundException("Origin location not found with code: XXX"));
+
+        // Act
+        routeCacheWarmer.warmUp();
+
+        // Assert
+        verify(routeService).findRoutes(eq("IST"), eq("LHR"), any());
+    }
+
+    @Test
+    void warmUp_ShouldScheduleLaterBatchesInsteadOfWaitingOnExecutor() {
+        // Arrange
+        RouteCacheWarmer limited = new RouteCacheWarmer(routeService, redisTemplate, new SyncTaskExecutor(), taskScheduler, true, 200, 2);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.reverseRange(RouteCacheWarmer.POPULAR_SEARCHES_KEY, 0, 199))
+            .thenReturn(new LinkedHashSet<>(List.of("IST\tLHR\tMONDAY", "SAW\tLHR\tMONDAY", "IST\tCDG\tMONDAY")));
+        Instant before = Instant.now();
+
+        // Act
+        int scheduled = limited.warmUp();
+
+        // Assert
+        assertEquals(3, scheduled);
+        verify(routeService).findRoutes(eq("IST"), eq("LHR"), any());
+        verify(routeService).findRoutes(eq("SAW"), eq("LHR"), any());
+        verify(routeService, never()).findRoutes(eq("IST"), eq("CDG"), any());
+        ArgumentCaptor<Runnable> nextBatch = ArgumentCaptor.forClass(Runnable.class);
+        ArgumentCaptor<Instant> due = ArgumentCaptor.forClass(Instant.class);
+        verify(taskScheduler).schedule(nextBatch.capture(), due.capture());
+        assertFalse(due.getValue().isBefore(before.plus(Duration.ofSeconds(1))));
+
+        nextBatch.getValue().run();
+        verify(routeService).findRoutes(eq("IST"), eq("CDG"), any());
+    }
+
+    @Test
+    void warmUpEvicted_ShouldReplayOnlyEvictedPopularSearches() {
+        // Arrange
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.reverseRange(RouteCacheWarmer.POPULAR_SEARCHES_KEY, 0, 199))
+            .thenReturn(new LinkedHashSet<>(List.of("IST\tLHR\tMONDAY", "SAW\tLHR\tFRIDAY")));
+
+        // Act
+        routeCacheWarmer.warmUpEvicted(new RouteCacheEvictedEvent(Set.of("IST-LHR-MONDAY", "IST-LHR-MONDAY-2-4")));
+
+        // Assert
+        verify(routeService).findRoutes(eq("IST"), eq("LHR"), any());
+        verify(routeService, never()).findRoutes(eq("SAW"), eq("LHR"), any());
+        verifyNoInteractions(taskScheduler);
+    }
+
+    @Test
+    void flushSearchCounts_ShouldWriteRecordedSearchesOnce() {
+        // Arrange
+        routeCacheWarmer.recordSearch("ist", "LHR", LocalDate.of(2025, 5, 5));
+        routeCacheWarmer.recordSearch("IST", "LHR", LocalDate.of(2025, 5, 12));
+
+        // Act
+        routeCacheWarmer.flushSearchCounts();
+        routeCacheWarmer.flushSearchCounts();
+
+        // Assert
+        verify(redisTemplate, times(1)).executePipelined(any(SessionCallback.class));
+    }
+
+    @Test
+    void warmUp_WhenDisabled_ShouldNotReadRedis() {
+        // Arrange
+        RouteCacheWarmer disabled = new RouteCacheWarmer(routeService, redisTemplate, new SyncTaskExecutor(), taskScheduler, false, 200, 1000);
+
+        // Act
+        disabled.recordSearch("IST", "LHR", LocalDate.of(2025, 5, 5));
+        disabled.flushSearchCounts();
+        int scheduled = disabled.warmUp();
+
+        // Assert
+        assertEquals(0, scheduled);
+        verifyNoInteractions(redisTemplate, routeService);
+    }
+}
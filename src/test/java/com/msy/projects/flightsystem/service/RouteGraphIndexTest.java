@@ -0,0 +1,155 @@
+package com.msy.projects.flightsystem.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.msy.projects.flightsystem.model.Location;
+import com.msy.projects.flightsystem.model.Transportation;
+import com.msy.projects.flightsystem.model.TransportationType;
+import com.msy.projects.flightsystem.repository.TransportationRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class RouteGraphIndexTest {
+
+    @Mock
+    private TransportationRepository transportationRepository;
+
+    @InjectMocks
+    private RouteGraphIndex routeGraphIndex;
+
+    private Location taksimSquare;
+    private Location istanbulAirport;
+    private Location heathrowAirport;
+
+    private Transportation busToAirport;
+    private Transportation flight;
+
+    @BeforeEach
+    void setUp() {
+        taksimSquare = new Location(1L, "Taksim Square", "Turkey", "Istanbul", "TAK");
+        istanbulAirport = new Location(2L, "Istanbul Airport", "Turkey", "Istanbul", "IST");
+        heathrowAirport = new Location(3L, "Heathrow Airport", "UK", "London", "LHR");
+
+        busToAirport = new Transportation();
+        busToAirport.setId(1L);
+        busToAirport.setOriginLocation(taksimSquare);
+        busToAirport.setDestinationLocation(istanbulAirport);
+        busToAirport.setTransportationType(TransportationType.BUS);
+        busToAirport.setOperatingDays(Arrays.asList(1, 2));
+
+        flight = new Transportation();
+        flight.setId(2L);
+        flight.setOriginLocation(istanbulAirport);
+        flight.setDestinationLocation(heathrowAirport);
+        flight.setTransportationType(TransportationType.FLIGHT);
+        flight.setOperatingDays(Arrays.asList(1, 2));
+    }
+
+    @Test
+    void forDay_ShouldIndexFlightsAndTransfersByLocation() {
+        // Arrange
+        when(transportationRepository.findByOperatingDay(1)).thenReturn(Arrays.asList(busToAirport, flight));
+
+        // Act
+        RouteGraphIndex.DayIndex day = routeGraphIndex.forDay(1);
+
+        // Assert
+        assertEquals(List.of(flight), day.getFlights());
+        assertEquals(List.of(flight), day.getFlightsFrom(2L));
+        assertEquals(List.of(flight), day.getFlightsTo(3L));
+        assertEquals(List.of(busToAirport), day.getTransfersFrom(1L));
+        assertEquals(List.of(busToAirport), day.getTransfersTo(2L));
+        assertEquals(List.of(busToAirport), day.getTransfers(1L, 2L));
+        assertTrue(day.getTransfers(2L, 1L).isEmpty());
+        assertTrue(day.getFlightsFrom(1L).isEmpty());
+    }
+
+    @Test
+    void canReach_ShouldFollowTransferFlightTransferRules() {
+        // Arrange
+        Location wembleyStadium = new Location(4L, "Wembley Stadium", "UK", "London", "WEM");
+        Transportation uberToStadium = new Transportation();
+        uberToStadium.setId(3L);
+        uberToStadium.setOriginLocation(heathrowAirport);
+        uberToStadium.setDestinationLocation(wembleyStadium);
+        uberToStadium.setTransportationType(TransportationType.UBER);
+        uberToStadium.setOperatingDays(Arrays.asList(1));
+        when(transportationRepository.findByOperatingDay(1)).thenReturn(Arrays.asList(busToAirport, flight, uberToStadium));
+
+        // Act
+        RouteGraphIndex.DayIndex day = routeGraphIndex.forDay(1);
+
+        // Assert
+        assertTrue(day.canReach(2L, 3L));
+        assertTrue(day.canReach(1L, 3L));
+        assertTrue(day.canReach(1L, 4L));
+        assertTrue(day.canReach(2L, 4L));
+        assertFalse(day.canReach(1L, 2L), "A transfer alone is not a route");
+        assertFalse(day.canReach(3L, 2L));
+        assertFalse(day.canReach(4L, 1L));
+    }
+
+    @Test
+    void forDay_WhenCalledRepeatedly_ShouldLoadDayOnce() {
+        // Arrange
+        when(transportationRepository.findByOperatingDay(1)).thenReturn(Arrays.asList(busToAirport, flight));
+
+        // Act
+        RouteGraphIndex.DayIndex first = routeGraphIndex.forDay(1);
+        RouteGraphIndex.DayIndex second = routeGraphIndex.forDay(1);
+
+        // Assert
+        assertSame(first, second);
+        verify(transportationRepository, times(1)).findByOperatingDay(1);
+    }
+
+    @Test
+    void forDay_WhenEvictedDuringBuild_ShouldNotCacheBuiltDay() {
+        // Arrange
+        when(transportationRepository.findByOperatingDay(1))
+                .thenAnswer(invocation -> {
+                    // Commit of a timetable change while the old timetable is being indexed
+                    routeGraphIndex.evictDays(List.of(1));
+                    return Arrays.asList(busToAirport, flight);
+                })
+                .thenReturn(List.of(busToAirport));
+
+        // Act
+        RouteGraphIndex.DayIndex stale = routeGraphIndex.forDay(1);
+        RouteGraphIndex.DayIndex rebuilt = routeGraphIndex.forDay(1);
+
+        // Assert
+        assertEquals(List.of(flight), stale.getFlights());
+        assertTrue(rebuilt.getFlights().isEmpty());
+        assertSame(rebuilt, routeGraphIndex.forDay(1));
+        verify(transportationRepository, times(2)).findByOperatingDay(1);
+    }
+
+    @Test
+    void evictDays_ShouldReloadOnlyEvictedDays() {
+        // Arrange
+        when(transportationRepository.findByOperatingDay(1)).thenReturn(Arrays.asList(busToAirport, flight));
+        when(transportationRepository.findByOperatingDay(2)).thenReturn(Arrays.asList(busToAirport, flight));
+        routeGraphIndex.forDay(1);
+        routeGraphIndex.forDay(2);
+
+        // Act
+        routeGraphIndex.evictDays(List.of(1));
+        routeGraphIndex.forDay(1);
+        routeGraphIndex.forDay(2);
+
+        // Assert
+        verify(transportationRepository, times(2)).findByOperatingDay(1);
+        verify(transportationRepository, times(1)).findByOperatingDay(2);
+    }
+}
@@ -0,0 +1,188 @@
+package com.msy.projects.flightsystem.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import com.msy.projects.flightsystem.dto.TransportationDto;
+import com.msy.projects.flightsystem.model.Location;
+import com.msy.projects.flightsystem.model.Transportation;
+import com.msy.projects.flightsystem.model.TransportationType;
+import com.msy.projects.flightsystem.repository.LocationRepository;
+import com.msy.projects.flightsystem.repository.TransportationRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class RouteMaterializerTest {
+
+    @Mock
+    private TransportationRepository transportationRepository;
+
+    @Mock
+    private LocationRepository locationRepository;
+
+    @Mock
+    private TransportationService transportationService;
+
+    private RouteGraphIndex routeGraphIndex;
+    private RouteMaterializer routeMaterializer;
+    private RouteService liveRouteService;
+
+    private final LocalDate travelDate = LocalDate.of(2025, 4, 7); // Monday
+    private List<Location> locations;
+    private List<Transportation> timetable;
+
+    @BeforeEach
+    void setUp() {
+        routeGraphIndex = new RouteGraphIndex(transportationRepository);
+        routeMaterializer = new RouteMaterializer(routeGraphIndex, new SyncTaskExecutor(), true);
+        liveRouteService = new RouteService(routeGraphIndex, locationRepository, transportationService,
+            new RouteMaterializer(routeGraphIndex, new SyncTaskExecutor(), false), mock(CacheService.class),
+            new RouteSearchMetrics(new SimpleMeterRegistry()),
+            new ParallelRouteEnumerator(null, false, 0), false);
+
+        Location taksimSquare = new Location(1L, "Taksim Square", "Turkey", "Istanbul", "TAK");
+        Location istanbulAirport = new Location(2L, "Istanbul Airport", "Turkey", "Istanbul", "IST");
+        Location heathrowAirport = new Location(3L, "Heathrow Airport", "UK", "London", "LHR");
+        Location wembleyStadium = new Location(4L, "Wembley Stadium", "UK", "London", "WEM");
+        Location sabihaAirport = new Location(5L, "Sabiha Gokcen Airport", "Turkey", "Istanbul", "SAW");
+        locations = Arrays.asList(taksimSquare, istanbulAirport, heathrowAirport, wembleyStadium, sabihaAirport);
+
+        timetable = new ArrayList<>(Arrays.asList(
+            transportation(1L, taksimSquare, istanbulAirport, TransportationType.BUS),
+            transportation(2L, istanbulAirport, heathrowAirport, TransportationType.FLIGHT),
+            transportation(3L, heathrowAirport, wembleyStadium, TransportationType.UBER),
+            transportation(4L, taksimSquare, istanbulAirport, TransportationType.SUBWAY),
+            transportation(5L, taksimSquare, sabihaAirport, TransportationType.UBER),
+            transportation(6L, sabihaAirport, heathrowAirport, TransportationType.FLIGHT),
+            transportation(7L, sabihaAirport, istanbulAirport, TransportationType.BUS)));
+
+        for (Location location : locations) {
+            lenient().when(locationRepository.findByLocationCode(location.getLocationCode()))
+                .thenReturn(Optional.of(location));
+        }
+        lenient().when(transportationRepository.findByOperatingDay(1)).thenAnswer(inv -> new ArrayList<>(timetable));
+    }
+
+    @Test
+    void materializeDay_ShouldStoreTheRoutesOfTheLiveSearch() {
+        // Act
+        routeMaterializer.materializeDay(1);
+
+        // Assert
+        assertMatchesLiveSearch();
+    }
+
+    @Test
+    void transportationChanged_WhenFlightAdded_ShouldRecomputeAffectedPairs() {
+        // Arrange
+        routeMaterializer.materializeDay(1);
+        Transportation newFlight = transportation(8L, locations.get(1), locations.get(2), TransportationType.FLIGHT);
+        timetable.add(newFlight);
+        routeGraphIndex.evictDays(List.of(1));
+
+        // Act
+        routeMaterializer.transportationChanged(null, TransportationEdge.of(newFlight));
+
+        // Assert
+        assertEquals(2, materializedRouteIds(1L, 4L).stream().filter(route -> route.contains(8L)).count());
+        assertMatchesLiveSearch();
+    }
+
+    @Test
+    void transportationChanged_WhenTransferDeleted_ShouldRemoveItsRoutes() {
+        // Arrange
+        routeMaterializer.materializeDay(1);
+        Transportation removedTransfer = timetable.remove(2);
+        routeGraphIndex.evictDays(List.of(1));
+
+        // Act
+        routeMaterializer.transportationChanged(TransportationEdge.of(removedTransfer), null);
+
+        // Assert
+        assertTrue(materializedRouteIds(1L, 4L).isEmpty());
+        assertMatchesLiveSearch();
+    }
+
+    @Test
+    void locationChanged_WhenCodeChanged_ShouldResolveRoutesWithTheNewCode() {
+        // Arrange
+        routeMaterializer.materializeDay(1);
+        Location renamedHeathrow = new Location(3L, "Heathrow Airport", "UK", "London", "LHW");
+        timetable.replaceAll(t -> transportation(t.getId(),
+            t.getOriginLocation().getId().equals(3L) ? renamedHeathrow : t.getOriginLocation(),
+            t.getDestinationLocation().getId().equals(3L) ? renamedHeathrow : t.getDestinationLocation(),
+            t.getTransportationType()));
+        routeGraphIndex.evictDays(List.of(1));
+
+        // Act
+        routeMaterializer.locationChanged(3L);
+
+        // Assert
+        List<List<Transportation>> routes = routeMaterializer.findRoutes(1, 1L, 3L).orElseThrow();
+        assertFalse(routes.isEmpty());
+        routes.forEach(route -> assertEquals("LHW",
+            route.get(route.size() - 1).getDestinationLocation().getLocationCode()));
+        assertEquals(List.of(List.of(1L, 2L), List.of(4L, 2L), List.of(5L, 6L)), materializedRouteIds(1L, 3L));
+    }
+
+    @Test
+    void findRoutes_WhenDisabled_ShouldNotMaterialize() {
+        // Arrange
+        RouteMaterializer disabled = new RouteMaterializer(routeGraphIndex, new SyncTaskExecutor(), false);
+
+        // Act
+        disabled.materializeAll();
+
+        // Assert
+        assertTrue(disabled.findRoutes(1, 1L, 3L).isEmpty());
+        verifyNoInteractions(transportationRepository);
+    }
+
+    private void assertMatchesLiveSearch() {
+        lenient().when(transportationService.mapToDto(any(Transportation.class))).thenAnswer(inv -> {
+            Transportation transportation = inv.getArgument(0);
+            TransportationDto dto = new TransportationDto();
+            dto.setId(transportation.getId());
+            return dto;
+        });
+        for (Location origin : locations) {
+            for (Location destination : locations) {
+                List<List<Long>> live = liveRouteService
+                    .findRoutes(origin.getLocationCode(), destination.getLocationCode(), travelDate).stream()
+                    .map(route -> route.stream().map(TransportationDto::getId).toList())
+                    .toList();
+                assertEquals(live, materializedRouteIds(origin.getId(), destination.getId()),
+                    "Routes should match for " + origin.getLocationCode() + "-" + destination.getLocationCode());
+            }
+        }
+    }
+
+    private List<List<Long>> materializedRouteIds(Long originId, Long destinationId) {
+        return routeMaterializer.findRoutes(1, originId, destinationId).orElseThrow().stream()
+            .map(route -> route.stream().map(Transportation::getId).toList())
+            .toList();
+    }
+
+    private Transportation transportation(Long id, Location origin, Location destination, TransportationType type) {
+        Transportation transportation = new Transportation();
+        transportation.setId(id);
+        transportation.setOriginLocation(origin);
+        transportation.setDestinationLocation(destination);
+        transportation.setTransportationType(type);
+        transportation.setOperatingDays(List.of(1));
+        return transportation;
+    }
+}
@@ -0,0 +1,88 @@
+package com.msy.projects.flightsystem.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.msy.projects.flightsystem.dto.RouteRangeResponseDto;
+import com.msy.projects.flightsystem.dto.TransportationDto;
+import com.msy.projects.flightsystem.exception.BadRequestException;
+import com.msy.projects.flightsystem.model.TransportationType;
+
+@ExtendWith(MockitoExtension.class)
+public class RouteRangeServiceTest {
+
+    @Mock
+    private RouteService routeService;
+
+    @InjectMocks
+    private RouteRangeService routeRangeService;
+
+    private List<List<TransportationDto>> routes;
+
+    @BeforeEach
+    void setUp() {
+        TransportationDto flightDto = new TransportationDto(
+            1L, 1L, "IST", 2L, "LHR", TransportationType.FLIGHT, Arrays.asList(1, 2, 3, 4, 5, 6, 7));
+        routes = List.of(List.of(flightDto));
+    }
+
+    @Test
+    void findRoutesInRange_ForAMonth_ShouldSearchOncePerWeekday() {
+        // Arrange
+        LocalDate fromDate = LocalDate.of(2025, 4, 1); // Tuesday
+        LocalDate toDate = LocalDate.of(2025, 4, 30);
+        when(routeService.findRoutes(eq("IST"), eq("LHR"), any(LocalDate.class))).thenReturn(routes);
+
+        // Act
+        RouteRangeResponseDto result = routeRangeService.findRoutesInRange("IST", "LHR", fromDate, toDate);
+
+        // Assert
+        verify(routeService, times(7)).findRoutes(eq("IST"), eq("LHR"), any(LocalDate.class));
+        assertEquals(7, result.getRoutesByDay().size());
+        assertEquals(30, result.getDatesByDay().values().stream().mapToInt(List::size).sum());
+        assertEquals(5, result.getDatesByDay().get(DayOfWeek.TUESDAY).size());
+        assertEquals(fromDate, result.getDatesByDay().get(DayOfWeek.TUESDAY).get(0));
+        assertSame(routes, result.getRoutesByDay().get(DayOfWeek.MONDAY));
+    }
+
+    @Test
+    void findRoutesInRange_ForFewDays_ShouldOnlySearchWeekdaysInRange() {
+        // Arrange
+        LocalDate fromDate = LocalDate.of(2025, 4, 5); // Saturday
+        LocalDate toDate = LocalDate.of(2025, 4, 6); // Sunday
+        when(routeService.findRoutes(eq("IST"), eq("LHR"), any(LocalDate.class))).thenReturn(routes);
+
+        // Act
+        RouteRangeResponseDto result = routeRangeService.findRoutesInRange("IST", "LHR", fromDate, toDate);
+
+        // Assert
+        verify(routeService).findRoutes("IST", "LHR", fromDate);
+        verify(routeService).findRoutes("IST", "LHR", toDate);
+        verifyNoMoreInteractions(routeService);
+        assertEquals(List.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY), List.copyOf(result.getRoutesByDay().keySet()));
+    }
+
+    @Test
+    void findRoutesInRange_WhenRangeInvalid_ShouldThrowException() {
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> routeRangeService.findRoutesInRange(
+            "IST", "LHR", LocalDate.of(2025, 4, 7), LocalDate.of(2025, 4, 6)));
+        assertThrows(BadRequestException.class, () -> routeRangeService.findRoutesInRange(
+            "IST", "LHR", LocalDate.of(2025, 1, 1), LocalDate.of(2026, 1, 2)));
+        verifyNoInteractions(routeService);
+    }
+}
@@ -1,23 +1,33 @@
 package com.msy.projects.flightsystem.service;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.msy.projects.flightsystem.dto.CompactRoutesDto;
+import com.msy.projects.flightsystem.dto.RoutePageDto;
 import com.msy.projects.flightsystem.dto.TransportationDto;
+import com.msy.projects.flightsystem.exception.BadRequestException;
 import com.msy.projects.flightsystem.exception.ResourceNotFoundException;
 import com.msy.projects.flightsystem.model.Location;
+import com.msy.projects.flightsystem.model.RouteSort;
 import com.msy.projects.flightsystem.model.Transportation;
 import com.msy.projects.flightsystem.model.TransportationType;
 import com.msy.projects.flightsystem.repository.LocationRepository;
@@ -35,8 +45,11 @@ public class RouteServiceTest {
     
     @Mock
     private TransportationService transportationService;
+    
+    @Mock
+    private CacheService cacheService;
 
-    @InjectMocks
+    private RouteGraphIndex routeGraphIndex;
     private RouteService routeService;
 
     private Location taksimSquare;
@@ -56,9 +69,16 @@ public class RouteServiceTest {
     
     private LocalDate travelDate;
     private int dayOfWeek;
+    private SimpleMeterRegistry meterRegistry;
 
     @BeforeEach
     void setUp() {
+        routeGraphIndex = new RouteGraphIndex(transportationRepository);
+        meterRegistry = new SimpleMeterRegistry();
+        routeService = new RouteService(routeGraphIndex, locationRepository, transportationService,
+            new RouteMaterializer(routeGraphIndex, new SyncTaskExecutor(), false), cacheService,
+            new RouteSearchMetrics(meterRegistry), new ParallelRouteEnumerator(null, false, 0), true);
+        
         // Setup test locations
         taksimSquare = new Location(1L, "Taksim Square", "Turkey", "Istanbul", "TAK");
         istanbulAirport = new Location(2L, "Istanbul Airport", "Turkey", "Istanbul", "IST");
@@ -165,6 +185,50 @@ public class RouteServiceTest {
         assertEquals("LHR", routes.get(0).get(0).getDestinationLocationCode());
     }
 
+    @Test
+    void findRoutes_ShouldRecordSearchMetrics() {
+        // Arrange
+        when(locationRepository.findByLocationCode("IST")).thenReturn(Optional.of(istanbulAirport));
+        when(locationRepository.findByLocationCode("LHR")).thenReturn(Optional.of(heathrowAirport));
+        when(transportationRepository.findByOperatingDay(dayOfWeek))
+            .thenReturn(Arrays.asList(flight));
+        
+        // Act
+        routeService.findRoutes("IST", "LHR", travelDate);
+        
+        // Assert
+        String weekday = travelDate.getDayOfWeek().name().toLowerCase();
+        assertEquals(1, meterRegistry.get("route.search")
+            .tag("search", "default").tag("weekday", weekday).tag("result", "1-10").timer().count());
+        assertEquals(2, meterRegistry.get("route.search.phase").tag("phase", "location_lookup").timer().count());
+        assertEquals(1, meterRegistry.get("route.search.phase").tag("phase", "flight_fetch").timer().count());
+        assertEquals(1, meterRegistry.get("route.search.phase").tag("phase", "transfer_expansion").timer().count());
+        assertEquals(1, meterRegistry.get("route.search.phase").tag("phase", "dto_mapping").timer().count());
+        assertEquals(1.0, meterRegistry.get("route.search.routes").tag("weekday", weekday).counter().count());
+        assertEquals(1.0, meterRegistry.get("route.search.flights.scanned").counter().count());
+    }
+
+    @Test
+    void findRoutes_WhenDayEvictedDuringSearch_ShouldSearchAgainBeforeCaching() {
+        // Arrange
+        when(locationRepository.findByLocationCode("IST")).thenReturn(Optional.of(istanbulAirport));
+        when(locationRepository.findByLocationCode("LHR")).thenReturn(Optional.of(heathrowAirport));
+        when(transportationRepository.findByOperatingDay(dayOfWeek))
+            .thenAnswer(invocation -> {
+                // A new flight is committed while the old timetable is being searched
+                routeGraphIndex.evictDays(List.of(dayOfWeek));
+                return List.of(busToAirport);
+            })
+            .thenReturn(Arrays.asList(busToAirport, flight));
+        
+        // Act
+        List<List<TransportationDto>> routes = routeService.findRoutes("IST", "LHR", travelDate);
+        
+        // Assert
+        assertEquals(1, routes.size());
+        verify(transportationRepository, times(2)).findByOperatingDay(dayOfWeek);
+    }
+
     @Test
     void findRoutes_WithBeforeFlightTransfer_ShouldReturnValidRoute() {
         // Arrange
@@ -337,6 +401,290 @@ public class RouteServiceTest {
         // In a real integration test, we would verify the cache was used for the second call
         verify(locationRepository, times(2)).findByLocationCode("IST"); // Still called for each test due to mocking
         verify(locationRepository, times(2)).findByLocationCode("LHR"); // Still called for each test due to mocking
-        verify(transportationRepository, times(2)).findByOperatingDay(dayOfWeek); // Still called for each test due to mocking
+        verify(transportationRepository, times(1)).findByOperatingDay(dayOfWeek); // Timetable is indexed once per weekday
+    }
+
+    @Test
+    void routeCacheKey_ShouldNormalizeCodesAndUseWeekday() {
+        // Act
+        String key = RouteService.routeCacheKey(" ist", "lhr ", travelDate);
+        String nextWeekKey = RouteService.routeCacheKey("IST", "LHR", travelDate.plusWeeks(1));
+        String boundedKey = RouteService.routeCacheKey("ist", "LHR", travelDate, 2, 4);
+
+        // Assert
+        assertEquals("IST-LHR-MONDAY", key);
+        assertEquals(key, nextWeekKey);
+        assertEquals("IST-LHR-MONDAY-2-4", boundedKey);
+    }
+
+    @Test
+    void findRoutes_WithLowerCaseCodes_ShouldLookUpUpperCaseLocations() {
+        // Arrange
+        when(locationRepository.findByLocationCode("IST")).thenReturn(Optional.of(istanbulAirport));
+        when(locationRepository.findByLocationCode("LHR")).thenReturn(Optional.of(heathrowAirport));
+        when(transportationRepository.findByOperatingDay(dayOfWeek))
+            .thenReturn(Arrays.asList(flight));
+
+        // Act
+        List<List<TransportationDto>> routes = routeService.findRoutes("ist", " lhr", travelDate);
+
+        // Assert
+        assertEquals(1, routes.size());
+        verify(cacheService).tagRoutes(eq("IST-LHR-MONDAY"), eq(dayOfWeek), eq(2L), eq(3L), eq(false), any());
+    }
+
+    @Test
+    void findRoutes_WhenLegacyEntryCached_ShouldReuseItWithoutSearching() {
+        // Arrange
+        List<List<TransportationDto>> legacyRoutes = List.of(List.of(flightDto));
+        when(locationRepository.findByLocationCode("IST")).thenReturn(Optional.of(istanbulAirport));
+        when(locationRepository.findByLocationCode("LHR")).thenReturn(Optional.of(heathrowAirport));
+        when(cacheService.getCachedRoutes(List.of("IST-LHR-" + travelDate)))
+            .thenReturn(Map.of("IST-LHR-" + travelDate, legacyRoutes));
+
+        // Act
+        List<List<TransportationDto>> routes = routeService.findRoutes("IST", "LHR", travelDate);
+
+        // Assert
+        assertEquals(legacyRoutes, routes);
+        verifyNoInteractions(transportationRepository);
+    }
+
+    @Test
+    void findRoutes_WhenDayEvictedSinceStartup_ShouldIgnoreLegacyEntry() {
+        // Arrange
+        when(locationRepository.findByLocationCode("IST")).thenReturn(Optional.of(istanbulAirport));
+        when(locationRepository.findByLocationCode("LHR")).thenReturn(Optional.of(heathrowAirport));
+        when(transportationRepository.findByOperatingDay(dayOfWeek))
+            .thenReturn(Arrays.asList(flight));
+        routeGraphIndex.evictDays(List.of(dayOfWeek));
+
+        // Act
+        List<List<TransportationDto>> routes = routeService.findRoutes("IST", "LHR", travelDate);
+
+        // Assert
+        assertEquals(1, routes.size());
+        verify(cacheService, never()).getCachedRoutes(anyList());
+    }
+
+    @Test
+    void findCompactRoutes_ShouldListEachTransportationOnceAndRoutesById() {
+        // Arrange
+        when(locationRepository.findByLocationCode("TAK")).thenReturn(Optional.of(taksimSquare));
+        when(locationRepository.findByLocationCode("LHR")).thenReturn(Optional.of(heathrowAirport));
+        when(transportationRepository.findByOperatingDay(dayOfWeek))
+            .thenReturn(Arrays.asList(busToAirport, subwayToAirport, flight));
+
+        // Act
+        CompactRoutesDto compact = routeService.findCompactRoutes("TAK", "LHR", travelDate);
+
+        // Assert
+        assertEquals(List.of(1L, 2L, 4L), new ArrayList<>(compact.getTransportations().keySet()));
+        assertEquals(List.of(List.of(1L, 2L), List.of(4L, 2L)), compact.getRoutes());
+        verify(transportationService, times(1)).mapToDto(flight);
+        verify(cacheService).tagRouteSegments(eq("TAK-LHR-MONDAY-COMPACT"), eq(dayOfWeek), eq(1L), eq(3L), eq(false), any());
+    }
+
+    @Test
+    void findRoutesBounded_WithOneFlight_ShouldMatchDefaultSearch() {
+        // Arrange
+        // A network with parallel transfers, parallel flights and an airport-to-airport transfer
+        Location sabihaAirport = new Location(5L, "Sabiha Gokcen Airport", "Turkey", "Istanbul", "SAW");
+        Location jfkAirport = new Location(6L, "John F. Kennedy Airport", "USA", "New York", "JFK");
+        List<Transportation> timetable = Arrays.asList(
+            busToAirport,
+            subwayToAirport,
+            flight,
+            uberToStadium,
+            transportation(10L, taksimSquare, sabihaAirport, TransportationType.UBER),
+            transportation(11L, sabihaAirport, istanbulAirport, TransportationType.BUS),
+            transportation(12L, sabihaAirport, heathrowAirport, TransportationType.FLIGHT),
+            transportation(13L, istanbulAirport, heathrowAirport, TransportationType.FLIGHT),
+            transportation(14L, heathrowAirport, wembleyStadium, TransportationType.BUS),
+            transportation(15L, istanbulAirport, jfkAirport, TransportationType.FLIGHT));
+        List<Location> locations = Arrays.asList(
+            taksimSquare, istanbulAirport, heathrowAirport, wembleyStadium, sabihaAirport, jfkAirport);
+        
+        for (Location location : locations) {
+            lenient().when(locationRepository.findByLocationCode(location.getLocationCode())).thenReturn(Optional.of(location));
+        }
+        when(transportationRepository.findByOperatingDay(dayOfWeek)).thenReturn(timetable);
+        when(transportationService.mapToDto(any(Transportation.class))).thenAnswer(inv -> toDto(inv.getArgument(0)));
+        
+        // Act & Assert
+        int routesCompared = 0;
+        for (Location origin : locations) {
+            for (Location destination : locations) {
+                if (origin == destination) {
+                    continue;
+                }
+                List<List<Long>> expected = routeIds(
+                    routeService.findRoutes(origin.getLocationCode(), destination.getLocationCode(), travelDate));
+                List<List<Long>> actual = routeIds(
+                    routeService.findRoutes(origin.getLocationCode(), destination.getLocationCode(), travelDate, 1, 3));
+                
+                assertEquals(expected.size(), actual.size(),
+                    "Route count should match for " + origin.getLocationCode() + "-" + destination.getLocationCode());
+                assertEquals(new HashSet<>(expected), new HashSet<>(actual),
+                    "Routes should match for " + origin.getLocationCode() + "-" + destination.getLocationCode());
+                routesCompared += expected.size();
+            }
+        }
+        assertTrue(routesCompared > 10, "Network should produce routes to compare");
+    }
+
+    @Test
+    void findRoutesBounded_WithConnectingFlights_ShouldRespectBounds() {
+        // Arrange
+        // Taksim -> Bus -> Istanbul -> Flight -> Frankfurt -> Flight -> JFK -> Uber -> Manhattan
+        Location frankfurtAirport = new Location(5L, "Frankfurt Airport", "Germany", "Frankfurt", "FRA");
+        Location jfkAirport = new Location(6L, "John F. Kennedy Airport", "USA", "New York", "JFK");
+        Location manhattan = new Location(7L, "Manhattan", "USA", "New York", "MAN");
+        Transportation istFra = transportation(10L, istanbulAirport, frankfurtAirport, TransportationType.FLIGHT);
+        Transportation fraJfk = transportation(11L, frankfurtAirport, jfkAirport, TransportationType.FLIGHT);
+        Transportation fraIst = transportation(12L, frankfurtAirport, istanbulAirport, TransportationType.FLIGHT);
+        Transportation uberToManhattan = transportation(13L, jfkAirport, manhattan, TransportationType.UBER);
+        
+        when(locationRepository.findByLocationCode("TAK")).thenReturn(Optional.of(taksimSquare));
+        when(locationRepository.findByLocationCode("MAN")).thenReturn(Optional.of(manhattan));
+        when(transportationRepository.findByOperatingDay(dayOfWeek))
+            .thenReturn(Arrays.asList(busToAirport, istFra, fraIst, fraJfk, uberToManhattan));
+        lenient().when(transportationService.mapToDto(any(Transportation.class))).thenAnswer(inv -> toDto(inv.getArgument(0)));
+        
+        // Act
+        List<List<TransportationDto>> twoFlights = routeService.findRoutes("TAK", "MAN", travelDate, 2, 4);
+        List<List<TransportationDto>> tooFewSegments = routeService.findRoutes("TAK", "MAN", travelDate, 2, 3);
+        List<List<TransportationDto>> oneFlight = routeService.findRoutes("TAK", "MAN", travelDate, 1, 4);
+        
+        // Assert
+        assertEquals(List.of(List.of(1L, 10L, 11L, 13L)), routeIds(twoFlights));
+        assertTrue(tooFewSegments.isEmpty(), "Route needs 4 segments");
+        assertTrue(oneFlight.isEmpty(), "Route needs 2 flights");
+    }
+
+    @Test
+    void findRoutesBounded_WhenBoundsOutOfRange_ShouldThrowException() {
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> routeService.findRoutes("TAK", "WEM", travelDate, 0, 3));
+        assertThrows(BadRequestException.class,
+            () -> routeService.findRoutes("TAK", "WEM", travelDate, 1, RouteService.MAX_SEGMENTS_LIMIT + 1));
+        verifyNoInteractions(locationRepository, transportationRepository);
+    }
+
+    @Test
+    void findRoutePage_WhenFollowingCursors_ShouldReturnAllRoutesByFewestSegments() {
+        // Arrange
+        stubPageNetwork();
+        
+        // Act
+        List<List<Long>> pagedRoutes = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            RoutePageDto page = routeService.findRoutePage("TAK", "WEM", travelDate, 1, 3,
+                RouteSort.SEGMENTS, null, 2, cursor);
+            pagedRoutes.addAll(routeIds(page.getRoutes()));
+            pageSizes.add(page.getRoutes().size());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        
+        // Assert
+        List<List<Long>> allRoutes = routeIds(routeService.findRoutes("TAK", "WEM", travelDate, 1, 3));
+        assertEquals(List.of(2, 2, 2), pageSizes);
+        assertEquals(new HashSet<>(allRoutes), new HashSet<>(pagedRoutes));
+        assertEquals(allRoutes.size(), new HashSet<>(pagedRoutes).size(), "Pages should not repeat routes");
+        assertEquals(2, pagedRoutes.get(0).size());
+        assertEquals(2, pagedRoutes.get(1).size());
+        assertEquals(3, pagedRoutes.get(5).size());
+    }
+
+    @Test
+    void findRoutePage_WithPreferredTypes_ShouldRankPreferredTransfersFirst() {
+        // Arrange
+        stubPageNetwork();
+        
+        // Act
+        RoutePageDto page = routeService.findRoutePage("TAK", "WEM", travelDate, 1, 3,
+            RouteSort.PREFERRED_TYPES, List.of(TransportationType.SUBWAY, TransportationType.UBER), 2, null);
+        
+        // Assert
+        assertEquals(List.of(List.of(15L, 3L), List.of(4L, 2L, 3L)), routeIds(page.getRoutes()));
+        assertNotNull(page.getNextCursor());
+    }
+
+    @Test
+    void findRoutePage_WhenCursorOfAnotherSearch_ShouldThrowException() {
+        // Arrange
+        stubPageNetwork();
+        String cursor = routeService.findRoutePage("TAK", "WEM", travelDate, 1, 3,
+            RouteSort.SEGMENTS, null, 2, null).getNextCursor();
+        assertNotNull(cursor);
+        
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> routeService.findRoutePage("TAK", "WEM", travelDate, 1, 2,
+            RouteSort.SEGMENTS, null, 2, cursor));
+        assertThrows(BadRequestException.class, () -> routeService.findRoutePage("TAK", "WEM", travelDate.plusWeeks(1),
+            1, 3, RouteSort.SEGMENTS, null, 2, cursor));
+        assertThrows(BadRequestException.class, () -> routeService.findRoutePage("TAK", "WEM", travelDate, 1, 3,
+            RouteSort.PREFERRED_TYPES, List.of(TransportationType.UBER), 2, cursor));
+        assertEquals(2, routeService.findRoutePage("TAK", "WEM", travelDate, 1, 3,
+            RouteSort.SEGMENTS, null, 2, cursor).getRoutes().size());
+    }
+
+    @Test
+    void findRoutePage_WhenLimitOrCursorInvalid_ShouldThrowException() {
+        // Arrange
+        lenient().when(locationRepository.findByLocationCode("TAK")).thenReturn(Optional.of(taksimSquare));
+        lenient().when(locationRepository.findByLocationCode("WEM")).thenReturn(Optional.of(wembleyStadium));
+        
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> routeService.findRoutePage("TAK", "WEM", travelDate, 1, 3,
+            RouteSort.SEGMENTS, null, 0, null));
+        assertThrows(BadRequestException.class, () -> routeService.findRoutePage("TAK", "WEM", travelDate, 1, 3,
+            RouteSort.SEGMENTS, null, 2, "not-a-cursor"));
+    }
+
+    /**
+     * TAK -> WEM over two transfers into IST, a flight IST -> LHR, a direct flight TAK -> LHR
+     * and two transfers from LHR into WEM
+     */
+    private void stubPageNetwork() {
+        when(locationRepository.findByLocationCode("TAK")).thenReturn(Optional.of(taksimSquare));
+        when(locationRepository.findByLocationCode("WEM")).thenReturn(Optional.of(wembleyStadium));
+        when(transportationRepository.findByOperatingDay(dayOfWeek)).thenReturn(Arrays.asList(
+            busToAirport,
+            subwayToAirport,
+            flight,
+            uberToStadium,
+            transportation(14L, heathrowAirport, wembleyStadium, TransportationType.BUS),
+            transportation(15L, taksimSquare, heathrowAirport, TransportationType.FLIGHT)));
+        when(transportationService.mapToDto(any(Transportation.class))).thenAnswer(inv -> toDto(inv.getArgument(0)));
+    }
+
+    private Transportation transportation(Long id, Location origin, Location destination, TransportationType type) {
+        Transportation transportation = new Transportation();
+        transportation.setId(id);
+        transportation.setOriginLocation(origin);
+        transportation.setDestinationLocation(destination);
+        transportation.setTransportationType(type);
+        transportation.setOperatingDays(Arrays.asList(1, 2, 3, 4, 5, 6, 7));
+        return transportation;
+    }
+
+    private TransportationDto toDto(Transportation transportation) {
+        return new TransportationDto(
+            transportation.getId(),
+            transportation.getOriginLocation().getId(),
+            transportation.getOriginLocation().getLocationCode(),
+            transportation.getDestinationLocation().getId(),
+            transportation.getDestinationLocation().getLocationCode(),
+            transportation.getTransportationType(),
+            transportation.getOperatingDays());
+    }
+
+    private List<List<Long>> routeIds(List<List<TransportationDto>> routes) {
+        return routes.stream()
+            .map(route -> route.stream().map(TransportationDto::getId).toList())
+            .toList();
     }
 }
@@ -13,9 +13,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
+import com.msy.projects.flightsystem.dto.KeysetPageDto;
 import com.msy.projects.flightsystem.dto.TransportationDto;
+import com.msy.projects.flightsystem.exception.BadRequestException;
 import com.msy.projects.flightsystem.exception.ResourceNotFoundException;
 import com.msy.projects.flightsystem.model.Location;
 import com.msy.projects.flightsystem.model.Transportation;
@@ -33,7 +37,16 @@ public class TransportationServiceTest {
     private LocationRepository locationRepository;
     
     @Mock
-    private CacheService cacheService;
+    private RouteCacheInvalidator routeCacheInvalidator;
+    
+    @Mock
+    private RouteGraphIndex routeGraphIndex;
+    
+    @Mock
+    private RouteMaterializer routeMaterializer;
+
+    @Spy
+    private KeysetPaging keysetPaging = new KeysetPaging(1000);
 
     @InjectMocks
     private TransportationService transportationService;
@@ -71,8 +84,7 @@ public class TransportationServiceTest {
     @Test
     void getAllTransportations_ShouldReturnAllTransportations() {
         // Arrange
-        List<Transportation> transportations = Arrays.asList(testTransportation);
-        when(transportationRepository.findAll()).thenReturn(transportations);
+        when(transportationRepository.findAllDtos(Limit.of(1000))).thenReturn(Arrays.asList(testTransportationDto));
 
         // Act
         List<TransportationDto> result = transportationService.getAllTransportations();
@@ -81,7 +93,43 @@ public class TransportationServiceTest {
         assertEquals(1, result.size());
         assertEquals(testTransportationDto.getId(), result.get(0).getId());
         assertEquals(testTransportationDto.getOriginLocationCode(), result.get(0).getOriginLocationCode());
-        verify(transportationRepository, times(1)).findAll();
+        verify(transportationRepository, times(1)).findAllDtos(Limit.of(1000));
+        verify(transportationRepository, never()).findAll();
+    }
+
+    @Test
+    void getTransportationPage_ShouldContinueAfterLastIdOfPreviousPage() {
+        // Arrange
+        TransportationDto second = new TransportationDto(2L, 1L, "IST", 2L, "JFK", TransportationType.FLIGHT, List.of(1));
+        TransportationDto third = new TransportationDto(3L, 1L, "IST", 2L, "JFK", TransportationType.FLIGHT, List.of(1));
+        when(transportationRepository.findDtoPage(0L, "IST", null, TransportationType.FLIGHT, 0b1, Limit.of(3)))
+                .thenReturn(Arrays.asList(testTransportationDto, second, third));
+        when(transportationRepository.findDtoPage(2L, "IST", null, TransportationType.FLIGHT, 0b1, Limit.of(3)))
+                .thenReturn(List.of(third));
+
+        // Act
+        KeysetPageDto<TransportationDto> firstPage =
+                transportationService.getTransportationPage("IST", null, TransportationType.FLIGHT, 1, 2, null);
+        KeysetPageDto<TransportationDto> lastPage = transportationService.getTransportationPage(
+                "IST", null, TransportationType.FLIGHT, 1, 2, firstPage.getNextCursor());
+
+        // Assert
+        assertEquals(List.of(1L, 2L), firstPage.getItems().stream().map(TransportationDto::getId).toList());
+        assertNotNull(firstPage.getNextCursor());
+        assertEquals(List.of(3L), lastPage.getItems().stream().map(TransportationDto::getId).toList());
+        assertNull(lastPage.getNextCursor());
+    }
+
+    @Test
+    void getTransportationPage_WithInvalidArguments_ShouldThrowBadRequestException() {
+        // Act & Assert
+        assertThrows(BadRequestException.class,
+                () -> transportationService.getTransportationPage(null, null, null, null, 0, null));
+        assertThrows(BadRequestException.class,
+                () -> transportationService.getTransportationPage(null, null, null, 8, 10, null));
+        assertThrows(BadRequestException.class,
+                () -> transportationService.getTransportationPage(null, null, null, null, 10, "not-a-cursor"));
+        verifyNoInteractions(transportationRepository);
     }
 
     @Test
@@ -190,7 +238,8 @@ public class TransportationServiceTest {
         verify(locationRepository).findById(1L);
         verify(locationRepository).findById(2L);
         verify(transportationRepository).save(any(Transportation.class));
-        verify(cacheService).clearRouteCache();
+        verify(routeGraphIndex).evictDays(Arrays.asList(1, 3, 5));
+        verify(routeCacheInvalidator).transportationChanged(2L, null, TransportationEdge.of(savedTransportation));
     }
 
     @Test
@@ -237,6 +286,7 @@ public class TransportationServiceTest {
         // Assert
         verify(transportationRepository).findById(1L);
         verify(transportationRepository).delete(testTransportation);
-        verify(cacheService).clearRouteCache();
+        verify(routeGraphIndex).evictDays(Arrays.asList(1, 3, 5, 7));
+        verify(routeCacheInvalidator).transportationChanged(1L, TransportationEdge.of(testTransportation), null);
     }
 }